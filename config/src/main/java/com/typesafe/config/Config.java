@@ -950,4 +950,28 @@ public interface Config extends ConfigMergeable {
      * @return the new instance with the new map entry
      */
     Config withValue(String path, ConfigValue value);
+
+    /**
+     * Compares this config to another one and returns the paths that were
+     * added, removed or changed going from this config to {@code other}, as if
+     * comparing the two {@link #entrySet()}s but without building them.
+     * Objects that the two configs share (as configs derived from each other
+     * with {@link #withValue} or {@link #withoutPath} do) are skipped without
+     * being walked. Within an object that was modified, the keys of both
+     * versions are compared one by one, except when both versions came out of
+     * {@code withValue} or {@code withoutPath}: those share most of their
+     * internal structure, and only the parts that differ are looked at. So
+     * diffing two copies that were both modified from a common config costs
+     * about as much as the modifications, while diffing a freshly parsed
+     * config against a modified copy of it also costs a walk over the keys of
+     * each object the modifications are in.
+     * <p>
+     * Lists are compared as single values, so a change inside a list shows up
+     * as a change to the path of the list.
+     *
+     * @param other the config to compare this one to
+     * @return the differences from this config to {@code other}
+     * @throws ConfigException.NotResolved if either config is not resolved
+     */
+    ConfigDiff diff(Config other);
 }
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config;
+
+import java.util.Map;
+
+/**
+ * A mutable, single-use builder for assembling a large {@link Config} from
+ * code, for example from rows loaded out of a database. Get one from
+ * {@link ConfigFactory#builder()}.
+ *
+ * <p>
+ * Chaining {@link Config#withValue} creates a new immutable config for each
+ * value, and {@link ConfigFactory#parseMap} needs the whole map built up front.
+ * A builder instead collects values into mutable maps and turns those same maps
+ * into the immutable config tree in one pass when {@link #build()} is called.
+ *
+ * <p>
+ * Values are converted as with {@link ConfigValueFactory#fromAnyRef(Object)}:
+ * primitives and their wrappers, strings, {@code Iterable}s (becoming lists),
+ * {@code Map}s with string keys (becoming objects; these keys are keys, not
+ * paths), and existing {@link ConfigValue}s are all accepted.
+ *
+ * <p>
+ * Setting a path that already has a value replaces it, and setting a path
+ * below a value that isn't an object replaces that value with an object, the
+ * same as {@link Config#withValue}. Setting a path below an object that was
+ * added as a whole (as a {@code Map} or {@link ConfigObject}) adds to that
+ * object.
+ *
+ * <p>
+ * A builder is not thread-safe, and once {@link #build()} has been called it
+ * can't be used again.
+ *
+ * <p>
+ * <em>Do not implement interface {@code ConfigBuilder}</em>; it should only be
+ * implemented by the config library.
+ */
+public sealed interface ConfigBuilder permits com.typesafe.config.impl.SimpleConfigBuilder {
+    /**
+     * Sets the value at the given path.
+     * <p>
+     * Note that path expressions have a syntax and sometimes require quoting
+     * (see {@link ConfigUtil#joinPath} and {@link ConfigUtil#splitPath}).
+     *
+     * @param path  path expression for the value's location
+     * @param value the value, as accepted by
+     *              {@link ConfigValueFactory#fromAnyRef(Object)}
+     * @return this builder
+     * @throws ConfigException.BadPath if the path expression is invalid
+     */
+    ConfigBuilder put(String path, Object value);
+
+    /**
+     * Sets every entry of a map from path expressions to values, as if
+     * calling {@link #put(String, Object)} for each entry. Shorter paths are
+     * put first, so when the map has both a path and a path inside it (such
+     * as {@code a} and {@code a.b}), the inner value is set inside or in
+     * place of the outer one whatever order the map iterates in.
+     *
+     * @param values map from path expressions to values
+     * @return this builder
+     * @throws ConfigException.BadPath if a path expression is invalid
+     */
+    ConfigBuilder putAll(Map<String, ?> values);
+
+    /**
+     * Freezes everything that was put into this builder into a
+     * {@code Config}. The builder can't be used afterward.
+     *
+     * @return the built configuration
+     */
+    Config build();
+}
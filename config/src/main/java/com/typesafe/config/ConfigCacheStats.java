@@ -0,0 +1,26 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config;
+
+import java.time.Duration;
+
+/**
+ * Counters for one of the library's caches: the cache behind
+ * {@link ConfigFactory#load()} and {@link ConfigFactory#defaultReference()},
+ * as returned by {@link ConfigFactory#cacheStats()}, or the cache of parsed
+ * files, as returned by {@link ConfigFactory#parsedFileCacheStats()}. The
+ * counters only ever go up; {@link ConfigFactory#invalidateCaches()} empties
+ * the load cache but doesn't reset them.
+ *
+ * @param hitCount      lookups that found a cached (or currently loading)
+ *                      value
+ * @param missCount     lookups that had to load or parse
+ * @param totalLoadTime time spent loading or parsing for misses, including
+ *                      loads that failed
+ * @param evictionCount entries dropped to keep the cache bounded (class
+ *                      loaders for the load cache, files for the parsed
+ *                      file cache)
+ */
+public record ConfigCacheStats(long hitCount, long missCount, Duration totalLoadTime, long evictionCount) {
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config;
+
+import java.util.Set;
+
+/**
+ * The differences between two configs, as returned by {@link Config#diff}.
+ * Each set contains <em>path expressions</em> of leaf values, the same paths
+ * that {@link Config#entrySet()} would return; parse them with
+ * {@link ConfigUtil#splitPath}. A value set to null counts as missing, as it
+ * does in {@code entrySet()}.
+ *
+ * @param added   paths that only have a value in the other config
+ * @param removed paths that only have a value in this config
+ * @param changed paths that have a value in both configs, but not an equal one
+ */
+public record ConfigDiff(Set<String> added, Set<String> removed, Set<String> changed) {
+
+    public ConfigDiff {
+        added = Set.copyOf(added);
+        removed = Set.copyOf(removed);
+        changed = Set.copyOf(changed);
+    }
+
+    /**
+     * Returns true if the two configs had the same values at the same paths.
+     *
+     * @return true if nothing was added, removed or changed
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+}
@@ -11,10 +11,14 @@ import java.io.Reader;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 /**
  * Contains static methods for creating {@link Config} instances.
@@ -242,6 +246,67 @@ public final class ConfigFactory {
         return ConfigImpl.computeCachedConfig(loader, "load", () -> load(loader, defaultApplication(withLoader)));
     }
 
+    /**
+     * Like {@link #load()}, but returns right away and loads on other
+     * threads. The overrides, the application config and the reference config
+     * are each loaded on their own virtual thread, so the file, classpath and
+     * URL reads for them overlap, and they're merged and resolved once all
+     * three are ready. Use this to overlap loading the config with other
+     * startup work.
+     *
+     * <p>
+     * This shares its cache with {@link #load()}, so the result is the same
+     * object {@code load()} returns, and a completed future is returned if
+     * the config was already loaded. The context class loader and any
+     * {@link SystemOverride} in effect are those of the calling thread.
+     *
+     * @return a future completed with the configuration for an application,
+     * or with the {@link ConfigException} loading it failed with
+     */
+    public static CompletableFuture<Config> loadAsync() {
+        return loadAsync(checkedContextClassLoader("loadAsync"));
+    }
+
+    /**
+     * Like {@link #loadAsync()} but allows specifying a class loader other
+     * than the thread's current context class loader.
+     *
+     * @param loader class loader for finding resources
+     * @return a future completed with the configuration for an application,
+     * or with the {@link ConfigException} loading it failed with
+     */
+    public static CompletableFuture<Config> loadAsync(final ClassLoader loader) {
+        Config cached = ConfigImpl.cachedConfigIfPresent(loader, "load");
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached);
+
+        final ConfigParseOptions withLoader = ConfigParseOptions.defaults().setClassLoader(loader);
+        Supplier<Config> loadAll = () -> ConfigImpl.computeCachedConfig(loader, "load", () -> {
+            CompletableFuture<Config> overrides = loadAsyncPart(() -> defaultOverrides(loader));
+            CompletableFuture<Config> application = loadAsyncPart(() -> defaultApplication(withLoader));
+            CompletableFuture<Config> reference = loadAsyncPart(() -> ConfigImpl.defaultReferenceUnresolved(loader));
+            return join(overrides).withFallback(join(application)).withFallback(join(reference))
+                    .resolve(ConfigResolveOptions.defaults());
+        });
+        return loadAsyncPart(loadAll);
+    }
+
+    private static CompletableFuture<Config> loadAsyncPart(Supplier<Config> part) {
+        return CompletableFuture.supplyAsync(SystemOverride.inheriting(part),
+                task -> Thread.ofVirtual().name("config-load").start(task));
+    }
+
+    // waits for the part, throwing what it failed with as is
+    private static Config join(CompletableFuture<Config> part) {
+        try {
+            return part.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
     /**
      * Like {@link #load()} but allows specifying a class loader other than the
      * thread's current context class loader and also specify parse options.
@@ -520,6 +585,70 @@ public final class ConfigFactory {
         ConfigImpl.reloadSystemPropertiesConfig();
         ConfigImpl.reloadEnvVariablesConfig();
         ConfigImpl.reloadEnvVariablesOverridesConfig();
+        ConfigImpl.invalidateHttpCache();
+        ConfigImpl.reloadParsedFileCacheConfig();
+    }
+
+    /**
+     * Gets counters for the cache used by {@link #load()},
+     * {@link #defaultReference()} and related methods. The cache keeps the
+     * configs of each class loader separately, loads each of them at most
+     * once even when many threads ask at the same time, and holds a bounded
+     * number of class loaders, which it does not keep from being garbage
+     * collected.
+     *
+     * @return the current cache counters
+     */
+    public static ConfigCacheStats cacheStats() {
+        return ConfigImpl.cacheStats();
+    }
+
+    /**
+     * Loads a config with the given loader and keeps it up to date as the
+     * files it was loaded from change; see {@link ConfigWatcher} for the
+     * details. The loader is called once before this method returns, and
+     * again after each change, on the watcher's thread. For example, {@code
+     * ConfigFactory.watch(ConfigFactory::load)} watches the application's
+     * usual config.
+     *
+     * @param loader   loads the config, for example
+     *                 {@code ConfigFactory::load}
+     * @param debounce how long to wait after a change for any further
+     *                 changes before reloading
+     * @return a watcher, which should be closed when no longer needed
+     * @throws ConfigException whatever the first call to the loader throws
+     */
+    public static ConfigWatcher watch(Supplier<Config> loader, Duration debounce) {
+        return ConfigImpl.newWatcher(loader, debounce);
+    }
+
+    /**
+     * Like {@link #watch(Supplier, Duration)}, waiting 50 milliseconds for
+     * further changes before reloading.
+     *
+     * @param loader loads the config, for example
+     *               {@code ConfigFactory::load}
+     * @return a watcher, which should be closed when no longer needed
+     * @throws ConfigException whatever the first call to the loader throws
+     */
+    public static ConfigWatcher watch(Supplier<Config> loader) {
+        return watch(loader, Duration.ofMillis(50));
+    }
+
+    /**
+     * Gets counters for the cache of parsed files and classpath resources,
+     * which is off unless the system property
+     * {@code config.parsed_file_cache} is set to the number of files to keep.
+     * When on, a file or resource that hasn't changed since it was last parsed
+     * (same path, modification time and size) is not read again; files that
+     * contain includes are not cached. The counters are all zero while the
+     * cache is off. The property is read the first time the cache is needed;
+     * call {@link #invalidateCaches()} after changing it.
+     *
+     * @return the current cache counters
+     */
+    public static ConfigCacheStats parsedFileCacheStats() {
+        return ConfigImpl.parsedFileCacheStats();
     }
 
     /**
@@ -806,6 +935,50 @@ public final class ConfigFactory {
         return parseFileAnySyntax(fileBasename, ConfigParseOptions.defaults());
     }
 
+    /**
+     * Writes a resolved config to a binary snapshot file which can later be
+     * opened with {@link #parseSnapshot(File)}. The snapshot keeps values
+     * only; origins, comments and formatting are not written, so error
+     * messages about a config read back from a snapshot will point at the
+     * snapshot file rather than at the original sources.
+     *
+     * @param config the config to write, which must be resolved
+     * @param file   the file to write, replacing it if it exists
+     * @throws ConfigException.NotResolved if the config is not resolved
+     * @throws ConfigException.IO          if the file can't be written
+     */
+    public static void writeSnapshot(Config config, File file) {
+        ConfigImpl.writeSnapshot(config, file);
+    }
+
+    /**
+     * Opens a snapshot file written by {@link #writeSnapshot(Config, File)}.
+     * The file is memory-mapped rather than read onto the heap: path lookups
+     * search the mapped bytes directly and values are only decoded when they
+     * are first accessed, so opening a very large snapshot is cheap and
+     * processes on the same host share the file through the page cache.
+     *
+     * <p>
+     * The returned {@code Config} is already resolved and behaves like any
+     * other {@code Config}. Operations which produce a modified config copy
+     * the objects they change into ordinary in-memory objects, decoding every
+     * entry of each: {@link Config#withValue} and {@link Config#withoutPath}
+     * copy each object level along the path, and {@link Config#withFallback}
+     * copies each object that both configs have at the same path. Objects
+     * nested inside the copied entries stay in the snapshot until something
+     * copies them in turn, but changing one setting of a huge object still
+     * decodes all of that object's entries. The snapshot file should not be
+     * modified while it's open.
+     *
+     * @param file the snapshot file
+     * @return the config stored in the snapshot
+     * @throws ConfigException.IO    if the file can't be read
+     * @throws ConfigException.Parse if the file isn't a snapshot
+     */
+    public static Config parseSnapshot(File file) {
+        return ConfigImpl.parseSnapshot(file);
+    }
+
     /**
      * Parses all resources on the classpath with the given name and merges them
      * into a single <code>Config</code>.
@@ -1166,6 +1339,31 @@ public final class ConfigFactory {
         return parseMap(values, null);
     }
 
+    /**
+     * Creates a {@link ConfigBuilder} for assembling a {@code Config} from
+     * path-value pairs in code. This is cheaper than chaining
+     * {@link Config#withValue} or building a map for
+     * {@link #parseMap(Map, String)} when there are many values.
+     *
+     * @param originDescription description of where the values come from,
+     *                          like "settings database" (origin description
+     *                          is used in error messages)
+     * @return a new, empty builder
+     */
+    public static ConfigBuilder builder(String originDescription) {
+        return ConfigImpl.newBuilder(originDescription);
+    }
+
+    /**
+     * See the other overload of {@link #builder(String)} for details, this
+     * one just uses a default origin description.
+     *
+     * @return a new, empty builder
+     */
+    public static ConfigBuilder builder() {
+        return builder(null);
+    }
+
     private static ConfigLoadingStrategy getConfigLoadingStrategy() {
         String className = SystemOverride.getProperties().getProperty(STRATEGY_PROPERTY_NAME);
 
@@ -7,6 +7,9 @@ package com.typesafe.config;
 import com.typesafe.config.impl.ConfigImplUtil;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -30,14 +33,21 @@ public final class ConfigParseOptions {
     final boolean allowMissing;
     final ConfigIncluder includer;
     final ClassLoader classLoader;
+    final boolean parallelResources;
+    final boolean preserveKeyOrder;
+    final List<String> pathFilter;
 
     private ConfigParseOptions(ConfigSyntax syntax, String originDescription, boolean allowMissing,
-                               ConfigIncluder includer, ClassLoader classLoader) {
+                               ConfigIncluder includer, ClassLoader classLoader, boolean parallelResources,
+                               boolean preserveKeyOrder, List<String> pathFilter) {
         this.syntax = syntax;
         this.originDescription = originDescription;
         this.allowMissing = allowMissing;
         this.includer = includer;
         this.classLoader = classLoader;
+        this.parallelResources = parallelResources;
+        this.preserveKeyOrder = preserveKeyOrder;
+        this.pathFilter = pathFilter;
     }
 
     /**
@@ -48,7 +58,7 @@ public final class ConfigParseOptions {
      * @return the default parse options
      */
     public static ConfigParseOptions defaults() {
-        return new ConfigParseOptions(null, null, true, null, null);
+        return new ConfigParseOptions(null, null, true, null, null, false, false, null);
     }
 
     /**
@@ -83,7 +93,7 @@ public final class ConfigParseOptions {
             return this;
         else
             return new ConfigParseOptions(syntax, this.originDescription, this.allowMissing,
-                    this.includer, this.classLoader);
+                    this.includer, this.classLoader, this.parallelResources, this.preserveKeyOrder, this.pathFilter);
     }
 
     /**
@@ -110,7 +120,7 @@ public final class ConfigParseOptions {
         if (Objects.equals(this.originDescription, originDescription))
             return this;
         else return new ConfigParseOptions(this.syntax, originDescription, this.allowMissing,
-                this.includer, this.classLoader);
+                this.includer, this.classLoader, this.parallelResources, this.preserveKeyOrder, this.pathFilter);
     }
 
     /**
@@ -146,7 +156,7 @@ public final class ConfigParseOptions {
             return this;
         else
             return new ConfigParseOptions(this.syntax, this.originDescription, allowMissing,
-                    this.includer, this.classLoader);
+                    this.includer, this.classLoader, this.parallelResources, this.preserveKeyOrder, this.pathFilter);
     }
 
     /**
@@ -209,7 +219,7 @@ public final class ConfigParseOptions {
             return this;
         else
             return new ConfigParseOptions(this.syntax, this.originDescription, this.allowMissing,
-                    includer, this.classLoader);
+                    includer, this.classLoader, this.parallelResources, this.preserveKeyOrder, this.pathFilter);
     }
 
     /**
@@ -239,6 +249,110 @@ public final class ConfigParseOptions {
             return this;
         else
             return new ConfigParseOptions(this.syntax, this.originDescription, this.allowMissing,
-                    this.includer, loader);
+                    this.includer, loader, this.parallelResources, this.preserveKeyOrder, this.pathFilter);
+    }
+
+    /**
+     * Gets the current "parallel resources" flag.
+     *
+     * @return whether classpath resources are parsed in parallel
+     */
+    public boolean getParallelResources() {
+        return parallelResources;
+    }
+
+    /**
+     * Set to true to parse all the classpath resources with the same name
+     * (for example the {@code reference.conf} in every jar) concurrently on
+     * virtual threads, instead of one after another. The parsed resources are
+     * still merged in the order the class loader returns them, so the result
+     * is the same either way; this only helps when there are many resources.
+     * The setting also applies to resources included from those resources.
+     *
+     * @param parallelResources true to parse resources in parallel
+     * @return options with the "parallel resources" flag set
+     */
+    public ConfigParseOptions setParallelResources(boolean parallelResources) {
+        if (this.parallelResources == parallelResources)
+            return this;
+        else
+            return new ConfigParseOptions(this.syntax, this.originDescription, this.allowMissing,
+                    this.includer, this.classLoader, parallelResources, this.preserveKeyOrder, this.pathFilter);
+    }
+
+    /**
+     * Gets the current "preserve key order" flag.
+     *
+     * @return whether parsed objects remember the order of their keys
+     */
+    public boolean getPreserveKeyOrder() {
+        return preserveKeyOrder;
+    }
+
+    /**
+     * Set to true to have parsed objects remember the order their keys
+     * appear in, so that they can be rendered in that order with
+     * {@link ConfigRenderOptions.KeyOrder#SOURCE}. The order is kept through
+     * merging, resolving and {@code withValue}; it takes a little memory per
+     * object, which is why it's off by default. It doesn't affect equality or
+     * the order of {@link ConfigObject#keySet()}.
+     *
+     * @param preserveKeyOrder true to remember the order of keys
+     * @return options with the "preserve key order" flag set
+     * @since 1.5.0
+     */
+    public ConfigParseOptions setPreserveKeyOrder(boolean preserveKeyOrder) {
+        if (this.preserveKeyOrder == preserveKeyOrder)
+            return this;
+        else
+            return new ConfigParseOptions(this.syntax, this.originDescription, this.allowMissing,
+                    this.includer, this.classLoader, this.parallelResources, preserveKeyOrder, this.pathFilter);
+    }
+
+    /**
+     * Gets the paths set by {@link #setPathFilter(Collection)}.
+     *
+     * @return the paths settings are kept under, or null to keep everything
+     * @since 1.5.0
+     */
+    public List<String> getPathFilter() {
+        return pathFilter;
+    }
+
+    /**
+     * Set to a list of paths, such as {@code "akka.actor"}, to keep only the
+     * settings at or under those paths, along with the objects containing
+     * them. Everything else is still read and checked for syntax errors, but
+     * no values are built for it, and includes at paths outside the filter
+     * aren't loaded at all. Parsing a big file for the few settings one
+     * component uses then costs less time and, more so, less memory.
+     *
+     * <p>
+     * The settings left out are simply missing from the parsed config, so a
+     * substitution that refers to one of them won't resolve, unless the
+     * path it refers to is also in the filter. Set to null (the default) to
+     * keep everything.
+     *
+     * @param paths path expressions to keep, or null for no filter
+     * @return options with the path filter set
+     * @throws ConfigException.BadPath if a path is not a valid path expression
+     * @since 1.5.0
+     */
+    public ConfigParseOptions setPathFilter(@Nullable Collection<String> paths) {
+        List<String> filter = null;
+        if (paths != null) {
+            filter = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                // check the syntax now rather than when parsing
+                ConfigImplUtil.splitPath(path);
+                filter.add(path);
+            }
+            filter = List.copyOf(filter);
+        }
+        if (Objects.equals(this.pathFilter, filter))
+            return this;
+        else
+            return new ConfigParseOptions(this.syntax, this.originDescription, this.allowMissing,
+                    this.includer, this.classLoader, this.parallelResources, this.preserveKeyOrder, filter);
     }
 }
@@ -23,15 +23,18 @@ public final class ConfigRenderOptions {
     private final boolean json;
     private final boolean showEnvVariableValues;
     private final IndentMode indentMode;
+    private final KeyOrder keyOrder;
 
     private ConfigRenderOptions(boolean originComments, boolean comments, boolean formatted,
-                                boolean json, boolean showEnvVariableValues, IndentMode indentMode) {
+                                boolean json, boolean showEnvVariableValues, IndentMode indentMode,
+                                KeyOrder keyOrder) {
         this.originComments = originComments;
         this.comments = comments;
         this.formatted = formatted;
         this.json = json;
         this.showEnvVariableValues = showEnvVariableValues;
         this.indentMode = indentMode;
+        this.keyOrder = keyOrder;
     }
 
     /**
@@ -42,7 +45,7 @@ public final class ConfigRenderOptions {
      * @return the default render options
      */
     public static ConfigRenderOptions defaults() {
-        return new ConfigRenderOptions(true, true, true, true, true, IndentMode.TWO_SPACES);
+        return new ConfigRenderOptions(true, true, true, true, true, IndentMode.TWO_SPACES, KeyOrder.SORTED);
     }
 
     /**
@@ -52,7 +55,7 @@ public final class ConfigRenderOptions {
      * @return the concise render options
      */
     public static ConfigRenderOptions concise() {
-        return new ConfigRenderOptions(false, false, false, true, true, IndentMode.TWO_SPACES);
+        return new ConfigRenderOptions(false, false, false, true, true, IndentMode.TWO_SPACES, KeyOrder.SORTED);
     }
 
     /**
@@ -77,7 +80,7 @@ public final class ConfigRenderOptions {
         if (value == comments)
             return this;
         else
-            return new ConfigRenderOptions(originComments, value, formatted, json, showEnvVariableValues, indentMode);
+            return new ConfigRenderOptions(originComments, value, formatted, json, showEnvVariableValues, indentMode, keyOrder);
     }
 
     /**
@@ -109,7 +112,7 @@ public final class ConfigRenderOptions {
         if (value == originComments)
             return this;
         else
-            return new ConfigRenderOptions(value, comments, formatted, json, showEnvVariableValues, indentMode);
+            return new ConfigRenderOptions(value, comments, formatted, json, showEnvVariableValues, indentMode, keyOrder);
     }
 
     /**
@@ -133,7 +136,7 @@ public final class ConfigRenderOptions {
         if (value == formatted)
             return this;
         else
-            return new ConfigRenderOptions(originComments, comments, value, json, showEnvVariableValues, indentMode);
+            return new ConfigRenderOptions(originComments, comments, value, json, showEnvVariableValues, indentMode, keyOrder);
     }
 
     /**
@@ -157,7 +160,7 @@ public final class ConfigRenderOptions {
         if (value == showEnvVariableValues)
             return this;
         else
-            return new ConfigRenderOptions(originComments, comments, formatted, json, value, indentMode);
+            return new ConfigRenderOptions(originComments, comments, formatted, json, value, indentMode, keyOrder);
     }
 
     /**
@@ -184,7 +187,7 @@ public final class ConfigRenderOptions {
         if (value == json) {
             return this;
         } else {
-            return new ConfigRenderOptions(originComments, comments, formatted, value, showEnvVariableValues, indentMode);
+            return new ConfigRenderOptions(originComments, comments, formatted, value, showEnvVariableValues, indentMode, keyOrder);
         }
     }
 
@@ -207,7 +210,34 @@ public final class ConfigRenderOptions {
         if (indentMode == this.indentMode) {
             return this;
         } else {
-            return new ConfigRenderOptions(originComments, comments, formatted, json, showEnvVariableValues, indentMode);
+            return new ConfigRenderOptions(originComments, comments, formatted, json, showEnvVariableValues, indentMode, keyOrder);
+        }
+    }
+
+    /**
+     * Returns the order that object keys are rendered in.
+     *
+     * @return the current key order
+     */
+    public KeyOrder getKeyOrder() {
+        return keyOrder;
+    }
+
+    /**
+     * Returns options with the specified key order. The default is
+     * {@link KeyOrder#SORTED}.
+     *
+     * @param keyOrder the order to render object keys in
+     * @return options with the specified key order
+     * @since 1.5.0
+     */
+    public ConfigRenderOptions setKeyOrder(KeyOrder keyOrder) {
+        if (keyOrder == null)
+            throw new NullPointerException("null key order passed to setKeyOrder");
+        if (keyOrder == this.keyOrder) {
+            return this;
+        } else {
+            return new ConfigRenderOptions(originComments, comments, formatted, json, showEnvVariableValues, indentMode, keyOrder);
         }
     }
 
@@ -224,6 +254,8 @@ public final class ConfigRenderOptions {
             sb.append("json,");
         if (showEnvVariableValues)
             sb.append("showEnvVariableValues,");
+        if (keyOrder != KeyOrder.SORTED)
+            sb.append("keyOrder=").append(keyOrder).append(',');
         if (sb.charAt(sb.length() - 1) == ',')
             sb.setLength(sb.length() - 1);
         sb.append(")");
@@ -247,4 +279,32 @@ public final class ConfigRenderOptions {
             return indentString;
         }
     }
+
+    /**
+     * The order that the keys of an object are rendered in.
+     *
+     * @since 1.5.0
+     */
+    public enum KeyOrder {
+        /**
+         * Keys that are numbers first, in numeric order, then the other keys
+         * in alphabetical order. This is the default, and the same config
+         * always renders the same way.
+         */
+        SORTED,
+        /**
+         * The order the keys first appeared in the parsed files, for objects
+         * parsed with {@link ConfigParseOptions#setPreserveKeyOrder(boolean)};
+         * keys added afterwards come after the parsed ones. Objects that
+         * didn't keep their order, such as ones from system properties,
+         * render {@link #SORTED}.
+         */
+        SOURCE,
+        /**
+         * Whatever order the keys are stored in, which is the fastest since
+         * there's no sorting, but may differ between otherwise equal
+         * configs.
+         */
+        UNORDERED
+    }
 }
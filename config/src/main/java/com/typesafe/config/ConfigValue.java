@@ -3,6 +3,10 @@
  */
 package com.typesafe.config;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
 /**
  * An immutable value, following the <a href="http://json.org">JSON</a> type
  * schema.
@@ -84,6 +88,39 @@ public interface ConfigValue extends ConfigMergeable {
      */
     String render(ConfigRenderOptions options);
 
+    /**
+     * Renders the config value to an {@link Appendable} such as a
+     * {@link java.io.Writer}, writing the same text as
+     * {@link #render(ConfigRenderOptions)} would return. The output is written
+     * as it's produced rather than built up in memory first, which matters
+     * when rendering a large config to a file or socket. The appendable is
+     * neither flushed nor closed.
+     *
+     * @param out where to write the rendering
+     * @param options the rendering options
+     * @throws IOException if the appendable throws it
+     * @since 1.5.0
+     */
+    void render(Appendable out, ConfigRenderOptions options) throws IOException;
+
+    /**
+     * Renders the config value to an {@link OutputStream}, encoding the text of
+     * {@link #render(ConfigRenderOptions)} with the given charset as it's
+     * produced. The stream is flushed but not closed.
+     *
+     * <p>
+     * Rendering concise JSON (see {@link ConfigRenderOptions#concise()}) in
+     * UTF-8 takes a faster path that skips the formatting logic, which is
+     * worth using when the same config is served as JSON over and over.
+     *
+     * @param out where to write the rendering
+     * @param charset how to encode the rendering, usually UTF-8
+     * @param options the rendering options
+     * @throws IOException if writing to the stream fails
+     * @since 1.5.0
+     */
+    void render(OutputStream out, Charset charset, ConfigRenderOptions options) throws IOException;
+
     @Override
     ConfigValue withFallback(ConfigMergeable other);
 
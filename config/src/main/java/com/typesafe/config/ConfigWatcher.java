@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a {@link Config} up to date with the files it was loaded from. Get
+ * one from {@link ConfigFactory#watch(java.util.function.Supplier)}.
+ *
+ * <p>
+ * The watcher runs the loader it was given once up front, noting every file
+ * the load looked at: files that were parsed, files that were included, and
+ * files that were looked for but missing (such as an
+ * {@code application.json} next to an {@code application.conf}), as well as
+ * classpath resources that live in a directory rather than a jar. It then
+ * watches those files with a {@link java.nio.file.WatchService}. When any of
+ * them is created, modified or deleted, it waits until no more changes have
+ * arrived for the debounce interval, runs the loader again, and if the
+ * result differs from the {@link #current()} config, replaces it and passes
+ * it to every subscriber.
+ *
+ * <p>
+ * On a reload, only the files that changed are parsed again; the previous
+ * parse of the others is reused. Files that contain includes are always
+ * parsed again, which is cheap since what they include is reused. The
+ * loader should return a resolved config (as {@link ConfigFactory#load()}
+ * does), since merging and resolving are redone by running the loader.
+ * Caches such as the one behind {@link ConfigFactory#load()} are bypassed
+ * while the watcher runs the loader.
+ *
+ * <p>
+ * Resources inside jars and configs fetched from URLs are not watched. If
+ * a reload fails, for example because a file is half-written or has a syntax
+ * error, the current config is kept, the failure goes to the
+ * {@link #onFailure failure listeners}, and the next change triggers another
+ * attempt.
+ *
+ * <p>
+ * Listeners are called on the watcher's own thread, one change at a time.
+ *
+ * <p>
+ * <em>Do not implement interface {@code ConfigWatcher}</em>; it should only be
+ * implemented by the config library.
+ */
+public sealed interface ConfigWatcher extends AutoCloseable permits com.typesafe.config.impl.SimpleConfigWatcher {
+    /**
+     * The config from the most recent successful load.
+     *
+     * @return the current config
+     */
+    Config current();
+
+    /**
+     * The files the most recent load looked at, which are the files being
+     * watched. Includes files that didn't exist.
+     *
+     * @return absolute paths of the watched files
+     */
+    Set<Path> watchedFiles();
+
+    /**
+     * Adds a listener that gets each new config after it replaces
+     * {@link #current()}.
+     *
+     * @param listener called with the new config
+     */
+    void subscribe(Consumer<? super Config> listener);
+
+    /**
+     * Adds a listener that gets the exception whenever a reload fails.
+     *
+     * @param listener called with what the loader threw
+     */
+    void onFailure(Consumer<? super RuntimeException> listener);
+
+    /**
+     * Stops watching. No listeners are called after this returns, except
+     * for one that is already running.
+     */
+    @Override
+    void close();
+}
@@ -1,14 +1,26 @@
 package com.typesafe.config;
 
+import com.typesafe.config.impl.ConfigImpl;
+
 import java.io.PrintStream;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 public class SystemOverride {
 
     private static final SystemImplementation real = new LiveSystemImplementation();
-    private static final ThreadLocal<SystemImplementation> current = ThreadLocal.withInitial(() -> real);
+    // only threads inside withSystemOverride have a value here; while no
+    // thread is, the thread-local isn't looked at, so threads that never
+    // override (such as many virtual threads parsing configs) don't each
+    // get an entry for it
+    private static final ThreadLocal<SystemImplementation> overrides = new ThreadLocal<>();
+    private static final AtomicInteger activeOverrides = new AtomicInteger();
+
+    static {
+        ConfigImpl.registerSystemOverride(() -> current() != real, SystemOverride::inheriting);
+    }
 
     /**
      * Runs the specified synchronous (blocking) operation
@@ -34,32 +46,60 @@ public class SystemOverride {
                 systemProperties,
                 environmentVariables,
                 errorStream);
+        return runWith(overridden, configurationAccessOperation);
+    }
+
+    // wraps the operation so that it sees the same system as the calling
+    // thread does now, even when it runs on another thread; impl reaches this
+    // through ConfigImpl.inheritingSystemOverride
+    static <T> Supplier<T> inheriting(Supplier<T> operation) {
+        SystemImplementation caller = current();
+        if (caller == real)
+            return operation;
+        else
+            return () -> runWith(caller, operation);
+    }
+
+    private static <T> T runWith(SystemImplementation system, Supplier<T> operation) {
+        SystemImplementation saved = overrides.get();
+        activeOverrides.incrementAndGet();
+        overrides.set(system);
         try {
-            current.set(overridden);
-            return configurationAccessOperation.get();
+            return operation.get();
         } finally {
-            current.set(real);
+            if (saved == null)
+                overrides.remove();
+            else
+                overrides.set(saved);
+            activeOverrides.decrementAndGet();
         }
     }
 
+    private static SystemImplementation current() {
+        if (activeOverrides.get() == 0)
+            return real;
+        SystemImplementation overridden = overrides.get();
+        return overridden != null ? overridden : real;
+    }
+
     public static Properties getProperties() {
-        return current.get().getProperties();
+        return current().getProperties();
     }
 
     public static String getProperty(String propertyKey) {
-        return current.get().getProperty(propertyKey);
+        return current().getProperty(propertyKey);
     }
 
     public static String getenv(String environmentVariableName) {
-        return current.get().getenv(environmentVariableName);
+        return current().getenv(environmentVariableName);
     }
 
     public static Map<String, String> getenv() {
-        return current.get().getenv();
+        return current().getenv();
     }
 
     public static PrintStream err() {
-        return current.get().err();
+        return current().err();
     }
 
     private sealed interface SystemImplementation {
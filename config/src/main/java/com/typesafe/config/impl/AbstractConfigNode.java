@@ -20,6 +20,15 @@ abstract class AbstractConfigNode implements ConfigNode {
         return origText.toString();
     }
 
+    // the length of render(), without building the string
+    int renderLength() {
+        int length = 0;
+        for (Token t : tokens()) {
+            length += t.tokenText().length();
+        }
+        return length;
+    }
+
     @Override
     final public boolean equals(Object other) {
         return other instanceof AbstractConfigNode && render().equals(((AbstractConfigNode) other).render());
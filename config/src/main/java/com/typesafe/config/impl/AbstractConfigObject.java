@@ -182,7 +182,7 @@ abstract class AbstractConfigObject extends AbstractConfigValue implements Confi
     public abstract AbstractConfigValue get(Object key);
 
     @Override
-    protected abstract void render(StringBuilder sb, int indent, boolean atRoot, ConfigRenderOptions options);
+    protected abstract void render(RenderSink sb, int indent, boolean atRoot, ConfigRenderOptions options);
 
     @Override
     public void clear() {
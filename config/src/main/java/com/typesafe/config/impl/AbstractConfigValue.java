@@ -5,7 +5,13 @@ package com.typesafe.config.impl;
 
 import com.typesafe.config.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Serial;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -59,7 +65,7 @@ abstract class AbstractConfigValue implements ConfigValue, MergeableValue {
         return false;
     }
 
-    protected static void indent(StringBuilder sb, int indent, ConfigRenderOptions options) {
+    protected static void indent(RenderSink sb, int indent, ConfigRenderOptions options) {
         if (options.getFormatted()) {
             sb.append(options.getIndentMode().indentString().repeat(indent));
         }
@@ -267,19 +273,16 @@ abstract class AbstractConfigValue implements ConfigValue, MergeableValue {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        render(sb, 0, true /* atRoot */, null /* atKey */, ConfigRenderOptions.concise());
+        render(new RenderSink(sb), 0, true /* atRoot */, null /* atKey */, ConfigRenderOptions.concise());
         return getClass().getSimpleName() + "(" + sb + ")";
     }
 
-    protected void render(StringBuilder sb, int indent, boolean atRoot, String atKey, ConfigRenderOptions options) {
+    protected void render(RenderSink sb, int indent, boolean atRoot, String atKey, ConfigRenderOptions options) {
         if (atKey != null) {
-            String renderedKey;
             if (options.getJson())
-                renderedKey = ConfigImplUtil.renderJsonString(atKey);
+                sb.appendJsonString(atKey);
             else
-                renderedKey = ConfigImplUtil.renderStringUnquotedIfPossible(atKey);
-
-            sb.append(renderedKey);
+                sb.appendStringUnquotedIfPossible(atKey);
 
             if (options.getJson()) {
                 if (options.getFormatted())
@@ -299,7 +302,7 @@ abstract class AbstractConfigValue implements ConfigValue, MergeableValue {
         render(sb, indent, atRoot, options);
     }
 
-    protected void render(StringBuilder sb, int indent, boolean atRoot, ConfigRenderOptions options) {
+    protected void render(RenderSink sb, int indent, boolean atRoot, ConfigRenderOptions options) {
         if (hideEnvVariableValue(options)) {
             sb.append("<env variable>");
         } else {
@@ -312,7 +315,7 @@ abstract class AbstractConfigValue implements ConfigValue, MergeableValue {
         return !options.getShowEnvVariableValues() && origin.originType() == OriginType.ENV_VARIABLE;
     }
 
-    protected void appendHiddenEnvVariableValue(StringBuilder sb) {
+    protected void appendHiddenEnvVariableValue(RenderSink sb) {
         sb.append("\"<env variable>\"");
     }
 
@@ -324,10 +327,31 @@ abstract class AbstractConfigValue implements ConfigValue, MergeableValue {
     @Override
     public final String render(ConfigRenderOptions options) {
         StringBuilder sb = new StringBuilder();
-        render(sb, 0, true, null, options);
+        render(new RenderSink(sb), 0, true, null, options);
         return sb.toString();
     }
 
+    @Override
+    public final void render(Appendable out, ConfigRenderOptions options) throws IOException {
+        try {
+            render(new RenderSink(out), 0, true, null, options);
+        } catch (RenderSink.Failed e) {
+            throw e.rethrow();
+        }
+    }
+
+    @Override
+    public final void render(OutputStream out, Charset charset, ConfigRenderOptions options) throws IOException {
+        if (charset.equals(StandardCharsets.UTF_8) && CompactJsonRenderer.handles(options)) {
+            CompactJsonRenderer.render(this, options, out);
+            return;
+        }
+        Writer writer = new OutputStreamWriter(out, charset);
+        render(writer, options);
+        // flush what the encoder buffered, but leave the stream open
+        writer.flush();
+    }
+
     // toString() is a debugging-oriented string but this is defined
     // to create a string that would parse back to the value in JSON.
     // It only works for primitive values (that would be a single token)
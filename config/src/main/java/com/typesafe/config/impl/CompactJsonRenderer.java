@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config.impl;
+
+import com.typesafe.config.ConfigRenderOptions;
+import com.typesafe.config.ConfigValue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renders values as compact JSON (the rendering of
+ * {@link ConfigRenderOptions#concise()}) straight to UTF-8 bytes. With no
+ * comments or whitespace to worry about, it can skip the general rendering
+ * code; it writes each object's keys from the escaped, encoded form that the
+ * object caches, and escapes and encodes strings in one pass into its own
+ * buffer.
+ *
+ * <p>
+ * Values that aren't resolved are rendered the general way and then
+ * encoded, so the output always matches
+ * {@link AbstractConfigValue#render(ConfigRenderOptions)}.
+ */
+final class CompactJsonRenderer {
+    private static final byte[][] ESCAPES = new byte[128][];
+
+    static {
+        for (int c = 0; c < 0x20; ++c)
+            ESCAPES[c] = String.format("\\u%04x", c).getBytes(StandardCharsets.US_ASCII);
+        ESCAPES['"'] = "\\\"".getBytes(StandardCharsets.US_ASCII);
+        ESCAPES['\\'] = "\\\\".getBytes(StandardCharsets.US_ASCII);
+        ESCAPES['\n'] = "\\n".getBytes(StandardCharsets.US_ASCII);
+        ESCAPES['\b'] = "\\b".getBytes(StandardCharsets.US_ASCII);
+        ESCAPES['\f'] = "\\f".getBytes(StandardCharsets.US_ASCII);
+        ESCAPES['\r'] = "\\r".getBytes(StandardCharsets.US_ASCII);
+        ESCAPES['\t'] = "\\t".getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final byte[] HIDDEN = "<env variable>".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private final ConfigRenderOptions options;
+    private final byte[] buf = new byte[8192];
+    private int pos = 0;
+
+    private CompactJsonRenderer(OutputStream out, ConfigRenderOptions options) {
+        this.out = out;
+        this.options = options;
+    }
+
+    static boolean handles(ConfigRenderOptions options) {
+        return options.getJson() && !options.getFormatted() && !options.getComments()
+                && !options.getOriginComments();
+    }
+
+    static void render(AbstractConfigValue value, ConfigRenderOptions options, OutputStream out)
+            throws IOException {
+        CompactJsonRenderer renderer = new CompactJsonRenderer(out, options);
+        renderer.value(value);
+        renderer.flush();
+    }
+
+    // an if chain rather than a pattern switch, which is slower here
+    private void value(AbstractConfigValue v) throws IOException {
+        if (v instanceof ConfigString s) {
+            if (s.hideEnvVariableValue(options)) {
+                write((byte) '"');
+                write(HIDDEN);
+                write((byte) '"');
+            } else {
+                string(s.unwrapped());
+            }
+        } else if (v instanceof SimpleConfigObject o) {
+            object(o);
+        } else if (v instanceof ConfigNumber || v instanceof ConfigBoolean) {
+            primitive(v);
+        } else if (v instanceof SimpleConfigList l) {
+            list(l);
+        } else if (v instanceof ConfigNull) {
+            ascii("null");
+        } else {
+            general(v, null);
+        }
+    }
+
+    private void object(SimpleConfigObject o) throws IOException {
+        ConfigRenderOptions.KeyOrder order = options.getKeyOrder();
+        String[] keys = o.renderOrder(order);
+        // the encoded keys are only cached in sorted order
+        byte[][] prefixes = order == ConfigRenderOptions.KeyOrder.SORTED ? o.jsonKeyPrefixes() : null;
+        write((byte) '{');
+        for (int i = 0; i < keys.length; ++i) {
+            if (i > 0)
+                write((byte) ',');
+            AbstractConfigValue v = o.get(keys[i]);
+            if (v.resolveStatus() == ResolveStatus.RESOLVED) {
+                if (prefixes != null) {
+                    write(prefixes[i]);
+                } else {
+                    string(keys[i]);
+                    write((byte) ':');
+                }
+                value(v);
+            } else {
+                // an unresolved merge repeats the key for each value, so
+                // let it write the key
+                general(v, keys[i]);
+            }
+        }
+        write((byte) '}');
+    }
+
+    private void list(SimpleConfigList l) throws IOException {
+        write((byte) '[');
+        boolean first = true;
+        for (ConfigValue v : l) {
+            if (first)
+                first = false;
+            else
+                write((byte) ',');
+            value((AbstractConfigValue) v);
+        }
+        write((byte) ']');
+    }
+
+    private void primitive(AbstractConfigValue v) throws IOException {
+        if (v.hideEnvVariableValue(options))
+            write(HIDDEN);
+        else
+            ascii(v.unwrapped().toString());
+    }
+
+    private void general(AbstractConfigValue v, String atKey) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        v.render(new RenderSink(sb), 0, false /* atRoot */, atKey, options);
+        write(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // escapes and encodes like renderJsonString(s) followed by UTF-8
+    private void string(String s) throws IOException {
+        write((byte) '"');
+        int n = s.length();
+        for (int i = 0; i < n; ++i) {
+            char c = s.charAt(i);
+            // enough room for the longest escape or encoding of one char
+            ensure(6);
+            if (c < 0x80) {
+                byte[] escape = ESCAPES[c];
+                if (escape == null) {
+                    buf[pos++] = (byte) c;
+                } else {
+                    System.arraycopy(escape, 0, buf, pos, escape.length);
+                    pos += escape.length;
+                }
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf[pos++] = (byte) (0xf0 | (cp >> 18));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+                } else {
+                    // unpaired, which the UTF-8 encoder replaces too
+                    buf[pos++] = (byte) '?';
+                }
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        write((byte) '"');
+    }
+
+    // numbers and booleans only have ASCII in them
+    private void ascii(String s) throws IOException {
+        int n = s.length();
+        if (n > buf.length) {
+            write(s.getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        ensure(n);
+        for (int i = 0; i < n; ++i)
+            buf[pos++] = (byte) s.charAt(i);
+    }
+
+    private void write(byte b) throws IOException {
+        ensure(1);
+        buf[pos++] = b;
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        if (bytes.length > buf.length) {
+            flushBuffer();
+            out.write(bytes);
+        } else {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+    }
+
+    private void ensure(int n) throws IOException {
+        if (buf.length - pos < n)
+            flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (pos > 0) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    private void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+}
@@ -198,7 +198,7 @@ final class ConfigDelayedMerge extends AbstractConfigValue implements Unmergeabl
     }
 
     // static method also used by ConfigDelayedMergeObject.
-    static void render(List<AbstractConfigValue> stack, StringBuilder sb, int indent, boolean atRoot, String atKey,
+    static void render(List<AbstractConfigValue> stack, RenderSink sb, int indent, boolean atRoot, String atKey,
                        ConfigRenderOptions options) {
         boolean commentMerge = options.getComments();
         if (commentMerge) {
@@ -215,11 +215,19 @@ final class ConfigDelayedMerge extends AbstractConfigValue implements Unmergeabl
         Collections.reverse(reversed);
 
         int i = 0;
+        boolean first = true;
         for (AbstractConfigValue v : reversed) {
+            if (first)
+                first = false;
+            else if (options.getFormatted())
+                sb.append(",\n");
+            else
+                sb.append(",");
+
             if (commentMerge) {
                 indent(sb, indent, options);
                 if (atKey != null) {
-                    sb.append("#     unmerged value ").append(i).append(" for key ").append(ConfigImplUtil.renderJsonString(atKey)).append(" from ");
+                    sb.append("#     unmerged value ").append(i).append(" for key ").appendJsonString(atKey).append(" from ");
                 } else {
                     sb.append("#     unmerged value ").append(i).append(" from ");
                 }
@@ -237,23 +245,16 @@ final class ConfigDelayedMerge extends AbstractConfigValue implements Unmergeabl
             indent(sb, indent, options);
 
             if (atKey != null) {
-                sb.append(ConfigImplUtil.renderJsonString(atKey));
+                sb.appendJsonString(atKey);
                 if (options.getFormatted())
                     sb.append(" : ");
                 else
                     sb.append(":");
             }
             v.render(sb, indent, atRoot, options);
-            sb.append(",");
-            if (options.getFormatted())
-                sb.append('\n');
-        }
-        // chop comma or newline
-        sb.setLength(sb.length() - 1);
-        if (options.getFormatted()) {
-            sb.setLength(sb.length() - 1); // also chop comma
-            sb.append("\n"); // put a newline back
         }
+        if (options.getFormatted())
+            sb.append('\n');
         if (commentMerge) {
             indent(sb, indent, options);
             sb.append("# ) end of unresolved merge\n");
@@ -369,12 +370,12 @@ final class ConfigDelayedMerge extends AbstractConfigValue implements Unmergeabl
     }
 
     @Override
-    protected void render(StringBuilder sb, int indent, boolean atRoot, String atKey, ConfigRenderOptions options) {
+    protected void render(RenderSink sb, int indent, boolean atRoot, String atKey, ConfigRenderOptions options) {
         render(stack, sb, indent, atRoot, atKey, options);
     }
 
     @Override
-    protected void render(StringBuilder sb, int indent, boolean atRoot, ConfigRenderOptions options) {
+    protected void render(RenderSink sb, int indent, boolean atRoot, ConfigRenderOptions options) {
         render(sb, indent, atRoot, null, options);
     }
 }
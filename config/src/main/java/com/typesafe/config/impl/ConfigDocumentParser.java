@@ -20,6 +20,15 @@ final class ConfigDocumentParser {
         return context.parseSingleValue();
     }
 
+    // Parses text that was cut out of a document at the start of a field on the given line; returns
+    // null unless the text is exactly one field with nothing before or after it
+    static ConfigNodeField parseField(Iterator<Token> tokens, ConfigOrigin origin, ConfigParseOptions options, int firstLine) {
+        ConfigSyntax syntax = options.getSyntax() == null ? ConfigSyntax.CONF : options.getSyntax();
+        ParseContext context = new ParseContext(syntax, origin, tokens);
+        context.lineNumber = firstLine;
+        return context.parseSingleField();
+    }
+
     static private final class ParseContext {
         final private Stack<Token> buffer;
         final private Iterator<Token> tokens;
@@ -326,8 +335,7 @@ final class ConfigDocumentParser {
                         putBack(new TokenWithOrigin.UnquotedText(ut.origin(), r));
                     }
 
-                    children.add(new ConfigNodeSingleToken(ut));
-                    //children.add(new ConfigNodeSingleToken(tOpen));
+                    children.add(new ConfigNodeSingleToken(new TokenWithOrigin.UnquotedText(ut.origin(), "required(")));
 
                     ConfigNodeInclude res = parseIncludeResource(children, true);
 
@@ -335,11 +343,13 @@ final class ConfigDocumentParser {
 
                     if (t instanceof TokenWithOrigin.UnquotedText unt && unt.value().equals(")")) {
                         // OK, close paren
+                        children.add(new ConfigNodeSingleToken(t));
                     } else {
                         throw parseError(ExpectingClosingParenthesisError + t);
                     }
 
-                    return res;
+                    // keep the space and paren after the resource, so the node renders as it was written
+                    return new ConfigNodeInclude(children, res.kind(), true);
                 } else {
                     putBack(t);
                     return parseIncludeResource(children, false);
@@ -378,7 +388,8 @@ final class ConfigDocumentParser {
                     putBack(new TokenWithOrigin.UnquotedText(ut.origin(), r));
                 }
 
-                children.add(new ConfigNodeSingleToken(ut));
+                children.add(new ConfigNodeSingleToken(new TokenWithOrigin.UnquotedText(ut.origin(),
+                        kindText.substring(0, kindText.length() - r.length()))));
 
                 // skip space inside parens
                 t = nextTokenCollectingWhitespace(children);
@@ -397,6 +408,7 @@ final class ConfigDocumentParser {
                         putBack(new TokenWithOrigin.UnquotedText(unt.origin(), rest));
                     }
                     // OK, close paren
+                    children.add(new ConfigNodeSingleToken(new TokenWithOrigin.UnquotedText(unt.origin(), ")")));
                 } else {
                     throw parseError(ExpectingClosingParenthesisError + t);
                 }
@@ -410,13 +422,51 @@ final class ConfigDocumentParser {
             }
         }
 
+        // parse one key and its value, starting from the key's first token
+        private ConfigNodeField parseField(Token keyToken) {
+            ArrayList<AbstractConfigNode> keyValueNodes = new ArrayList<>();
+            ConfigNodeParsedPath path = parseKey(keyToken);
+            keyValueNodes.add(path);
+            Token afterKey = nextTokenCollectingWhitespace(keyValueNodes);
+            boolean insideEquals = false;
+
+            AbstractConfigNodeValue nextValue;
+            if (flavor == ConfigSyntax.CONF && afterKey == StaticToken.OPEN_CURLY) {
+                // can omit the ':' or '=' before an object value
+                nextValue = parseValue(afterKey);
+            } else {
+                if (!isKeyValueSeparatorToken(afterKey)) {
+                    throw parseError(addQuoteSuggestion(afterKey.toString(),
+                            "Key '" + path.render() + "' may not be followed by token: "
+                                    + afterKey));
+                }
+
+                keyValueNodes.add(new ConfigNodeSingleToken(afterKey));
+
+                if (afterKey == StaticToken.EQUALS) {
+                    insideEquals = true;
+                    equalsCount += 1;
+                }
+
+                nextValue = consolidateValues(keyValueNodes);
+                if (nextValue == null) {
+                    nextValue = parseValue(nextTokenCollectingWhitespace(keyValueNodes));
+                }
+            }
+
+            keyValueNodes.add(nextValue);
+            if (insideEquals) {
+                equalsCount -= 1;
+            }
+            return new ConfigNodeField(keyValueNodes);
+        }
+
         private ConfigNodeComplexValue parseObject(boolean hadOpenCurly) {
             // invoked just after the OPEN_CURLY (or START, if !hadOpenCurly)
             boolean afterComma = false;
             Path lastPath = null;
             boolean lastInsideEquals = false;
             ArrayList<AbstractConfigNode> objectNodes = new ArrayList<>();
-            ArrayList<AbstractConfigNode> keyValueNodes;
             HashMap<String, Boolean> keys = new HashMap<>();
             if (hadOpenCurly)
                 objectNodes.add(new ConfigNodeSingleToken(StaticToken.OPEN_CURLY));
@@ -442,42 +492,9 @@ final class ConfigDocumentParser {
                     objectNodes.add(parseInclude(includeNodes));
                     afterComma = false;
                 } else {
-                    keyValueNodes = new ArrayList<>();
-                    Token keyToken = t;
-                    ConfigNodeParsedPath path = parseKey(keyToken);
-                    keyValueNodes.add(path);
-                    Token afterKey = nextTokenCollectingWhitespace(keyValueNodes);
-                    boolean insideEquals = false;
-
-                    AbstractConfigNodeValue nextValue;
-                    if (flavor == ConfigSyntax.CONF && afterKey == StaticToken.OPEN_CURLY) {
-                        // can omit the ':' or '=' before an object value
-                        nextValue = parseValue(afterKey);
-                    } else {
-                        if (!isKeyValueSeparatorToken(afterKey)) {
-                            throw parseError(addQuoteSuggestion(afterKey.toString(),
-                                    "Key '" + path.render() + "' may not be followed by token: "
-                                            + afterKey));
-                        }
-
-                        keyValueNodes.add(new ConfigNodeSingleToken(afterKey));
-
-                        if (afterKey == StaticToken.EQUALS) {
-                            insideEquals = true;
-                            equalsCount += 1;
-                        }
-
-                        nextValue = consolidateValues(keyValueNodes);
-                        if (nextValue == null) {
-                            nextValue = parseValue(nextTokenCollectingWhitespace(keyValueNodes));
-                        }
-                    }
-
-                    keyValueNodes.add(nextValue);
-                    if (insideEquals) {
-                        equalsCount -= 1;
-                    }
-                    lastInsideEquals = insideEquals;
+                    ConfigNodeField field = parseField(t);
+                    ConfigNodeParsedPath path = field.path();
+                    lastInsideEquals = field.separator() == StaticToken.EQUALS;
 
                     String key = path.value().first();
                     Path remaining = path.value().remainder();
@@ -506,7 +523,7 @@ final class ConfigDocumentParser {
                     }
 
                     afterComma = false;
-                    objectNodes.add(new ConfigNodeField(keyValueNodes));
+                    objectNodes.add(field);
                 }
 
                 if (checkElementSeparator(objectNodes)) {
@@ -667,6 +684,22 @@ final class ConfigDocumentParser {
             }
         }
 
+        ConfigNodeField parseSingleField() {
+            Token t = nextToken();
+            if (t != StaticToken.START) {
+                throw new ConfigException.BugOrBroken(
+                        "token stream did not begin with START, had " + t);
+            }
+
+            t = nextToken();
+            if (!(t instanceof TokenWithOrigin.Value || t instanceof TokenWithOrigin.UnquotedText)
+                    || (flavor != ConfigSyntax.JSON && isIncludeKeyword(t))) {
+                return null;
+            }
+            ConfigNodeField field = parseField(t);
+            return nextToken() == StaticToken.END ? field : null;
+        }
+
         // Parse a given input stream into a single value node. Used when doing a replace inside a ConfigDocument.
         AbstractConfigNodeValue parseSingleValue() {
             Token t = nextToken();
@@ -0,0 +1,174 @@
+package com.typesafe.config.impl;
+
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigOrigin;
+import com.typesafe.config.ConfigParseOptions;
+import com.typesafe.config.ConfigSyntax;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Applies a text edit to a parsed document by parsing again only the
+ * innermost field that contains the edit, and sharing every other node with
+ * the previous tree. The result is the same tree a full parse of the edited
+ * text would give; whenever that can't be guaranteed from the field alone,
+ * the whole text is parsed again instead.
+ */
+final class ConfigDocumentReparser {
+    private ConfigDocumentReparser() {
+    }
+
+    static ConfigNodeRoot reparse(ConfigNodeRoot root, ConfigParseOptions options, int offset, int length,
+                                  String replacement) {
+        Objects.checkFromIndexSize(offset, length, root.renderLength());
+        if (length == 0 && replacement.isEmpty())
+            return root;
+        ConfigSyntax syntax = options.getSyntax() == null ? ConfigSyntax.CONF : options.getSyntax();
+
+        // find the chain of fields and containers from the root down to the innermost
+        // node that contains the whole edited range
+        List<AbstractConfigNode> chain = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        AbstractConfigNode node = root;
+        int nodeStart = 0;
+        while (node != null) {
+            chain.add(node);
+            starts.add(nodeStart);
+            AbstractConfigNode next = null;
+            int childStart = nodeStart;
+            int index = 0;
+            for (AbstractConfigNode child : children(node)) {
+                int childLength = child.renderLength();
+                if ((child instanceof ConfigNodeField || child instanceof ConfigNodeComplexValue)
+                        && childStart <= offset && offset + length <= childStart + childLength) {
+                    next = child;
+                    indexes.add(index);
+                    nodeStart = childStart;
+                    break;
+                }
+                childStart += childLength;
+                index++;
+            }
+            node = next;
+        }
+
+        // an edit that adds or removes lines moves every node after it to a different
+        // line, so then no part of the old tree can be kept
+        int innermost = chain.size() - 1;
+        while (innermost > 0 && !(chain.get(innermost) instanceof ConfigNodeField))
+            innermost--;
+        if (innermost > 0 && countLines(chain.get(innermost).render(), offset - starts.get(innermost),
+                offset - starts.get(innermost) + length) == countLines(replacement, 0, replacement.length())) {
+            for (int i = innermost; i > 0; i--) {
+                if (!(chain.get(i) instanceof ConfigNodeField field))
+                    continue;
+                ConfigNodeField replaced = reparseField(field, starts.get(i), (ConfigNodeComplexValue) chain.get(i - 1),
+                        indexes.get(i - 1), root, syntax, options, offset, length, replacement);
+                if (replaced != null) {
+                    AbstractConfigNode result = replaced;
+                    for (int j = i - 1; j >= 0; j--) {
+                        result = withChild(chain.get(j), indexes.get(j), result);
+                    }
+                    return (ConfigNodeRoot) result;
+                }
+            }
+        }
+
+        String text = root.render();
+        return parse(root.baseOrigin(), text.substring(0, offset) + replacement + text.substring(offset + length),
+                options);
+    }
+
+    // parses the whole of a document's rendered text again
+    static ConfigNodeRoot parse(ConfigNodeRoot root, ConfigParseOptions options) {
+        return parse(root.baseOrigin(), root.render(), options);
+    }
+
+    private static ConfigNodeRoot parse(ConfigOrigin origin, String text, ConfigParseOptions options) {
+        ConfigSyntax syntax = options.getSyntax() == null ? ConfigSyntax.CONF : options.getSyntax();
+        Iterator<Token> tokens = Tokenizer.tokenize(origin, new StringReader(text), syntax);
+        return ConfigDocumentParser.parse(tokens, origin, options);
+    }
+
+    private static ConfigNodeField reparseField(ConfigNodeField field, int fieldStart, ConfigNodeComplexValue parent,
+                                                int index, ConfigNodeRoot root, ConfigSyntax syntax,
+                                                ConfigParseOptions options, int offset, int length, String replacement) {
+        String oldText = field.render();
+        int from = offset - fieldStart;
+        int to = from + length;
+
+        String newText = oldText.substring(0, from) + replacement + oldText.substring(to);
+
+        // the field's last token has to end where it did, so if the edit reaches the end
+        // of the field, whatever comes next must be something that ends any token
+        if (to == oldText.length() && !endsToken(newText, parent, index, syntax))
+            return null;
+
+        // a token has the line it ends on, and only a triple-quoted string can span lines
+        Token first = field.path().tokens().iterator().next();
+        int firstLine = first.lineNumber() - countLines(first.tokenText(), 0, first.tokenText().length());
+
+        ConfigNodeField newField;
+        try {
+            Iterator<Token> tokens = Tokenizer.tokenize(root.baseOrigin(), new StringReader(newText), syntax, firstLine);
+            newField = ConfigDocumentParser.parseField(tokens, root.baseOrigin(), options, firstLine);
+        } catch (ConfigException e) {
+            return null;
+        }
+        // JSON objects reject duplicate keys, which can't be checked without the
+        // siblings, so in JSON the key has to stay the same
+        if (newField == null
+                || (syntax == ConfigSyntax.JSON && !newField.path().value().equals(field.path().value())))
+            return null;
+        return newField;
+    }
+
+    private static boolean endsToken(String newText, ConfigNodeComplexValue parent, int index,
+                                     ConfigSyntax syntax) {
+        List<AbstractConfigNode> siblings = new ArrayList<>(parent.children());
+        // only a field at the end of a root object without braces has nothing after it
+        if (index + 1 == siblings.size())
+            return true;
+        AbstractConfigNode next = siblings.get(index + 1);
+        if (!(next instanceof ConfigNodeSingleToken || next instanceof ConfigNodeComment))
+            return false;
+        char c = next.render().charAt(0);
+        // a "//" comment only stays where it is if the field doesn't now end
+        // with a '/' that would start the comment a character earlier
+        return ConfigImplUtil.isWhitespace(c) || c == ',' || c == '}'
+                || (syntax != ConfigSyntax.JSON && (c == '#' || (c == '/' && !newText.endsWith("/"))));
+    }
+
+    private static int countLines(String s, int from, int to) {
+        int lines = 0;
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == '\n')
+                lines++;
+        }
+        return lines;
+    }
+
+    private static Iterable<AbstractConfigNode> children(AbstractConfigNode node) {
+        if (node instanceof ConfigNodeComplexValue complex)
+            return complex.children();
+        else if (node instanceof ConfigNodeField field)
+            return field.children();
+        else
+            return List.of();
+    }
+
+    private static AbstractConfigNode withChild(AbstractConfigNode parent, int index, AbstractConfigNode child) {
+        if (parent instanceof ConfigNodeField field)
+            return field.replaceValue((AbstractConfigNodeValue) child);
+        ArrayList<AbstractConfigNode> children = new ArrayList<>(((ConfigNodeComplexValue) parent).children());
+        children.set(index, child);
+        if (parent instanceof ConfigNodeRoot root)
+            return root.withChildren(children);
+        return ((ConfigNodeComplexValue) parent).newNode(children);
+    }
+}
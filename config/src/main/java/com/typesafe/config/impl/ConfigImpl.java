@@ -7,11 +7,17 @@ import com.typesafe.config.*;
 import com.typesafe.config.impl.SimpleIncluder.NameSource;
 
 import java.io.File;
-import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * Internal implementation detail, not ABI stable, do not touch.
@@ -35,8 +41,31 @@ public class ConfigImpl {
     final private static SimpleConfigObject defaultEmptyObject = SimpleConfigObject
             .empty(defaultValueOrigin);
 
+    // whether the calling thread is inside SystemOverride.withSystemOverride,
+    // and how a task handed to another thread keeps the caller's override;
+    // SystemOverride registers these when it's initialized, and nothing can
+    // be overridden before that, so until then nothing is and tasks run as
+    // they are
+    private static volatile BooleanSupplier systemOverridden = () -> false;
+    private static volatile UnaryOperator<Supplier<?>> systemOverrideInheritance = UnaryOperator.identity();
+
+    public static void registerSystemOverride(BooleanSupplier overridden, UnaryOperator<Supplier<?>> inheritance) {
+        systemOverridden = overridden;
+        systemOverrideInheritance = inheritance;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Supplier<T> inheritingSystemOverride(Supplier<T> task) {
+        return (Supplier<T>) systemOverrideInheritance.apply(task);
+    }
+
     public static Config computeCachedConfig(ClassLoader loader, String key,
                                              Supplier<Config> updater) {
+        // a ConfigWatcher reloading needs to see the files change, and
+        // needs the files to be read so it knows what to watch
+        if (FileTracking.current() != null)
+            return updater.get();
+
         LoaderCache cache;
         try {
             cache = LoaderCacheHolder.cache;
@@ -46,6 +75,42 @@ public class ConfigImpl {
         return cache.getOrElseUpdate(loader, key, updater);
     }
 
+    // the cached config if it's already loaded, without waiting for or
+    // starting a load; null otherwise
+    public static Config cachedConfigIfPresent(ClassLoader loader, String key) {
+        if (FileTracking.current() != null)
+            return null;
+        try {
+            return LoaderCacheHolder.cache.getIfLoaded(loader, key);
+        } catch (ExceptionInInitializerError e) {
+            throw ConfigImplUtil.extractInitializerError(e);
+        }
+    }
+
+    public static ConfigCacheStats cacheStats() {
+        try {
+            return LoaderCacheHolder.cache.stats();
+        } catch (ExceptionInInitializerError e) {
+            throw ConfigImplUtil.extractInitializerError(e);
+        }
+    }
+
+    public static ConfigWatcher newWatcher(Supplier<Config> loader, Duration debounce) {
+        return new SimpleConfigWatcher(loader, debounce);
+    }
+
+    public static void invalidateHttpCache() {
+        HttpCache.clear();
+    }
+
+    public static void reloadParsedFileCacheConfig() {
+        ParsedFileCache.reconfigure();
+    }
+
+    public static ConfigCacheStats parsedFileCacheStats() {
+        return ParsedFileCache.stats();
+    }
+
     public static ConfigObject parseResourcesAnySyntax(Class<?> klass, String resourceBasename,
                                                        ConfigParseOptions baseOptions) {
         NameSource source = new ClasspathNameSourceWithClass(klass);
@@ -63,6 +128,14 @@ public class ConfigImpl {
         return SimpleIncluder.fromBasename(source, basename.getPath(), baseOptions);
     }
 
+    public static void writeSnapshot(Config config, File file) {
+        ConfigSnapshot.write(((SimpleConfig) config).root(), file);
+    }
+
+    public static Config parseSnapshot(File file) {
+        return ConfigSnapshot.open(file);
+    }
+
     static AbstractConfigObject emptyObject(String originDescription) {
         ConfigOrigin origin = originDescription != null ? SimpleConfigOrigin
                 .newSimple(originDescription) : null;
@@ -106,6 +179,10 @@ public class ConfigImpl {
         return fromAnyRef(object, origin, FromMapMode.KEYS_ARE_KEYS);
     }
 
+    public static ConfigBuilder newBuilder(String originDescription) {
+        return new SimpleConfigBuilder(valueOrigin(originDescription));
+    }
+
     public static ConfigObject fromPathMap(
             Map<String, ? extends Object> pathMap, String originDescription) {
         ConfigOrigin origin = valueOrigin(originDescription);
@@ -237,7 +314,7 @@ public class ConfigImpl {
 
     static AbstractConfigObject systemPropertiesAsConfigObject() {
         try {
-            return SystemPropertiesHolder.systemProperties;
+            return SystemPropertiesHolder.systemProperties.get();
         } catch (ExceptionInInitializerError e) {
             throw ConfigImplUtil.extractInitializerError(e);
         }
@@ -249,8 +326,9 @@ public class ConfigImpl {
 
     public static void reloadSystemPropertiesConfig() {
         // ConfigFactory.invalidateCaches() relies on this having the side
-        // effect that it drops all caches
-        SystemPropertiesHolder.systemProperties = loadSystemProperties();
+        // effect that it drops all caches; the load cache notices when it
+        // gets a different object from systemPropertiesAsConfigObject()
+        SystemPropertiesHolder.systemProperties.reload();
     }
 
     private static AbstractConfigObject loadEnvVariables() {
@@ -259,10 +337,57 @@ public class ConfigImpl {
 
     static AbstractConfigObject envVariablesAsConfigObject() {
         try {
-            return EnvVariablesHolder.envVariables;
+            return EnvVariablesHolder.envVariables.get();
+        } catch (ExceptionInInitializerError e) {
+            throw ConfigImplUtil.extractInitializerError(e);
+        }
+    }
+
+    // An object with the same value at the path as
+    // envVariablesAsConfigObject() has, for looking up substitutions. It's
+    // built from only the variables whose names lead to or through the path,
+    // so an environment with thousands of variables doesn't have to be
+    // converted as a whole for a few ${?VAR} lookups.
+    static AbstractConfigObject envVariablesAt(Path path) {
+        // the memo and the full object are built from the real environment,
+        // so inside withSystemOverride they can neither answer the lookup
+        // nor be filled from the overridden one
+        if (systemOverridden.getAsBoolean())
+            return envVariablesLeadingTo(path);
+
+        LazyObject all;
+        Map<Path, AbstractConfigObject> byPath;
+        try {
+            all = EnvVariablesHolder.envVariables;
+            byPath = EnvVariablesHolder.byPath;
         } catch (ExceptionInInitializerError e) {
             throw ConfigImplUtil.extractInitializerError(e);
         }
+        AbstractConfigObject loaded = all.getIfLoaded();
+        if (loaded != null)
+            return loaded;
+        return byPath.computeIfAbsent(path, ConfigImpl::envVariablesLeadingTo);
+    }
+
+    private static AbstractConfigObject envVariablesLeadingTo(Path path) {
+        StringBuilder sb = new StringBuilder();
+        for (Path e = path; e != null; e = e.remainder()) {
+            if (sb.length() > 0)
+                sb.append('.');
+            sb.append(e.first());
+        }
+        String name = sb.toString();
+        Map<String, String> relevant = new HashMap<>();
+        for (Map.Entry<String, String> entry : SystemOverride.getenv().entrySet()) {
+            String key = entry.getKey();
+            if (key.equals(name) || isPropertyPrefix(key, name) || isPropertyPrefix(name, key))
+                relevant.put(key, entry.getValue());
+        }
+        return PropertiesParser.fromStringMap(newEnvVariable("env variables"), relevant);
+    }
+
+    private static boolean isPropertyPrefix(String key, String prefix) {
+        return key.length() > prefix.length() && key.startsWith(prefix) && key.charAt(prefix.length()) == '.';
     }
 
     public static Config envVariablesAsConfig() {
@@ -272,7 +397,8 @@ public class ConfigImpl {
     public static void reloadEnvVariablesConfig() {
         // ConfigFactory.invalidateCaches() relies on this having the side
         // effect that it drops all caches
-        EnvVariablesHolder.envVariables = loadEnvVariables();
+        EnvVariablesHolder.envVariables.reload();
+        EnvVariablesHolder.byPath.clear();
     }
 
     private static AbstractConfigObject loadEnvVariablesOverrides() {
@@ -290,7 +416,7 @@ public class ConfigImpl {
 
     static AbstractConfigObject envVariablesOverridesAsConfigObject() {
         try {
-            return EnvVariablesOverridesHolder.envVariables;
+            return EnvVariablesOverridesHolder.envVariables.get();
         } catch (ExceptionInInitializerError e) {
             throw ConfigImplUtil.extractInitializerError(e);
         }
@@ -303,7 +429,7 @@ public class ConfigImpl {
     public static void reloadEnvVariablesOverridesConfig() {
         // ConfigFactory.invalidateCaches() relies on this having the side
         // effect that it drops all caches
-        EnvVariablesOverridesHolder.envVariables = loadEnvVariablesOverrides();
+        EnvVariablesOverridesHolder.envVariables.reload();
     }
 
     public static Config defaultReference(final ClassLoader loader) {
@@ -397,46 +523,126 @@ public class ConfigImpl {
     }
 
     private static class LoaderCache {
-        private final Map<String, Config> cache;
-        private Config currentSystemProperties;
-        private WeakReference<ClassLoader> currentLoader;
+        // plenty for a plugin host, while keeping configs of loaders
+        // that are no longer used (but not yet collected) from piling up
+        private static final int MAX_LOADERS = 64;
+
+        // the lock on this map is only held to find a loader's entries,
+        // never while loading a config
+        private final Map<ClassLoader, LoaderEntries> loaders;
+        private AbstractConfigObject currentSystemProperties;
+        private long clock;
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder loadNanos = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
 
         LoaderCache() {
+            this.loaders = new WeakHashMap<>();
             this.currentSystemProperties = null;
-            this.currentLoader = new WeakReference<>(null);
-            this.cache = new HashMap<>();
+            this.clock = 0;
         }
 
-        // for now, caching as long as the loader remains the same,
-        // drop entire cache if it changes.
-        synchronized Config getOrElseUpdate(ClassLoader loader, String key, Supplier<Config> updater) {
-            if (loader != currentLoader.get()) {
-                // reset the cache if we start using a different loader
-                cache.clear();
-                currentLoader = new WeakReference<>(loader);
+        private static final class LoaderEntries {
+            final ConcurrentHashMap<String, FutureTask<Config>> configs = new ConcurrentHashMap<>();
+            long lastUsed;
+        }
+
+        private ConcurrentHashMap<String, FutureTask<Config>> entriesFor(ClassLoader loader) {
+            synchronized (loaders) {
+                // drop everything if the system properties were reloaded,
+                // which is what ConfigFactory.invalidateCaches() relies on
+                AbstractConfigObject systemProperties = systemPropertiesAsConfigObject();
+                if (systemProperties != currentSystemProperties) {
+                    loaders.clear();
+                    currentSystemProperties = systemProperties;
+                }
+
+                LoaderEntries entries = loaders.get(loader);
+                if (entries == null) {
+                    if (loaders.size() >= MAX_LOADERS)
+                        evictLeastRecentlyUsed();
+                    entries = new LoaderEntries();
+                    loaders.put(loader, entries);
+                }
+                entries.lastUsed = ++clock;
+                return entries.configs;
             }
+        }
 
-            Config systemProperties = systemPropertiesAsConfig();
-            if (systemProperties != currentSystemProperties) {
-                cache.clear();
-                currentSystemProperties = systemProperties;
+        private void evictLeastRecentlyUsed() {
+            ClassLoader oldest = null;
+            long oldestUse = Long.MAX_VALUE;
+            for (Map.Entry<ClassLoader, LoaderEntries> e : loaders.entrySet()) {
+                if (e.getValue().lastUsed < oldestUse) {
+                    oldest = e.getKey();
+                    oldestUse = e.getValue().lastUsed;
+                }
+            }
+            loaders.remove(oldest);
+            evictions.increment();
+        }
+
+        // each key is loaded once per loader; other threads asking for the
+        // same key wait for that load instead of starting their own, and
+        // threads asking for other keys or loaders don't wait at all.
+        Config getOrElseUpdate(ClassLoader loader, String key, Supplier<Config> updater) {
+            ConcurrentHashMap<String, FutureTask<Config>> configs = entriesFor(loader);
+            FutureTask<Config> task = configs.get(key);
+            if (task == null) {
+                FutureTask<Config> newTask = new FutureTask<>(() -> load(updater));
+                task = configs.putIfAbsent(key, newTask);
+                if (task == null) {
+                    misses.increment();
+                    task = newTask;
+                    task.run();
+                } else {
+                    hits.increment();
+                }
+            } else {
+                hits.increment();
             }
 
-            Config config = cache.get(key);
-            if (config == null) {
-                try {
-                    config = updater.get();
-                } catch (RuntimeException e) {
-                    throw e; // this will include ConfigException
-                } catch (Exception e) {
-                    throw new ConfigException.Generic(e.getMessage(), e);
+            try {
+                return task.get();
+            } catch (ExecutionException e) {
+                // don't cache failures, the next caller tries again
+                configs.remove(key, task);
+                switch (e.getCause()) {
+                    case RuntimeException re -> throw re; // this will include ConfigException
+                    case Error err -> throw err;
+                    default -> throw new ConfigException.Generic(e.getCause().getMessage(), e.getCause());
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConfigException.Generic("interrupted while waiting for another thread to load " + key, e);
+            }
+        }
+
+        Config getIfLoaded(ClassLoader loader, String key) {
+            FutureTask<Config> task = entriesFor(loader).get(key);
+            if (task == null || task.state() != Future.State.SUCCESS)
+                return null;
+            hits.increment();
+            return task.resultNow();
+        }
+
+        private Config load(Supplier<Config> updater) {
+            long start = System.nanoTime();
+            try {
+                Config config = updater.get();
                 if (config == null)
                     throw new ConfigException.BugOrBroken("null config from cache updater");
-                cache.put(key, config);
+                return config;
+            } finally {
+                loadNanos.add(System.nanoTime() - start);
             }
+        }
 
-            return config;
+        ConfigCacheStats stats() {
+            return new ConfigCacheStats(hits.sum(), misses.sum(), Duration.ofNanos(loadNanos.sum()),
+                    evictions.sum());
         }
     }
 
@@ -475,17 +681,53 @@ public class ConfigImpl {
         static final ConfigIncluder defaultIncluder = new SimpleIncluder(null);
     }
 
+    // An object that's only converted from the system properties or
+    // environment when first asked for, and again when first asked for after
+    // each reload(), rather than on every reload.
+    private static final class LazyObject {
+        private final Supplier<AbstractConfigObject> loader;
+        private volatile AbstractConfigObject value = null;
+
+        LazyObject(Supplier<AbstractConfigObject> loader) {
+            this.loader = loader;
+        }
+
+        AbstractConfigObject get() {
+            AbstractConfigObject v = value;
+            if (v == null) {
+                synchronized (this) {
+                    v = value;
+                    if (v == null) {
+                        v = loader.get();
+                        value = v;
+                    }
+                }
+            }
+            return v;
+        }
+
+        AbstractConfigObject getIfLoaded() {
+            return value;
+        }
+
+        // waits for a load in progress, so that it can't finish with what
+        // was there before the reload
+        synchronized void reload() {
+            value = null;
+        }
+    }
+
     private static class SystemPropertiesHolder {
-        // this isn't final due to the reloadSystemPropertiesConfig() hack below
-        static volatile AbstractConfigObject systemProperties = loadSystemProperties();
+        static final LazyObject systemProperties = new LazyObject(ConfigImpl::loadSystemProperties);
     }
 
     private static class EnvVariablesHolder {
-        static volatile AbstractConfigObject envVariables = loadEnvVariables();
+        static final LazyObject envVariables = new LazyObject(ConfigImpl::loadEnvVariables);
+        static final Map<Path, AbstractConfigObject> byPath = new ConcurrentHashMap<>();
     }
 
     private static class EnvVariablesOverridesHolder {
-        static volatile AbstractConfigObject envVariables = loadEnvVariablesOverrides();
+        static final LazyObject envVariables = new LazyObject(ConfigImpl::loadEnvVariablesOverrides);
     }
 
     private static class DebugHolder {
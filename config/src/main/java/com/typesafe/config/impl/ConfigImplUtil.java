@@ -35,67 +35,39 @@ final public class ConfigImplUtil {
     }
 
     public static String renderJsonString(String s) {
-        StringBuilder sb = new StringBuilder();
-        sb.append('"');
-        for (int i = 0; i < s.length(); ++i) {
-            char c = s.charAt(i);
-            switch (c) {
-                case '"':
-                    sb.append("\\\"");
-                    break;
-                case '\\':
-                    sb.append("\\\\");
-                    break;
-                case '\n':
-                    sb.append("\\n");
-                    break;
-                case '\b':
-                    sb.append("\\b");
-                    break;
-                case '\f':
-                    sb.append("\\f");
-                    break;
-                case '\r':
-                    sb.append("\\r");
-                    break;
-                case '\t':
-                    sb.append("\\t");
-                    break;
-                default:
-                    if (isC0Control(c))
-                        sb.append(String.format("\\u%04x", (int) c));
-                    else
-                        sb.append(c);
-            }
-        }
-        sb.append('"');
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        new RenderSink(sb).appendJsonString(s);
         return sb.toString();
     }
 
     static String renderStringUnquotedIfPossible(String s) {
+        return canRenderUnquoted(s) ? s : renderJsonString(s);
+    }
+
+    static boolean canRenderUnquoted(String s) {
         // this can quote unnecessarily as long as it never fails to quote when
         // necessary
         if (s.isEmpty())
-            return renderJsonString(s);
+            return false;
 
         // if it starts with a hyphen or number, we have to quote
         // to ensure we end up with a string and not a number
         int first = s.codePointAt(0);
         if (Character.isDigit(first) || first == '-')
-            return renderJsonString(s);
+            return false;
 
         if (s.startsWith("include") || s.startsWith("true") || s.startsWith("false")
                 || s.startsWith("null") || s.contains("//"))
-            return renderJsonString(s);
+            return false;
 
         // only unquote if it's pure alphanumeric
         for (int i = 0; i < s.length(); ++i) {
             char c = s.charAt(i);
             if (!(Character.isLetter(c) || Character.isDigit(c) || c == '-'))
-                return renderJsonString(s);
+                return false;
         }
 
-        return s;
+        return true;
     }
 
     static boolean isWhitespace(int codepoint) {
@@ -12,6 +12,8 @@ import java.util.List;
 
 abstract class ConfigNodeComplexValue extends AbstractConfigNodeValue {
     final protected ArrayList<AbstractConfigNode> children;
+    // computed on demand; see childrenChanged()
+    private int renderLength = -1;
 
     ConfigNodeComplexValue(Collection<AbstractConfigNode> children) {
         this.children = new ArrayList<>(children);
@@ -30,6 +32,24 @@ abstract class ConfigNodeComplexValue extends AbstractConfigNodeValue {
         return tokens;
     }
 
+    @Override
+    final int renderLength() {
+        if (renderLength < 0) {
+            int length = 0;
+            for (AbstractConfigNode child : children) {
+                length += child.renderLength();
+            }
+            renderLength = length;
+        }
+        return renderLength;
+    }
+
+    // must be called by the in-place edits of a ConfigDocumentEditor batch, the only
+    // code that changes children after construction
+    final void childrenChanged() {
+        renderLength = -1;
+    }
+
     protected ConfigNodeComplexValue indentText(AbstractConfigNode indentation) {
         ArrayList<AbstractConfigNode> childrenCopy = new ArrayList<>(children);
         for (int i = 0; i < childrenCopy.size(); i++) {
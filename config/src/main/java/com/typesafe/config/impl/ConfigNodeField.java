@@ -14,6 +14,8 @@ import java.util.List;
 
 final class ConfigNodeField extends AbstractConfigNode implements com.typesafe.config.parser.ConfigNodeField {
     final private ArrayList<AbstractConfigNode> children;
+    // computed on demand
+    private int renderLength = -1;
 
     public ConfigNodeField(Collection<AbstractConfigNode> children) {
         this.children = new ArrayList<>(children);
@@ -28,6 +30,22 @@ final class ConfigNodeField extends AbstractConfigNode implements com.typesafe.c
         return tokens;
     }
 
+    Collection<AbstractConfigNode> children() {
+        return children;
+    }
+
+    @Override
+    int renderLength() {
+        if (renderLength < 0) {
+            int length = 0;
+            for (AbstractConfigNode child : children) {
+                length += child.renderLength();
+            }
+            renderLength = length;
+        }
+        return renderLength;
+    }
+
     public ConfigNodeField replaceValue(AbstractConfigNodeValue newValue) {
         ArrayList<AbstractConfigNode> childrenCopy = new ArrayList<>(children);
         for (int i = 0; i < childrenCopy.size(); i++) {
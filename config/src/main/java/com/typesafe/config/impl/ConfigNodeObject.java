@@ -1,10 +1,15 @@
 package com.typesafe.config.impl;
 
+import com.typesafe.config.ConfigException;
 import com.typesafe.config.ConfigSyntax;
 import com.typesafe.config.parser.ConfigNodeVisitor;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 final class ConfigNodeObject extends ConfigNodeComplexValue implements com.typesafe.config.parser.ConfigNodeObject {
     ConfigNodeObject(Collection<AbstractConfigNode> children) {
@@ -18,86 +23,233 @@ final class ConfigNodeObject extends ConfigNodeComplexValue implements com.types
 
     public boolean hasValue(Path desiredPath) {
         for (AbstractConfigNode node : children) {
-            if (node instanceof ConfigNodeField field) {
-                Path key = field.path().value();
-                if (key.equals(desiredPath) || key.startsWith(desiredPath)) {
-                    return true;
-                } else if (desiredPath.startsWith(key)) {
-                    if (field.value() instanceof ConfigNodeObject obj) {
-                        Path remainingPath = desiredPath.subPath(key.length());
-                        if (obj.hasValue(remainingPath)) {
-                            return true;
-                        }
-                    }
+            if (node instanceof ConfigNodeField field && fieldHasValue(field, desiredPath, null))
+                return true;
+        }
+        return false;
+    }
+
+    // Like hasValue(Path), but looks the key up in the batch's index of this object if it has one
+    boolean hasValue(Path desiredPath, EditBatch batch) {
+        Map<String, List<IndexedField>> index = batch.existingIndex(this);
+        if (index == null)
+            return hasValue(desiredPath);
+        for (IndexedField indexed : index.getOrDefault(desiredPath.first(), List.of())) {
+            if (fieldHasValue(indexed.field, desiredPath, batch))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean fieldHasValue(ConfigNodeField field, Path desiredPath, EditBatch batch) {
+        Path key = field.path().value();
+        if (key.equals(desiredPath) || key.startsWith(desiredPath)) {
+            return true;
+        } else if (desiredPath.startsWith(key) && field.value() instanceof ConfigNodeObject obj) {
+            Path remainingPath = desiredPath.subPath(key.length());
+            return batch == null ? obj.hasValue(remainingPath) : obj.hasValue(remainingPath, batch);
+        }
+        return false;
+    }
+
+    // A field of an object owned by an edit batch, and where in the object's children it was last found.
+    // While a batch edits an object, its fields only ever move towards the front, as settings before them
+    // are removed; new settings go after all the existing ones. So a stale position is put right by
+    // looking back from it.
+    private static final class IndexedField {
+        ConfigNodeField field;
+        int position;
+
+        IndexedField(ConfigNodeField field, int position) {
+            this.field = field;
+            this.position = position;
+        }
+    }
+
+    /**
+     * The objects a batch of edits has copied, which it may change in place, and for the ones it has looked
+     * up settings in, an index of their fields by the first element of the key. Only fields whose key starts
+     * with the same element as an edited path can be affected by the edit, so with the index an edit costs
+     * about the same however many settings the object has, rather than a pass over all of them. The
+     * indexes go away with the batch.
+     */
+    static final class EditBatch {
+        private final Map<ConfigNodeObject, Map<String, List<IndexedField>>> owned = new IdentityHashMap<>();
+
+        boolean owns(ConfigNodeObject object) {
+            return owned.containsKey(object);
+        }
+
+        void own(ConfigNodeObject object) {
+            owned.put(object, null);
+        }
+
+        Map<String, List<IndexedField>> existingIndex(ConfigNodeObject object) {
+            return owned.get(object);
+        }
+
+        Map<String, List<IndexedField>> index(ConfigNodeObject object) {
+            Map<String, List<IndexedField>> index = owned.get(object);
+            if (index == null) {
+                index = new HashMap<>();
+                for (int i = 0; i < object.children.size(); i++) {
+                    if (object.children.get(i) instanceof ConfigNodeField field)
+                        index.computeIfAbsent(field.path().value().first(), k -> new ArrayList<>(1))
+                                .add(new IndexedField(field, i));
                 }
+                owned.put(object, index);
             }
+            return index;
         }
-        return false;
     }
 
-    protected ConfigNodeObject changeValueOnPath(Path desiredPath, AbstractConfigNodeValue value, ConfigSyntax flavor) {
-        ArrayList<AbstractConfigNode> childrenCopy = new ArrayList<>(super.children);
-        boolean seenNonMatching = false;
+    // Returns this object if it was already copied for the current batch of edits, otherwise
+    // a copy of it that the batch owns and may modify in place.
+    ConfigNodeObject editable(EditBatch batch) {
+        if (batch.owns(this)) {
+            return this;
+        }
+        ConfigNodeObject copy = new ConfigNodeObject(children);
+        batch.own(copy);
+        return copy;
+    }
+
+    static EditBatch newEditBatch() {
+        return new EditBatch();
+    }
+
+    // The indexed fields whose key starts with the same element as the path, each with its current
+    // position, from the last to the first as a pass over the children from the end would meet them
+    private List<IndexedField> fieldsStartingLike(Path path, EditBatch batch) {
+        List<IndexedField> fields = batch.index(this).get(path.first());
+        if (fields == null)
+            return List.of();
+        List<IndexedField> ordered = new ArrayList<>(fields);
+        for (IndexedField indexed : ordered) {
+            int i = Math.min(indexed.position, children.size() - 1);
+            while (i >= 0 && children.get(i) != indexed.field)
+                i--;
+            if (i < 0)
+                i = children.indexOf(indexed.field);
+            if (i < 0)
+                throw new ConfigException.BugOrBroken("Edit batch index has a field that is not in its object: " + indexed.field.render());
+            indexed.position = i;
+        }
+        ordered.sort((a, b) -> Integer.compare(b.position, a.position));
+        return ordered;
+    }
+
+    private void replaceField(int i, ConfigNodeField replacement, EditBatch batch) {
+        ConfigNodeField old = (ConfigNodeField) children.set(i, replacement);
+        Map<String, List<IndexedField>> index = batch.existingIndex(this);
+        if (index != null) {
+            for (IndexedField indexed : index.get(old.path().value().first())) {
+                if (indexed.field == old)
+                    indexed.field = replacement;
+            }
+        }
+    }
+
+    private void removeField(int i, EditBatch batch) {
+        ConfigNodeField old = (ConfigNodeField) children.remove(i);
+        Map<String, List<IndexedField>> index = batch.existingIndex(this);
+        if (index != null)
+            index.get(old.path().value().first()).removeIf(indexed -> indexed.field == old);
+    }
+
+    private void addedField(ConfigNodeField added, EditBatch batch) {
+        Map<String, List<IndexedField>> index = batch.existingIndex(this);
+        if (index == null)
+            return;
+        // new settings go at the end, so look for it from there
+        int i = children.size() - 1;
+        while (i >= 0 && children.get(i) != added)
+            i--;
+        if (i < 0)
+            return;
+        index.computeIfAbsent(added.path().value().first(), k -> new ArrayList<>(1)).add(new IndexedField(added, i));
+    }
+
+    // Must only be called on an object returned by editable() for the same batch
+    void changeValueInPlace(Path desiredPath, AbstractConfigNodeValue value, ConfigSyntax flavor, EditBatch batch) {
+        childrenChanged();
         // Copy the value so we can change it to null but not modify the original parameter
         AbstractConfigNodeValue valueCopy = value;
-        for (int i = childrenCopy.size() - 1; i >= 0; i--) {
-            if (childrenCopy.get(i) instanceof ConfigNodeSingleToken) {
-                Token t = ((ConfigNodeSingleToken) childrenCopy.get(i)).token();
+        if (flavor != ConfigSyntax.JSON) {
+            // Only the fields starting with the same key can be changed, so just look at those
+            for (IndexedField indexed : fieldsStartingLike(desiredPath, batch)) {
+                valueCopy = changeField(indexed.position, desiredPath, value, valueCopy, flavor, batch);
+            }
+            return;
+        }
+
+        // In JSON the trailing commas left by removed settings have to go as well, so go through every child
+        boolean seenNonMatching = false;
+        for (int i = children.size() - 1; i >= 0; i--) {
+            if (children.get(i) instanceof ConfigNodeSingleToken) {
+                Token t = ((ConfigNodeSingleToken) children.get(i)).token();
                 // Ensure that, when we are removing settings in JSON, we don't end up with a trailing comma
-                if (flavor == ConfigSyntax.JSON && !seenNonMatching && t == StaticToken.COMMA) {
-                    childrenCopy.remove(i);
+                if (!seenNonMatching && t == StaticToken.COMMA) {
+                    children.remove(i);
                 }
                 continue;
-            } else if (!(childrenCopy.get(i) instanceof ConfigNodeField)) {
+            } else if (!(children.get(i) instanceof ConfigNodeField)) {
                 continue;
             }
-            ConfigNodeField node = (ConfigNodeField) childrenCopy.get(i);
-            Path key = node.path().value();
-
-            // Delete all multi-element paths that start with the desired path, since technically they are duplicates
-            if ((valueCopy == null && key.equals(desiredPath)) || (key.startsWith(desiredPath) && !key.equals(desiredPath))) {
-                childrenCopy.remove(i);
-                // Remove any whitespace or commas after the deleted setting
-                for (int j = i; j < childrenCopy.size(); j++) {
-                    if (childrenCopy.get(j) instanceof ConfigNodeSingleToken) {
-                        Token t = ((ConfigNodeSingleToken) childrenCopy.get(j)).token();
-                        if (t instanceof TokenWithOrigin.IgnoredWhitespace || t == StaticToken.COMMA) {
-                            childrenCopy.remove(j);
-                            j--;
-                        } else {
-                            break;
-                        }
+            int size = children.size();
+            valueCopy = changeField(i, desiredPath, value, valueCopy, flavor, batch);
+            if (children.size() == size) {
+                seenNonMatching = true;
+            }
+        }
+    }
+
+    // Changes the field at i for an edit of desiredPath, returning what valueCopy becomes
+    private AbstractConfigNodeValue changeField(int i, Path desiredPath, AbstractConfigNodeValue value,
+                                                AbstractConfigNodeValue valueCopy, ConfigSyntax flavor, EditBatch batch) {
+        ConfigNodeField node = (ConfigNodeField) children.get(i);
+        Path key = node.path().value();
+
+        // Delete all multi-element paths that start with the desired path, since technically they are duplicates
+        if ((valueCopy == null && key.equals(desiredPath)) || (key.startsWith(desiredPath) && !key.equals(desiredPath))) {
+            removeField(i, batch);
+            // Remove any whitespace or commas after the deleted setting
+            for (int j = i; j < children.size(); j++) {
+                if (children.get(j) instanceof ConfigNodeSingleToken) {
+                    Token t = ((ConfigNodeSingleToken) children.get(j)).token();
+                    if (t instanceof TokenWithOrigin.IgnoredWhitespace || t == StaticToken.COMMA) {
+                        children.remove(j);
+                        j--;
                     } else {
                         break;
                     }
-                }
-            } else if (key.equals(desiredPath)) {
-                seenNonMatching = true;
-                AbstractConfigNodeValue indentedValue;
-                AbstractConfigNode before = i - 1 > 0 ? childrenCopy.get(i - 1) : null;
-                if (value instanceof ConfigNodeComplexValue &&
-                        before instanceof ConfigNodeSingleToken cnst &&
-                        cnst.token() instanceof TokenWithOrigin.IgnoredWhitespace) {
-                    indentedValue = ((ConfigNodeComplexValue) value).indentText(cnst);
                 } else {
-                    indentedValue = value;
-                }
-                childrenCopy.set(i, node.replaceValue(indentedValue));
-                valueCopy = null;
-            } else if (desiredPath.startsWith(key)) {
-                seenNonMatching = true;
-                if (node.value() instanceof ConfigNodeObject) {
-                    Path remainingPath = desiredPath.subPath(key.length());
-                    childrenCopy.set(i, node.replaceValue(((ConfigNodeObject) node.value()).changeValueOnPath(remainingPath, valueCopy, flavor)));
-                    if (valueCopy != null && !node.equals(super.children.get(i))) {
-                        valueCopy = null;
-                    }
+                    break;
                 }
+            }
+        } else if (key.equals(desiredPath)) {
+            AbstractConfigNodeValue indentedValue;
+            AbstractConfigNode before = i - 1 > 0 ? children.get(i - 1) : null;
+            if (value instanceof ConfigNodeComplexValue &&
+                    before instanceof ConfigNodeSingleToken cnst &&
+                    cnst.token() instanceof TokenWithOrigin.IgnoredWhitespace) {
+                indentedValue = ((ConfigNodeComplexValue) value).indentText(cnst);
             } else {
-                seenNonMatching = true;
+                indentedValue = value;
+            }
+            replaceField(i, node.replaceValue(indentedValue), batch);
+            valueCopy = null;
+        } else if (desiredPath.startsWith(key)) {
+            if (node.value() instanceof ConfigNodeObject obj) {
+                Path remainingPath = desiredPath.subPath(key.length());
+                ConfigNodeObject editable = obj.editable(batch);
+                editable.changeValueInPlace(remainingPath, valueCopy, flavor, batch);
+                if (editable != obj) {
+                    replaceField(i, node.replaceValue(editable), batch);
+                }
             }
         }
-        return new ConfigNodeObject(childrenCopy);
+        return valueCopy;
     }
 
     public ConfigNodeObject setValueOnPath(String desiredPath, AbstractConfigNodeValue value) {
@@ -110,13 +262,20 @@ final class ConfigNodeObject extends ConfigNodeComplexValue implements com.types
     }
 
     private ConfigNodeObject setValueOnPath(ConfigNodeParsedPath desiredPath, AbstractConfigNodeValue value, ConfigSyntax flavor) {
-        ConfigNodeObject node = changeValueOnPath(desiredPath.value(), value, flavor);
+        EditBatch batch = newEditBatch();
+        ConfigNodeObject node = editable(batch);
+        node.setValueInPlace(desiredPath, value, flavor, batch);
+        return node;
+    }
+
+    // Must only be called on an object returned by editable() for the same batch
+    void setValueInPlace(ConfigNodeParsedPath desiredPath, AbstractConfigNodeValue value, ConfigSyntax flavor, EditBatch batch) {
+        changeValueInPlace(desiredPath.value(), value, flavor, batch);
 
         // If the desired Path did not exist, add it
-        if (!node.hasValue(desiredPath.value())) {
-            return node.addValueOnPath(desiredPath, value, flavor);
+        if (!hasValue(desiredPath.value(), batch)) {
+            addValueInPlace(desiredPath, value, flavor, batch);
         }
-        return node;
     }
 
     private Collection<AbstractConfigNode> indentation() {
@@ -166,9 +325,9 @@ final class ConfigNodeObject extends ConfigNodeComplexValue implements com.types
         return indentation;
     }
 
-    protected ConfigNodeObject addValueOnPath(ConfigNodeParsedPath desiredPath, AbstractConfigNodeValue value, ConfigSyntax flavor) {
+    private void addValueInPlace(ConfigNodeParsedPath desiredPath, AbstractConfigNodeValue value, ConfigSyntax flavor, EditBatch batch) {
+        childrenChanged();
         Path path = desiredPath.value();
-        ArrayList<AbstractConfigNode> childrenCopy = new ArrayList<>(super.children);
         ArrayList<AbstractConfigNode> indentation = new ArrayList<>(indentation());
 
         // If the value we're inserting is a complex value, we'll need to indent it for insertion
@@ -183,21 +342,23 @@ final class ConfigNodeObject extends ConfigNodeComplexValue implements com.types
 
         // If the path is of length greater than one, see if the value needs to be added further down
         if (path.length() > 1) {
-            for (int i = super.children.size() - 1; i >= 0; i--) {
-                if (!(super.children.get(i) instanceof ConfigNodeField node)) {
-                    continue;
-                }
+            for (IndexedField indexed : fieldsStartingLike(path, batch)) {
+                ConfigNodeField node = indexed.field;
                 Path key = node.path().value();
                 if (path.startsWith(key) && node.value() instanceof ConfigNodeObject newValue) {
                     ConfigNodeParsedPath remainingPath = desiredPath.subPath(key.length());
-                    childrenCopy.set(i, node.replaceValue(newValue.addValueOnPath(remainingPath, value, flavor)));
-                    return new ConfigNodeObject(childrenCopy);
+                    ConfigNodeObject editable = newValue.editable(batch);
+                    editable.addValueInPlace(remainingPath, value, flavor, batch);
+                    if (editable != newValue) {
+                        replaceField(indexed.position, node.replaceValue(editable), batch);
+                    }
+                    return;
                 }
             }
         }
 
         // Otherwise, construct the new setting
-        boolean startsWithBrace = !super.children.isEmpty() && super.children.getFirst() instanceof ConfigNodeSingleToken cnst &&
+        boolean startsWithBrace = !children.isEmpty() && children.getFirst() instanceof ConfigNodeSingleToken cnst &&
                 cnst.token() == StaticToken.OPEN_CURLY;
         ArrayList<AbstractConfigNode> newNodes = new ArrayList<>(indentation);
         newNodes.add(desiredPath.first());
@@ -217,65 +378,77 @@ final class ConfigNodeObject extends ConfigNodeComplexValue implements com.types
             newObjectNodes.addAll(indentation);
             newObjectNodes.add(new ConfigNodeSingleToken(StaticToken.CLOSE_CURLY));
             ConfigNodeObject newObject = new ConfigNodeObject(newObjectNodes);
-            newNodes.add(newObject.addValueOnPath(desiredPath.subPath(1), indentedValue, flavor));
+            batch.own(newObject);
+            newObject.addValueInPlace(desiredPath.subPath(1), indentedValue, flavor, batch);
+            newNodes.add(newObject);
         }
 
+        ConfigNodeField newField = new ConfigNodeField(newNodes);
+
         // Combine these two cases so that we only have to iterate once
         if (flavor == ConfigSyntax.JSON || startsWithBrace || sameLine) {
-            for (int i = childrenCopy.size() - 1; i >= 0; i--) {
+            for (int i = children.size() - 1; i >= 0; i--) {
 
                 // If we are in JSON or are adding a setting on the same line, we need to add a comma to the
                 // last setting
-                if ((flavor == ConfigSyntax.JSON || sameLine) && childrenCopy.get(i) instanceof ConfigNodeField) {
-                    if (i + 1 >= childrenCopy.size() ||
-                            !(childrenCopy.get(i + 1) instanceof ConfigNodeSingleToken cnst
+                if ((flavor == ConfigSyntax.JSON || sameLine) && children.get(i) instanceof ConfigNodeField) {
+                    if (i + 1 >= children.size() ||
+                            !(children.get(i + 1) instanceof ConfigNodeSingleToken cnst
                                     && cnst.token() == StaticToken.COMMA)) {
-                        childrenCopy.add(i + 1, new ConfigNodeSingleToken(StaticToken.COMMA));
+                        children.add(i + 1, new ConfigNodeSingleToken(StaticToken.COMMA));
                     }
                     break;
                 }
 
                 // Add the value into the copy of the children map, keeping any whitespace/newlines
                 // before the close curly brace
-                if (startsWithBrace && childrenCopy.get(i) instanceof ConfigNodeSingleToken cnst &&
+                if (startsWithBrace && children.get(i) instanceof ConfigNodeSingleToken cnst &&
                         cnst.token == StaticToken.CLOSE_CURLY) {
-                    AbstractConfigNode previous = childrenCopy.get(i - 1);
+                    AbstractConfigNode previous = children.get(i - 1);
                     if (previous instanceof ConfigNodeSingleToken prevcnst &&
                             prevcnst.token() instanceof TokenWithOrigin.Line) {
-                        childrenCopy.add(i - 1, new ConfigNodeField(newNodes));
+                        children.add(i - 1, newField);
                         i--;
                     } else if (previous instanceof ConfigNodeSingleToken prevnst &&
                             prevnst.token() instanceof TokenWithOrigin.IgnoredWhitespace) {
-                        AbstractConfigNode beforePrevious = childrenCopy.get(i - 2);
+                        AbstractConfigNode beforePrevious = children.get(i - 2);
                         if (sameLine) {
-                            childrenCopy.add(i - 1, new ConfigNodeField(newNodes));
+                            children.add(i - 1, newField);
                             i--;
                         } else if (beforePrevious instanceof ConfigNodeSingleToken befPrevnst &&
                                 befPrevnst.token() instanceof TokenWithOrigin.Line) {
-                            childrenCopy.add(i - 2, new ConfigNodeField(newNodes));
+                            children.add(i - 2, newField);
                             i -= 2;
                         } else {
-                            childrenCopy.add(i, new ConfigNodeField(newNodes));
+                            children.add(i, newField);
                         }
 
                     } else
-                        childrenCopy.add(i, new ConfigNodeField(newNodes));
+                        children.add(i, newField);
+
+                    // only JSON or a setting on the same line needs anything more, a comma after the
+                    // setting before it; otherwise there's nothing left to do further up
+                    if (flavor != ConfigSyntax.JSON && !sameLine)
+                        break;
                 }
             }
         }
         if (!startsWithBrace) {
-            if (!childrenCopy.isEmpty() && childrenCopy.getLast() instanceof ConfigNodeSingleToken cnst &&
+            if (!children.isEmpty() && children.getLast() instanceof ConfigNodeSingleToken cnst &&
                     cnst.token() instanceof TokenWithOrigin.Line)
-                childrenCopy.add(childrenCopy.size() - 1, new ConfigNodeField(newNodes));
+                children.add(children.size() - 1, newField);
             else
-                childrenCopy.add(new ConfigNodeField(newNodes));
+                children.add(newField);
         }
-        return new ConfigNodeObject(childrenCopy);
+        addedField(newField, batch);
     }
 
     public ConfigNodeObject removeValueOnPath(String desiredPath, ConfigSyntax flavor) {
         Path path = PathParser.parsePathNode(desiredPath, flavor).value();
-        return changeValueOnPath(path, null, flavor);
+        EditBatch batch = newEditBatch();
+        ConfigNodeObject node = editable(batch);
+        node.changeValueInPlace(path, null, flavor, batch);
+        return node;
     }
 
     @Override
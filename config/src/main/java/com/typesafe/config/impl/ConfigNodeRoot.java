@@ -24,6 +24,14 @@ final class ConfigNodeRoot extends ConfigNodeComplexValue implements com.typesaf
         throw new ConfigException.BugOrBroken("Tried to indent the root object");
     }
 
+    ConfigOrigin baseOrigin() {
+        return origin;
+    }
+
+    ConfigNodeRoot withChildren(Collection<AbstractConfigNode> nodes) {
+        return new ConfigNodeRoot(nodes, origin);
+    }
+
     ConfigNodeComplexValue value() {
         for (AbstractConfigNode node : children) {
             if (node instanceof ConfigNodeComplexValue) {
@@ -39,19 +47,34 @@ final class ConfigNodeRoot extends ConfigNodeComplexValue implements com.typesaf
     }
 
     ConfigNodeRoot setValue(String desiredPath, AbstractConfigNodeValue value, ConfigSyntax flavor) {
-        ArrayList<AbstractConfigNode> childrenCopy = new ArrayList<>(children);
-        for (int i = 0; i < childrenCopy.size(); i++) {
-            AbstractConfigNode node = childrenCopy.get(i);
+        ConfigNodeRoot root = editable();
+        root.setValueInPlace(desiredPath, value, flavor, ConfigNodeObject.newEditBatch());
+        return root;
+    }
+
+    // A copy of this root whose children may be modified in place by a batch of edits
+    ConfigNodeRoot editable() {
+        return new ConfigNodeRoot(children, origin);
+    }
+
+    // Must only be called on a root returned by editable(), with the same batch for every edit
+    void setValueInPlace(String desiredPath, AbstractConfigNodeValue value, ConfigSyntax flavor, ConfigNodeObject.EditBatch batch) {
+        childrenChanged();
+        for (int i = 0; i < children.size(); i++) {
+            AbstractConfigNode node = children.get(i);
             if (node instanceof ConfigNodeComplexValue) {
                 if (node instanceof ConfigNodeArray) {
                     throw new ConfigException.WrongType(origin, "The ConfigDocument had an array at the root level, and values cannot be modified inside an array.");
                 } else if (node instanceof ConfigNodeObject configNodeObject) {
+                    ConfigNodeParsedPath path = PathParser.parsePathNode(desiredPath, flavor);
+                    ConfigNodeObject editable = configNodeObject.editable(batch);
+                    children.set(i, editable);
                     if (value == null) {
-                        childrenCopy.set(i, configNodeObject.removeValueOnPath(desiredPath, flavor));
+                        editable.changeValueInPlace(path.value(), null, flavor, batch);
                     } else {
-                        childrenCopy.set(i, configNodeObject.setValueOnPath(desiredPath, value, flavor));
+                        editable.setValueInPlace(path, value, flavor, batch);
                     }
-                    return new ConfigNodeRoot(childrenCopy, origin);
+                    return;
                 }
             }
         }
@@ -45,7 +45,7 @@ final class ConfigNull extends AbstractConfigValue implements Serializable, Conf
     }
 
     @Override
-    protected void render(StringBuilder sb, int indent, boolean atRoot, ConfigRenderOptions options) {
+    protected void render(RenderSink sb, int indent, boolean atRoot, ConfigRenderOptions options) {
         sb.append("null");
     }
 
@@ -15,10 +15,44 @@ final class ConfigParser {
                                      ConfigOrigin origin, ConfigParseOptions options,
                                      ConfigIncludeContext includeContext) {
         ParseContext context = new ParseContext(options.getSyntax(), origin, document,
-                SimpleIncluder.makeFull(options.getIncluder()), includeContext);
+                SimpleIncluder.makeFull(options.getIncluder()), includeContext, options.getPreserveKeyOrder(),
+                options.getPathFilter());
         return context.parse();
     }
 
+    // the newlines parseValue() would have counted in a node, so that line
+    // numbers stay right when it's skipped
+    static int countLines(AbstractConfigNode node) {
+        int lines = 0;
+        if (node instanceof ConfigNodeComplexValue complex) {
+            for (AbstractConfigNode child : complex.children()) {
+                if (child instanceof ConfigNodeField field)
+                    lines += countLines(field.value());
+                else if (child instanceof ConfigNodeSingleToken token && token.token() instanceof TokenWithOrigin.Line)
+                    lines += 1;
+                else
+                    lines += countLines(child);
+            }
+        }
+        return lines;
+    }
+
+    // whether parsing the node would include anything
+    static boolean hasIncludes(AbstractConfigNode node) {
+        return switch (node) {
+            case ConfigNodeInclude ignored -> true;
+            case ConfigNodeField field -> hasIncludes(field.value());
+            case ConfigNodeComplexValue complex -> {
+                for (AbstractConfigNode child : complex.children()) {
+                    if (hasIncludes(child))
+                        yield true;
+                }
+                yield false;
+            }
+            default -> false;
+        };
+    }
+
     static private final class ParseContext {
         final private ConfigNodeRoot document;
         final private FullIncluder includer;
@@ -26,6 +60,9 @@ final class ConfigParser {
         final private ConfigSyntax flavor;
         final private ConfigOrigin baseOrigin;
         final private LinkedList<Path> pathStack;
+        final private boolean preserveKeyOrder;
+        // the paths to keep settings under, or null to keep everything
+        final private List<Path> pathFilter;
         // the number of lists we are inside; this is used to detect the "cannot
         // generate a reference to a list element" problem, and once we fix that
         // problem we should be able to get rid of this variable.
@@ -33,7 +70,8 @@ final class ConfigParser {
         private int lineNumber;
 
         ParseContext(ConfigSyntax flavor, ConfigOrigin origin, ConfigNodeRoot document,
-                     FullIncluder includer, ConfigIncludeContext includeContext) {
+                     FullIncluder includer, ConfigIncludeContext includeContext, boolean preserveKeyOrder,
+                     List<String> pathFilter) {
             lineNumber = 1;
             this.document = document;
             this.flavor = flavor;
@@ -42,10 +80,58 @@ final class ConfigParser {
             this.includeContext = includeContext;
             this.pathStack = new LinkedList<>();
             this.arrayCount = 0;
+            this.preserveKeyOrder = preserveKeyOrder;
+            if (pathFilter != null) {
+                this.pathFilter = new ArrayList<>(pathFilter.size());
+                for (String p : pathFilter)
+                    this.pathFilter.add(Path.newPath(p));
+            } else {
+                this.pathFilter = null;
+            }
+        }
+
+        // whether the setting at the current path is kept: it's in the
+        // filter, under a path in the filter, or contains a path in the
+        // filter. Inside a list, the path doesn't say where we are, so
+        // everything is kept.
+        private boolean inFilter() {
+            if (pathFilter == null || arrayCount > 0)
+                return true;
+            Path path = fullCurrentPath();
+            for (Path p : pathFilter) {
+                if (path.startsWith(p) || p.startsWith(path))
+                    return true;
+            }
+            return false;
         }
 
-        private static AbstractConfigObject createValueUnderPath(Path path,
-                                                                 AbstractConfigValue value) {
+        // the filter for a file included at the current path, relative to
+        // that file's root; null if all of it is kept, empty if none of it is
+        private List<String> includedFilter() {
+            if (pathFilter == null || arrayCount > 0)
+                return null;
+            else if (pathStack.isEmpty())
+                return renderFilter(pathFilter);
+            Path prefix = fullCurrentPath();
+            List<Path> relative = new ArrayList<>();
+            for (Path p : pathFilter) {
+                if (prefix.startsWith(p))
+                    return null;
+                else if (p.startsWith(prefix))
+                    relative.add(p.subPath(prefix.length()));
+            }
+            return renderFilter(relative);
+        }
+
+        private static List<String> renderFilter(List<Path> filter) {
+            List<String> rendered = new ArrayList<>(filter.size());
+            for (Path p : filter)
+                rendered.add(p.render());
+            return rendered;
+        }
+
+        private AbstractConfigObject createValueUnderPath(Path path,
+                                                          AbstractConfigValue value) {
             // for path foo.bar, we are creating
             // { "foo" : { "bar" : value } }
             List<String> keys = new ArrayList<>();
@@ -68,13 +154,18 @@ final class ConfigParser {
             // "foo.bar" not also to "foo"
             ListIterator<String> i = keys.listIterator(keys.size());
             String deepest = i.previous();
-            AbstractConfigObject o = new SimpleConfigObject(value.origin().withComments(null),
+            SimpleConfigObject o = new SimpleConfigObject(value.origin().withComments(null),
                     Collections.singletonMap(
                             deepest, value));
+            if (preserveKeyOrder)
+                o = o.withKeyOrder(new String[]{deepest});
             while (i.hasPrevious()) {
+                String k = i.previous();
                 Map<String, AbstractConfigValue> m = Collections.singletonMap(
-                        i.previous(), o);
+                        k, o);
                 o = new SimpleConfigObject(value.origin().withComments(null), m);
+                if (preserveKeyOrder)
+                    o = o.withKeyOrder(new String[]{k});
             }
 
             return o;
@@ -148,7 +239,12 @@ final class ConfigParser {
 
         private void parseInclude(Map<String, AbstractConfigValue> values, ConfigNodeInclude n) {
             boolean isRequired = n.isRequired();
-            ConfigIncludeContext cic = includeContext.setParseOptions(includeContext.parseOptions().setAllowMissing(!isRequired));
+            List<String> filter = includedFilter();
+            // nothing in the included file would be kept, so don't load it
+            if (filter != null && filter.isEmpty())
+                return;
+            ConfigIncludeContext cic = includeContext.setParseOptions(includeContext.parseOptions()
+                    .setAllowMissing(!isRequired).setPathFilter(filter));
 
             AbstractConfigObject obj;
             switch (n.kind()) {
@@ -193,7 +289,10 @@ final class ConfigParser {
                 obj = obj.relativized(prefix);
             }
 
-            for (String key : obj.keySet()) {
+            Iterable<String> keys = obj.keySet();
+            if (obj instanceof SimpleConfigObject simple && simple.keyOrder() != null)
+                keys = Arrays.asList(simple.keyOrder());
+            for (String key : keys) {
                 AbstractConfigValue v = obj.get(key);
                 AbstractConfigValue existing = values.get(key);
                 if (existing != null) {
@@ -205,7 +304,9 @@ final class ConfigParser {
         }
 
         private AbstractConfigObject parseObject(ConfigNodeObject n) {
-            Map<String, AbstractConfigValue> values = new HashMap<>();
+            // a LinkedHashMap keeps the position of a key when it's put
+            // again, which is what a duplicate key or an include does
+            Map<String, AbstractConfigValue> values = preserveKeyOrder ? new LinkedHashMap<>() : new HashMap<>();
             SimpleConfigOrigin objectOrigin = lineOrigin();
             boolean lastWasNewline = false;
 
@@ -233,6 +334,20 @@ final class ConfigParser {
 
                     // path must be on-stack while we parse the value
                     pathStack.push(path);
+                    if (!inFilter()) {
+                        // skip the value, and any comment after it as below
+                        lineNumber += countLines(((ConfigNodeField) node).value());
+                        while (i + 1 < nodes.size() && (nodes.get(i + 1) instanceof ConfigNodeComment
+                                || (nodes.get(i + 1) instanceof ConfigNodeSingleToken curr
+                                && (curr.token() == StaticToken.COMMA || curr.token() instanceof TokenWithOrigin.IgnoredWhitespace)))) {
+                            i++;
+                            if (nodes.get(i) instanceof ConfigNodeComment)
+                                break;
+                        }
+                        comments.clear();
+                        pathStack.pop();
+                        continue;
+                    }
                     if (((ConfigNodeField) node).separator() == StaticToken.PLUS_EQUALS) {
                         // we really should make this work, but for now throwing
                         // an exception is better than producing an incorrect
@@ -334,7 +449,11 @@ final class ConfigParser {
                 }
             }
 
-            return new SimpleConfigObject(objectOrigin, values);
+            SimpleConfigObject object = new SimpleConfigObject(objectOrigin, values);
+            if (preserveKeyOrder)
+                return object.withKeyOrder(values.keySet().toArray(new String[0]));
+            else
+                return object;
         }
 
         private SimpleConfigList parseArray(ConfigNodeArray n) {
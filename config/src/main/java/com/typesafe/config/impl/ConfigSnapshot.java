@@ -0,0 +1,496 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config.impl;
+
+import com.typesafe.config.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Reads and writes a binary snapshot of a resolved config that is meant to be
+ * memory-mapped rather than read onto the heap. Objects are stored as
+ * key-sorted offset tables, so looking up a key is a binary search over the
+ * mapped bytes, and a value is only decoded the first time somebody asks for
+ * it. Since the file is mapped read-only, every JVM on a host that opens the
+ * same snapshot shares one copy of it in the page cache.
+ *
+ * <p>
+ * The layout is deliberately dumb. All integers are big-endian and all offsets
+ * are absolute positions in the file:
+ *
+ * <pre>
+ *   header:  "HCSN" magic, int version, int offset of the root object
+ *   value:   byte tag, then depending on the tag
+ *     NULL     nothing
+ *     BOOLEAN  byte 0 or 1
+ *     INT      int
+ *     LONG     long
+ *     DOUBLE   double
+ *     STRING   int byte length, UTF-8 bytes
+ *     LIST     int count, count * int value offset
+ *     OBJECT   int count, count * (int key offset, int value offset),
+ *              sorted by the unsigned UTF-8 bytes of the key
+ *   key:     int byte length, UTF-8 bytes (a STRING without the tag)
+ * </pre>
+ *
+ * Values are written before the containers that point to them, so the writer
+ * never has to seek back. Origins, comments and the original text of numbers
+ * are not kept; every value in a snapshot has the snapshot file as its origin.
+ * Offsets are ints because a single mapping can't exceed 2G anyway.
+ */
+final class ConfigSnapshot {
+
+    private static final byte[] MAGIC = {'H', 'C', 'S', 'N'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 4 + 4;
+
+    // the numbers here are in the file format, caution
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_BOOLEAN = 1;
+    private static final byte TAG_INT = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_STRING = 5;
+    private static final byte TAG_LIST = 6;
+    private static final byte TAG_OBJECT = 7;
+
+    private ConfigSnapshot() {
+    }
+
+    static void write(AbstractConfigObject root, File file) {
+        if (root.resolveStatus() != ResolveStatus.RESOLVED)
+            throw new ConfigException.NotResolved(
+                    "need to Config#resolve() before writing a config snapshot, see the API docs for Config#resolve()");
+
+        SnapshotWriter writer = new SnapshotWriter();
+        int rootOffset;
+        try {
+            rootOffset = writer.writeValue(root);
+        } catch (IOException e) {
+            // ByteArrayOutputStream doesn't really throw
+            throw new ConfigException.BugOrBroken("unexpected exception writing snapshot to memory", e);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rootOffset);
+            writer.bytes.writeTo(out);
+        } catch (IOException e) {
+            throw new ConfigException.IO(SimpleConfigOrigin.newFile(file.getPath()),
+                    e.getClass().getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    static SimpleConfig open(File file) {
+        SimpleConfigOrigin origin = SimpleConfigOrigin.newFile(file.getPath());
+        if (ConfigImpl.traceLoadsEnabled())
+            ConfigImpl.trace("Mapping config snapshot from a file: " + file);
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new ConfigException.Parse(origin, "config snapshot is larger than 2G and can't be mapped");
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new ConfigException.IO(origin, e.getClass().getName() + ": " + e.getMessage(), e);
+        }
+
+        if (buffer.limit() < HEADER_SIZE)
+            throw new ConfigException.Parse(origin, "not a config snapshot (file is too short)");
+        for (int i = 0; i < MAGIC.length; ++i) {
+            if (buffer.get(i) != MAGIC[i])
+                throw new ConfigException.Parse(origin, "not a config snapshot (bad magic number)");
+        }
+        int version = buffer.getInt(MAGIC.length);
+        if (version != VERSION)
+            throw new ConfigException.Parse(origin, "config snapshot has version " + version
+                    + " but this library only reads version " + VERSION);
+
+        SnapshotReader reader = new SnapshotReader(buffer, origin);
+        int rootOffset = buffer.getInt(MAGIC.length + 4);
+        if (rootOffset < HEADER_SIZE || rootOffset >= buffer.limit())
+            throw reader.corrupt("bad root offset " + rootOffset, MAGIC.length + 4);
+        AbstractConfigValue root = reader.valueAt(rootOffset);
+        if (root instanceof AbstractConfigObject object) {
+            return object.toConfig();
+        } else {
+            throw new ConfigException.Parse(origin, "config snapshot root is " + root.valueType().name()
+                    + " rather than an object");
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record SortedKey(byte[] utf8, String key) {
+    }
+
+    private static final class SnapshotWriter {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        private int position() {
+            return HEADER_SIZE + bytes.size();
+        }
+
+        private int writeKey(byte[] key) throws IOException {
+            int offset = position();
+            out.writeInt(key.length);
+            out.write(key);
+            return offset;
+        }
+
+        int writeValue(AbstractConfigValue value) throws IOException {
+            switch (value) {
+                case AbstractConfigObject object -> {
+                    List<SortedKey> keys = new ArrayList<>(object.size());
+                    for (String k : object.keySet()) {
+                        keys.add(new SortedKey(utf8(k), k));
+                    }
+                    keys.sort((a, b) -> Arrays.compareUnsigned(a.utf8(), b.utf8()));
+
+                    int[] table = new int[keys.size() * 2];
+                    for (int i = 0; i < keys.size(); ++i) {
+                        table[i * 2] = writeKey(keys.get(i).utf8());
+                        table[i * 2 + 1] = writeValue(object.get(keys.get(i).key()));
+                    }
+
+                    int offset = position();
+                    out.writeByte(TAG_OBJECT);
+                    out.writeInt(keys.size());
+                    for (int entry : table) {
+                        out.writeInt(entry);
+                    }
+                    return offset;
+                }
+                case SimpleConfigList list -> {
+                    int[] table = new int[list.size()];
+                    for (int i = 0; i < table.length; ++i) {
+                        table[i] = writeValue(list.get(i));
+                    }
+
+                    int offset = position();
+                    out.writeByte(TAG_LIST);
+                    out.writeInt(table.length);
+                    for (int element : table) {
+                        out.writeInt(element);
+                    }
+                    return offset;
+                }
+                default -> {
+                    int offset = position();
+                    writeScalar(value);
+                    return offset;
+                }
+            }
+        }
+
+        private void writeScalar(AbstractConfigValue value) throws IOException {
+            switch (value) {
+                case ConfigNull n -> out.writeByte(TAG_NULL);
+                case ConfigBoolean b -> {
+                    out.writeByte(TAG_BOOLEAN);
+                    out.writeBoolean(b.unwrapped());
+                }
+                case ConfigInt i -> {
+                    out.writeByte(TAG_INT);
+                    out.writeInt(i.unwrapped());
+                }
+                case ConfigLong l -> {
+                    out.writeByte(TAG_LONG);
+                    out.writeLong(l.unwrapped());
+                }
+                case ConfigDouble d -> {
+                    out.writeByte(TAG_DOUBLE);
+                    out.writeDouble(d.unwrapped());
+                }
+                case ConfigString s -> {
+                    byte[] b = utf8(s.unwrapped());
+                    out.writeByte(TAG_STRING);
+                    out.writeInt(b.length);
+                    out.write(b);
+                }
+                default -> throw new ConfigException.BugOrBroken("don't know how to snapshot " + value);
+            }
+        }
+    }
+
+    /**
+     * Decodes values out of the mapped buffer. Every read goes through the
+     * bounds-checked accessors here, so a truncated or corrupt file fails with
+     * a {@link ConfigException.Parse} naming the snapshot, whenever the bad
+     * part happens to be decoded, rather than with an
+     * IndexOutOfBoundsException or an absurd allocation. Containers may only
+     * point backwards (the writer puts children first), which also rules out
+     * cycles.
+     */
+    private static final class SnapshotReader {
+        final ByteBuffer buffer;
+        final SimpleConfigOrigin origin;
+
+        SnapshotReader(ByteBuffer buffer, SimpleConfigOrigin origin) {
+            this.buffer = buffer;
+            this.origin = origin;
+        }
+
+        ConfigException corrupt(String what, int offset) {
+            return new ConfigException.Parse(origin, "corrupt config snapshot: " + what + " at offset " + offset
+                    + " (file is " + buffer.limit() + " bytes)");
+        }
+
+        // only absolute get() methods are used, so this is safe to share
+        // between threads without duplicating the buffer
+        private void check(int offset, long length) {
+            if (offset < HEADER_SIZE || length < 0 || offset + length > buffer.limit())
+                throw corrupt(length < 0 ? "negative length" : "data out of range", offset);
+        }
+
+        byte byteAt(int offset) {
+            check(offset, 1);
+            return buffer.get(offset);
+        }
+
+        int intAt(int offset) {
+            check(offset, 4);
+            return buffer.getInt(offset);
+        }
+
+        // an offset stored in a container, which must point back to
+        // something written before the container
+        int childOffsetAt(int offset, int container) {
+            int child = intAt(offset);
+            if (child < HEADER_SIZE || child >= container)
+                throw corrupt("bad offset " + child, offset);
+            return child;
+        }
+
+        // a count of fixed-size table entries following offset, checked
+        // against what's left of the file before anything is allocated
+        int countAt(int offset, int entrySize) {
+            int count = intAt(offset);
+            check(offset + 4, (long) count * entrySize);
+            return count;
+        }
+
+        String stringAt(int offset) {
+            byte[] b = new byte[countAt(offset, 1)];
+            buffer.get(offset + 4, b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        // compares the key stored at offset with the given UTF-8 bytes,
+        // without decoding the stored key
+        int compareKeyAt(int offset, byte[] key) {
+            int length = countAt(offset, 1);
+            int n = Math.min(length, key.length);
+            for (int i = 0; i < n; ++i) {
+                int c = Byte.compareUnsigned(buffer.get(offset + 4 + i), key[i]);
+                if (c != 0)
+                    return c;
+            }
+            return Integer.compare(length, key.length);
+        }
+
+        AbstractConfigValue valueAt(int offset) {
+            byte tag = byteAt(offset);
+            int data = offset + 1;
+            switch (tag) {
+                case TAG_NULL:
+                    return new ConfigNull(origin);
+                case TAG_BOOLEAN:
+                    return new ConfigBoolean(origin, byteAt(data) != 0);
+                case TAG_INT:
+                    return new ConfigInt(origin, intAt(data), null);
+                case TAG_LONG:
+                    check(data, 8);
+                    return new ConfigLong(origin, buffer.getLong(data), null);
+                case TAG_DOUBLE:
+                    check(data, 8);
+                    return new ConfigDouble(origin, buffer.getDouble(data), null);
+                case TAG_STRING:
+                    return new ConfigString.Quoted(origin, stringAt(data));
+                case TAG_LIST:
+                    int count = countAt(data, 4);
+                    List<AbstractConfigValue> list = new ArrayList<>(count);
+                    for (int i = 0; i < count; ++i) {
+                        list.add(valueAt(childOffsetAt(data + 4 + i * 4, offset)));
+                    }
+                    return new SimpleConfigList(origin, list, ResolveStatus.RESOLVED);
+                case TAG_OBJECT:
+                    return SimpleConfigObject.fromResolvedMap(origin,
+                            new SnapshotObjectMap(this, offset, data + 4, countAt(data, 8)));
+                default:
+                    throw corrupt("unknown value tag " + tag, offset);
+            }
+        }
+    }
+
+    /**
+     * The backing map of a snapshot object. Keys and values are decoded on
+     * demand and remembered, so asking for one key of a huge object only
+     * touches the pages on the binary search path plus the value itself. The
+     * caches are filled racily, which is harmless since the decoded values are
+     * immutable and equal no matter which thread decodes them.
+     */
+    private static final class SnapshotObjectMap extends AbstractMap<String, AbstractConfigValue> {
+        final private SnapshotReader reader;
+        final private int offset;
+        final private int table;
+        final private int size;
+        final private String[] keys;
+        final private AbstractConfigValue[] values;
+
+        SnapshotObjectMap(SnapshotReader reader, int offset, int table, int size) {
+            this.reader = reader;
+            this.offset = offset;
+            this.table = table;
+            this.size = size;
+            this.keys = new String[size];
+            this.values = new AbstractConfigValue[size];
+        }
+
+        private int keyOffset(int i) {
+            return reader.childOffsetAt(table + i * 8, offset);
+        }
+
+        private int valueOffset(int i) {
+            return reader.childOffsetAt(table + i * 8 + 4, offset);
+        }
+
+        private int indexOf(Object key) {
+            if (!(key instanceof String s))
+                return -1;
+            byte[] wanted = utf8(s);
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int c = reader.compareKeyAt(keyOffset(mid), wanted);
+                if (c < 0)
+                    low = mid + 1;
+                else if (c > 0)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return -1;
+        }
+
+        private String keyAt(int i) {
+            String k = keys[i];
+            if (k == null) {
+                k = reader.stringAt(keyOffset(i));
+                // a key that iteration hands out has to be found by get()
+                // too, which it won't be if the table isn't sorted
+                if (indexOf(k) != i)
+                    throw reader.corrupt("object keys out of order", keyOffset(i));
+                keys[i] = k;
+            }
+            return k;
+        }
+
+        private AbstractConfigValue valueAt(int i) {
+            AbstractConfigValue v = values[i];
+            if (v == null) {
+                v = reader.valueAt(valueOffset(i));
+                values[i] = v;
+            }
+            return v;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public AbstractConfigValue get(Object key) {
+            int i = indexOf(key);
+            return i < 0 ? null : valueAt(i);
+        }
+
+        // overridden so that walking the keys doesn't decode the values
+        @Override
+        public Set<String> keySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return new IndexIterator<>() {
+                        @Override
+                        String at(int i) {
+                            return keyAt(i);
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        @Override
+        public Set<Map.Entry<String, AbstractConfigValue>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, AbstractConfigValue>> iterator() {
+                    return new IndexIterator<>() {
+                        @Override
+                        Map.Entry<String, AbstractConfigValue> at(int i) {
+                            return new AbstractMap.SimpleImmutableEntry<>(keyAt(i), valueAt(i));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        private abstract class IndexIterator<T> implements Iterator<T> {
+            private int next = 0;
+
+            abstract T at(int i);
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public T next() {
+                if (next >= size)
+                    throw new NoSuchElementException();
+                return at(next++);
+            }
+        }
+    }
+}
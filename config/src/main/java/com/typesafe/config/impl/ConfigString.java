@@ -55,16 +55,14 @@ abstract class ConfigString extends AbstractConfigValue implements Serializable,
     }
 
     @Override
-    protected void render(StringBuilder sb, int indent, boolean atRoot, ConfigRenderOptions options) {
+    protected void render(RenderSink sb, int indent, boolean atRoot, ConfigRenderOptions options) {
         if (hideEnvVariableValue(options)) {
             appendHiddenEnvVariableValue(sb);
         } else {
-            String rendered;
             if (options.getJson())
-                rendered = ConfigImplUtil.renderJsonString(value);
+                sb.appendJsonString(value);
             else
-                rendered = ConfigImplUtil.renderStringUnquotedIfPossible(value);
-            sb.append(rendered);
+                sb.appendStringUnquotedIfPossible(value);
         }
     }
 
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config.impl;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Records which files a load looked at, whether or not they existed, so
+ * that a {@link SimpleConfigWatcher} knows what to watch. It also keeps the
+ * parsed value of every file without includes, and hands values from the
+ * previous load back out for files that haven't changed since, so a reload
+ * only parses the files that changed.
+ *
+ * <p>
+ * Tracking is per thread, and only active inside {@link #run} and on the
+ * threads a parse inside it hands work to.
+ */
+final class FileTracking {
+    // while no thread is inside run(), which is whenever no watcher is
+    // reloading, the thread-local isn't looked at, so parses that aren't
+    // being tracked don't pay for it
+    private static final ThreadLocal<FileTracking> current = new ThreadLocal<>();
+    private static final AtomicInteger activeRuns = new AtomicInteger();
+
+    private final Set<Path> files = ConcurrentHashMap.newKeySet();
+    private final Map<ParsedFileCache.Key, AbstractConfigValue> previous;
+    private final Map<ParsedFileCache.Key, AbstractConfigValue> parsed = new ConcurrentHashMap<>();
+
+    FileTracking(FileTracking previous) {
+        this.previous = previous == null ? Map.of() : previous.parsed;
+    }
+
+    static FileTracking current() {
+        if (activeRuns.get() == 0)
+            return null;
+        return current.get();
+    }
+
+    // for the workers of a parallel parse, which run on other threads while
+    // the run() that started the parse is still active
+    static void setCurrent(FileTracking tracking) {
+        if (tracking == null)
+            current.remove();
+        else
+            current.set(tracking);
+    }
+
+    <T> T run(Supplier<T> body) {
+        FileTracking saved = current.get();
+        activeRuns.incrementAndGet();
+        current.set(this);
+        try {
+            return body.get();
+        } finally {
+            setCurrent(saved);
+            activeRuns.decrementAndGet();
+        }
+    }
+
+    static void record(Path file) {
+        FileTracking tracking = current();
+        if (tracking != null)
+            tracking.files.add(file.toAbsolutePath().normalize());
+    }
+
+    Set<Path> files() {
+        return Set.copyOf(files);
+    }
+
+    AbstractConfigValue get(ParsedFileCache.Key key) {
+        AbstractConfigValue value = previous.get(key);
+        if (value != null)
+            parsed.put(key, value);
+        return value;
+    }
+
+    void put(ParsedFileCache.Key key, AbstractConfigValue value) {
+        parsed.put(key, value);
+    }
+}
@@ -0,0 +1,478 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config.impl;
+
+import java.io.Serial;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * An immutable hash array mapped trie. Adding or removing one key copies only
+ * the nodes on the path to that key (at most seven levels of up to 32 slots)
+ * and shares everything else with the original map, so a chain of
+ * withValue() calls on a big object doesn't copy the whole object each time
+ * the way a HashMap would.
+ *
+ * <p>
+ * Null keys and null values are not supported, which is fine since
+ * config objects never contain either.
+ */
+final class HashTrieMap<K, V> extends AbstractMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    // 32-bit hashes consumed 5 bits at a time is 7 levels, plus one
+    // level of collision node at the bottom
+    private static final int MAX_DEPTH = 8;
+
+    private static final HashTrieMap<?, ?> EMPTY = new HashTrieMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private HashTrieMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> HashTrieMap<K, V> empty() {
+        return (HashTrieMap<K, V>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> HashTrieMap<K, V> from(Map<K, ? extends V> map) {
+        if (map instanceof HashTrieMap)
+            return (HashTrieMap<K, V>) map;
+        HashTrieMap<K, V> result = empty();
+        for (Map.Entry<K, ? extends V> e : map.entrySet()) {
+            result = result.plus(e.getKey(), e.getValue());
+        }
+        return result;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    HashTrieMap<K, V> plus(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException("HashTrieMap does not support null keys or values");
+        Leaf leaf = new Leaf(key, value, hash(key));
+        Change change = new Change();
+        Node newRoot = root.plus(leaf, 0, change);
+        if (newRoot == root)
+            return this;
+        else
+            return new HashTrieMap<>(newRoot, change.added ? size + 1 : size);
+    }
+
+    HashTrieMap<K, V> minus(Object key) {
+        if (key == null)
+            return this;
+        Node newRoot = root.minus(key, hash(key), 0);
+        if (newRoot == root)
+            return this;
+        else
+            return new HashTrieMap<>(newRoot, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        if (key == null)
+            return null;
+        Leaf leaf = root.find(key, hash(key), 0);
+        return leaf == null ? null : (V) leaf.getValue();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && root.find(key, hash(key), 0) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new LeafIterator<>(root);
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry<?, ?> e) || e.getKey() == null)
+                    return false;
+                Leaf leaf = root.find(e.getKey(), hash(e.getKey()), 0);
+                return leaf != null && leaf.equals(e);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * What {@link #diff} reports for each key whose value isn't the same
+     * object in both maps.
+     */
+    interface DiffVisitor<K, V> {
+        void onlyInThis(K key, V value);
+
+        void onlyInOther(K key, V value);
+
+        void different(K key, V thisValue, V otherValue);
+    }
+
+    /**
+     * Reports the keys whose values differ between this map and the other,
+     * where differ means not the same object. Subtrees the two maps share,
+     * as maps made from one another with plus() and minus() mostly do, are
+     * skipped without being looked into, so this costs about as much as the
+     * changes between the two maps rather than their size.
+     */
+    @SuppressWarnings("unchecked")
+    void diff(HashTrieMap<K, V> other, DiffVisitor<? super K, ? super V> visitor) {
+        diffSlots(root, other.root, 0, (DiffVisitor<Object, Object>) visitor);
+    }
+
+    // compares two slots at the same place in the two tries, where shift is
+    // the level of the slots themselves; a slot that isn't there is null
+    private static void diffSlots(Object a, Object b, int shift, DiffVisitor<Object, Object> visitor) {
+        if (a == b)
+            return;
+        if (a instanceof BitmapNode nodeA && b instanceof BitmapNode nodeB) {
+            int bits = nodeA.bitmap | nodeB.bitmap;
+            while (bits != 0) {
+                int bit = bits & -bits;
+                bits &= bits - 1;
+                Object slotA = (nodeA.bitmap & bit) != 0 ? nodeA.slots[nodeA.index(bit)] : null;
+                Object slotB = (nodeB.bitmap & bit) != 0 ? nodeB.slots[nodeB.index(bit)] : null;
+                diffSlots(slotA, slotB, shift + BITS, visitor);
+            }
+            return;
+        }
+        // the shapes differ (a leaf where the other has a node, or a
+        // collision node), so compare the few leaves in here by key
+        forEachLeaf(a, leaf -> {
+            Leaf match = findIn(b, leaf.getKey(), leaf.hash, shift);
+            if (match == null)
+                visitor.onlyInThis(leaf.getKey(), leaf.getValue());
+            else if (match.getValue() != leaf.getValue())
+                visitor.different(leaf.getKey(), leaf.getValue(), match.getValue());
+        });
+        forEachLeaf(b, leaf -> {
+            if (findIn(a, leaf.getKey(), leaf.hash, shift) == null)
+                visitor.onlyInOther(leaf.getKey(), leaf.getValue());
+        });
+    }
+
+    private static Leaf findIn(Object slot, Object key, int hash, int shift) {
+        if (slot instanceof Leaf leaf)
+            return leaf.hash == hash && leaf.getKey().equals(key) ? leaf : null;
+        else if (slot instanceof Node node)
+            return node.find(key, hash, shift);
+        else
+            return null;
+    }
+
+    private static void forEachLeaf(Object slot, Consumer<Leaf> action) {
+        if (slot instanceof Leaf leaf) {
+            action.accept(leaf);
+        } else if (slot instanceof Node node) {
+            for (Object child : node.slots)
+                forEachLeaf(child, action);
+        }
+    }
+
+    // the key and value are kept as Object so that nodes don't need type
+    // parameters; the map casts on the way out.
+    private static final class Leaf extends AbstractMap.SimpleImmutableEntry<Object, Object> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        final int hash;
+
+        Leaf(Object key, Object value, int hash) {
+            super(key, value);
+            this.hash = hash;
+        }
+    }
+
+    private static final class Change {
+        boolean added = false;
+    }
+
+    private static abstract class Node {
+        // each slot is either a Leaf or a child Node
+        final Object[] slots;
+
+        Node(Object[] slots) {
+            this.slots = slots;
+        }
+
+        abstract Leaf find(Object key, int hash, int shift);
+
+        // returns this if nothing changed
+        abstract Node plus(Leaf leaf, int shift, Change change);
+
+        // returns this if the key wasn't there
+        abstract Node minus(Object key, int hash, int shift);
+
+        // if this node holds nothing but one leaf, the parent stores the
+        // leaf directly instead of the node
+        final Leaf singleLeaf() {
+            if (slots.length == 1 && slots[0] instanceof Leaf leaf)
+                return leaf;
+            else
+                return null;
+        }
+    }
+
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            super(slots);
+            this.bitmap = bitmap;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Leaf find(Object key, int hash, int shift) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0)
+                return null;
+            Object slot = slots[index(bit)];
+            if (slot instanceof Leaf leaf) {
+                if (leaf.hash == hash && leaf.getKey().equals(key))
+                    return leaf;
+                else
+                    return null;
+            } else {
+                return ((Node) slot).find(key, hash, shift + BITS);
+            }
+        }
+
+        @Override
+        Node plus(Leaf leaf, int shift, Change change) {
+            int bit = bitpos(leaf.hash, shift);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, i);
+                newSlots[i] = leaf;
+                System.arraycopy(slots, i, newSlots, i + 1, slots.length - i);
+                change.added = true;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+
+            Object slot = slots[i];
+            Object replacement;
+            if (slot instanceof Leaf existing) {
+                if (existing.hash == leaf.hash && existing.getKey().equals(leaf.getKey())) {
+                    if (existing.getValue() == leaf.getValue())
+                        return this;
+                    replacement = leaf;
+                } else {
+                    replacement = merge(existing, leaf, shift + BITS);
+                    change.added = true;
+                }
+            } else {
+                Node child = (Node) slot;
+                Node newChild = child.plus(leaf, shift + BITS, change);
+                if (newChild == child)
+                    return this;
+                replacement = newChild;
+            }
+            return withSlot(i, replacement);
+        }
+
+        @Override
+        Node minus(Object key, int hash, int shift) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0)
+                return this;
+            int i = index(bit);
+            Object slot = slots[i];
+            if (slot instanceof Leaf leaf) {
+                if (leaf.hash == hash && leaf.getKey().equals(key))
+                    return withoutSlot(i, bit);
+                else
+                    return this;
+            } else {
+                Node child = (Node) slot;
+                Node newChild = child.minus(key, hash, shift + BITS);
+                if (newChild == child)
+                    return this;
+                else if (newChild.slots.length == 0)
+                    return withoutSlot(i, bit);
+
+                Leaf single = newChild.singleLeaf();
+                return withSlot(i, single != null ? single : newChild);
+            }
+        }
+
+        private BitmapNode withSlot(int i, Object slot) {
+            Object[] newSlots = slots.clone();
+            newSlots[i] = slot;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        private BitmapNode withoutSlot(int i, int bit) {
+            if (slots.length == 1)
+                return EMPTY;
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, i);
+            System.arraycopy(slots, i + 1, newSlots, i, slots.length - i - 1);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+
+        private static Node merge(Leaf a, Leaf b, int shift) {
+            if (a.hash == b.hash)
+                return new CollisionNode(a.hash, new Object[]{a, b});
+
+            int bitA = bitpos(a.hash, shift);
+            int bitB = bitpos(b.hash, shift);
+            if (bitA == bitB) {
+                return new BitmapNode(bitA, new Object[]{merge(a, b, shift + BITS)});
+            } else if (Integer.compareUnsigned(bitA, bitB) < 0) {
+                return new BitmapNode(bitA | bitB, new Object[]{a, b});
+            } else {
+                return new BitmapNode(bitA | bitB, new Object[]{b, a});
+            }
+        }
+    }
+
+    // keys whose whole 32-bit hash is the same, in no particular order
+    private static final class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(int hash, Object[] slots) {
+            super(slots);
+            this.hash = hash;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < slots.length; ++i) {
+                if (((Leaf) slots[i]).getKey().equals(key))
+                    return i;
+            }
+            return -1;
+        }
+
+        @Override
+        Leaf find(Object key, int hash, int shift) {
+            if (hash != this.hash)
+                return null;
+            int i = indexOf(key);
+            return i < 0 ? null : (Leaf) slots[i];
+        }
+
+        @Override
+        Node plus(Leaf leaf, int shift, Change change) {
+            if (leaf.hash != hash) {
+                // push this node down one level next to the new leaf
+                BitmapNode wrapper = new BitmapNode(bitpos(hash, shift), new Object[]{this});
+                return wrapper.plus(leaf, shift, change);
+            }
+            int i = indexOf(leaf.getKey());
+            Object[] newSlots;
+            if (i < 0) {
+                newSlots = Arrays.copyOf(slots, slots.length + 1);
+                newSlots[slots.length] = leaf;
+                change.added = true;
+            } else if (((Leaf) slots[i]).getValue() == leaf.getValue()) {
+                return this;
+            } else {
+                newSlots = slots.clone();
+                newSlots[i] = leaf;
+            }
+            return new CollisionNode(hash, newSlots);
+        }
+
+        @Override
+        Node minus(Object key, int hash, int shift) {
+            if (hash != this.hash)
+                return this;
+            int i = indexOf(key);
+            if (i < 0)
+                return this;
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, i);
+            System.arraycopy(slots, i + 1, newSlots, i, slots.length - i - 1);
+            return new CollisionNode(hash, newSlots);
+        }
+    }
+
+    private static final class LeafIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth;
+        private Leaf next;
+
+        LeafIterator(Node root) {
+            arrays[0] = root.slots;
+            depth = 0;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Object[] slots = arrays[depth];
+                if (positions[depth] < slots.length) {
+                    Object slot = slots[positions[depth]++];
+                    if (slot instanceof Leaf leaf) {
+                        next = leaf;
+                        return;
+                    } else {
+                        depth += 1;
+                        arrays[depth] = ((Node) slot).slots;
+                        positions[depth] = 0;
+                    }
+                } else {
+                    arrays[depth] = null;
+                    depth -= 1;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null)
+                throw new NoSuchElementException();
+            Leaf leaf = next;
+            advance();
+            return (Map.Entry<K, V>) (Map.Entry<?, ?>) leaf;
+        }
+    }
+}
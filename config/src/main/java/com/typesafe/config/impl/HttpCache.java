@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config.impl;
+
+import com.typesafe.config.ConfigOrigin;
+import com.typesafe.config.ConfigParseOptions;
+import com.typesafe.config.ConfigSyntax;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLConnection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The last response for each config fetched over HTTP that came with an
+ * {@code ETag} or {@code Last-Modified} header, so that fetching it again
+ * can be a conditional request. When the server answers 304 Not Modified,
+ * the remembered body is used instead, and if it was parsed with the same
+ * origin and options before and has no includes, so is the parsed value.
+ *
+ * <p>
+ * Responses are kept per URI and {@code Accept} header, since a server may
+ * serve different syntaxes from one URI. The cache holds a bounded number of
+ * responses and is emptied by {@link com.typesafe.config.ConfigFactory#invalidateCaches()}.
+ */
+final class HttpCache {
+    private static final int MAX_ENTRIES = 64;
+
+    private static final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true /* accessOrder */) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private record Key(URI uri, String accept) {
+    }
+
+    private record Parsed(ConfigOrigin origin, ConfigSyntax syntax, boolean keyOrder, List<String> pathFilter,
+                          AbstractConfigValue value) {
+    }
+
+    static final class Entry {
+        final String etag;
+        final String lastModified;
+        final String contentType;
+        final byte[] body;
+        // the value parsed from the body, if it had no includes
+        private volatile Parsed parsed = null;
+
+        private Entry(String etag, String lastModified, String contentType, byte[] body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        AbstractConfigValue parsed(ConfigOrigin origin, ConfigParseOptions options) {
+            Parsed p = parsed;
+            if (p != null && p.origin.equals(origin) && p.syntax == options.getSyntax()
+                    && p.keyOrder == options.getPreserveKeyOrder()
+                    && Objects.equals(p.pathFilter, options.getPathFilter()))
+                return p.value;
+            else
+                return null;
+        }
+
+        void setParsed(ConfigOrigin origin, ConfigParseOptions options, AbstractConfigValue value) {
+            parsed = new Parsed(origin, options.getSyntax(), options.getPreserveKeyOrder(),
+                    options.getPathFilter(), value);
+        }
+    }
+
+    private HttpCache() {
+    }
+
+    static boolean handles(URLConnection connection) {
+        return connection instanceof HttpURLConnection;
+    }
+
+    // null if there's nothing to make the request conditional on
+    static Entry get(URI uri, String accept) {
+        synchronized (entries) {
+            return entries.get(new Key(uri, accept));
+        }
+    }
+
+    static void addConditions(URLConnection connection, Entry entry) {
+        if (entry.etag != null)
+            connection.setRequestProperty("If-None-Match", entry.etag);
+        if (entry.lastModified != null)
+            connection.setRequestProperty("If-Modified-Since", entry.lastModified);
+    }
+
+    /**
+     * Checks for a 304 Not Modified answer, and if it is one, finishes with
+     * the response: there's no body to read, but the stream still has to be
+     * drained and closed so the connection is released.
+     */
+    static boolean notModified(URLConnection connection) throws IOException {
+        HttpURLConnection http = (HttpURLConnection) connection;
+        if (http.getResponseCode() != HttpURLConnection.HTTP_NOT_MODIFIED)
+            return false;
+        try (InputStream body = http.getInputStream()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            // the cached body is used either way, so just make sure the
+            // connection isn't left open
+            http.disconnect();
+        }
+        return true;
+    }
+
+    /**
+     * Reads the whole body of a successful response and remembers it, if the
+     * response can be revalidated later. Returns null, without reading
+     * anything, if it can't.
+     */
+    static Entry remember(URI uri, String accept, URLConnection connection, String contentType,
+                          InputStream body) throws IOException {
+        String etag = connection.getHeaderField("ETag");
+        String lastModified = connection.getHeaderField("Last-Modified");
+        Key key = new Key(uri, accept);
+        if (etag == null && lastModified == null) {
+            synchronized (entries) {
+                entries.remove(key);
+            }
+            return null;
+        }
+        byte[] bytes;
+        try (InputStream in = body) {
+            bytes = in.readAllBytes();
+        }
+        Entry entry = new Entry(etag, lastModified, contentType, bytes);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    static void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+}
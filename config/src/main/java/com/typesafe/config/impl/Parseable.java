@@ -5,12 +5,19 @@ package com.typesafe.config.impl;
 
 import com.typesafe.config.*;
 import com.typesafe.config.parser.ConfigDocument;
+import com.typesafe.config.parser.ConfigEventReader;
 
 import java.io.*;
 import java.net.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Internal implementation detail, not ABI stable, do not touch.
@@ -22,7 +29,6 @@ import java.util.*;
  * handle" in the ConfigIncluder interface.
  */
 public abstract class Parseable implements ConfigParseable {
-    private static final ThreadLocal<LinkedList<Parseable>> parseStack = ThreadLocal.withInitial(LinkedList::new);
     private static final int MAX_INCLUDE_DEPTH = 50;
     private static final String jsonContentType = "application/json";
     private static final String propertiesContentType = "text/x-java-properties";
@@ -30,6 +36,21 @@ public abstract class Parseable implements ConfigParseable {
     private ConfigIncludeContext includeContext;
     private ConfigParseOptions initialOptions;
     private ConfigOrigin initialOrigin;
+    // the parseable whose include statement this one came from, and how
+    // many includes deep that is; set by SimpleIncludeContext before we're
+    // parsed, so include cycles are caught without any per-thread state
+    private Parseable includedFrom = null;
+    private int includeDepth = 0;
+    // how many parses that aren't part of an include chain are nested on
+    // this thread; only an application includer that parses through
+    // ConfigFactory nests those, so this is the fallback for cycles the
+    // chain can't see. A parse that starts while no other unchained parse
+    // is in progress on any thread can't be nested, so it doesn't look at
+    // the thread-local at all; only parses started while others are in
+    // progress count themselves there, and remove the entry again when
+    // the outermost of them finishes.
+    private static final AtomicInteger unchainedParses = new AtomicInteger();
+    private static final ThreadLocal<int[]> unchainedParseDepth = new ThreadLocal<>();
 
     protected Parseable() {
     }
@@ -109,6 +130,51 @@ public abstract class Parseable implements ConfigParseable {
             return new File(parent, filename);
     }
 
+    // Finds out which of the parseables exist without parsing them: one
+    // directory listing per directory for files (and a check of each file
+    // the listing doesn't name, in a directory that isn't empty), and one
+    // getResource() per name for resources. TRUE or FALSE if that could
+    // tell, null if the parseable has to be parsed to find out (URLs,
+    // parseables we don't know, directories we can't list).
+    static Boolean[] probeExistence(List<? extends ConfigParseable> parseables) {
+        Boolean[] result = new Boolean[parseables.size()];
+        Map<File, Set<String>> listings = new HashMap<>();
+        for (int i = 0; i < result.length; ++i) {
+            switch (parseables.get(i)) {
+                case ParseableNotFound ignored -> result[i] = false;
+                case ParseableFile f -> {
+                    File file = f.input.getAbsoluteFile();
+                    // a file that's missing now could be created later
+                    FileTracking.record(file.toPath());
+                    File dir = file.getParentFile();
+                    if (dir != null) {
+                        Set<String> names = listings.computeIfAbsent(dir, d -> {
+                            String[] list = d.list();
+                            if (list == null && !d.exists())
+                                return Set.of();
+                            return list == null ? null : Set.of(list);
+                        });
+                        // the listing only proves a file is there; on a case-insensitive
+                        // or normalizing file system it can be there under another
+                        // spelling, which only asking for the file itself finds out
+                        if (names != null)
+                            result[i] = names.contains(file.getName()) || (!names.isEmpty() && file.isFile());
+                    }
+                }
+                case ParseableResources r -> {
+                    ClassLoader loader = r.options().getClassLoader();
+                    if (loader != null) {
+                        List<URL> indexed = ResourceIndex.find(loader, r.resource);
+                        result[i] = indexed != null ? !indexed.isEmpty() : loader.getResource(r.resource) != null;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return result;
+    }
+
     public static Parseable newNotFound(String whatNotFound, String message,
                                         ConfigParseOptions options) {
         return new ParseableNotFound(whatNotFound, message, options);
@@ -249,23 +315,97 @@ public abstract class Parseable implements ConfigParseable {
         return includeContext;
     }
 
+    void setIncludedFrom(Parseable parent) {
+        this.includedFrom = parent;
+        this.includeDepth = parent.includeDepth + 1;
+    }
+
+    // for the pieces a parseable is made of, which aren't includes of it
+    // and so don't add to the depth
+    private void setPartOf(Parseable whole) {
+        this.includedFrom = whole;
+        this.includeDepth = whole.includeDepth;
+    }
+
     @Override
     public ConfigObject parse(ConfigParseOptions baseOptions) {
-
-        LinkedList<Parseable> stack = parseStack.get();
-        if (stack.size() >= MAX_INCLUDE_DEPTH) {
+        if (includeDepth >= MAX_INCLUDE_DEPTH) {
+            List<Parseable> trace = new ArrayList<>();
+            for (Parseable p = includedFrom; p != null; p = p.includedFrom)
+                trace.add(p);
             throw new ConfigException.Parse(initialOrigin, "include statements nested more than "
                     + MAX_INCLUDE_DEPTH
-                    + " times, you probably have a cycle in your includes. Trace: " + stack);
+                    + " times, you probably have a cycle in your includes. Trace: " + trace);
+        }
+
+        if (includedFrom != null)
+            return forceParsedToObject(parseValue(baseOptions));
+
+        boolean maybeNested = unchainedParses.getAndIncrement() > 0;
+        try {
+            if (maybeNested)
+                return parseCountingDepth(baseOptions);
+            else
+                return forceParsedToObject(parseValue(baseOptions));
+        } finally {
+            unchainedParses.decrementAndGet();
         }
+    }
 
-        stack.addFirst(this);
+    private ConfigObject parseCountingDepth(ConfigParseOptions baseOptions) {
+        int[] depth = unchainedParseDepth.get();
+        if (depth == null) {
+            depth = new int[1];
+            unchainedParseDepth.set(depth);
+        } else if (depth[0] >= MAX_INCLUDE_DEPTH) {
+            throw new ConfigException.Parse(initialOrigin, "parses nested more than " + MAX_INCLUDE_DEPTH
+                    + " times, you probably have a ConfigIncluder that includes itself in a cycle");
+        }
+        depth[0] += 1;
         try {
             return forceParsedToObject(parseValue(baseOptions));
         } finally {
-            stack.removeFirst();
-            if (stack.isEmpty()) {
-                parseStack.remove();
+            depth[0] -= 1;
+            if (depth[0] == 0)
+                unchainedParseDepth.remove();
+        }
+    }
+
+    // parses each element on its own virtual thread, returning the values
+    // in the same order as the elements
+    private static List<AbstractConfigValue> parseInParallel(List<Parseable> elements) throws IOException {
+        FileTracking tracking = FileTracking.current();
+        List<Future<AbstractConfigValue>> futures = new ArrayList<>(elements.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Parseable element : elements) {
+                Supplier<AbstractConfigValue> parse = ConfigImpl.inheritingSystemOverride(element::parseValue);
+                if (tracking == null) {
+                    futures.add(executor.submit(parse::get));
+                } else {
+                    futures.add(executor.submit(() -> {
+                        FileTracking.setCurrent(tracking);
+                        try {
+                            return parse.get();
+                        } finally {
+                            FileTracking.setCurrent(null);
+                        }
+                    }));
+                }
+            }
+
+            List<AbstractConfigValue> values = new ArrayList<>(elements.size());
+            for (Future<AbstractConfigValue> future : futures) {
+                values.add(future.get());
+            }
+            return values;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while parsing " + elements);
+        } catch (ExecutionException e) {
+            switch (e.getCause()) {
+                case RuntimeException re -> throw re;
+                case Error err -> throw err;
+                default -> throw new ConfigException.BugOrBroken("unexpected exception parsing " + elements, e.getCause());
             }
         }
     }
@@ -328,7 +468,7 @@ public abstract class Parseable implements ConfigParseable {
             if (finalOptions.getAllowMissing()) {
                 ArrayList<AbstractConfigNode> children = new ArrayList<>();
                 children.add(new ConfigNodeObject(new ArrayList<>()));
-                return new SimpleConfigDocument(new ConfigNodeRoot(children, origin), finalOptions);
+                return new SimpleConfigDocument(new ConfigNodeRoot(children, origin), finalOptions, this);
             } else {
                 trace("exception loading " + origin.description() + ": " + e.getClass().getName()
                         + ": " + e.getMessage());
@@ -338,10 +478,46 @@ public abstract class Parseable implements ConfigParseable {
         }
     }
 
+    // parses a document that was already parsed from this parseable into
+    // nodes, without going back to its text; the nodes are in the syntax
+    // they were parsed with, whatever the options say
+    final AbstractConfigValue parseDocumentValue(ConfigNodeRoot document, ConfigSyntax syntax,
+                                                 ConfigParseOptions baseOptions) {
+        ConfigParseOptions options = fixupOptions(baseOptions.setSyntax(syntax));
+
+        // passed-in options can override origin
+        ConfigOrigin origin;
+        if (options.getOriginDescription() != null)
+            origin = SimpleConfigOrigin.newSimple(options.getOriginDescription());
+        else
+            origin = document.baseOrigin();
+        return ConfigParser.parse(document, origin, options, includeContext());
+    }
+
     // this is parseValue without post-processing the IOException or handling
     // options.getAllowMissing()
     protected AbstractConfigValue rawParseValue(ConfigOrigin origin, ConfigParseOptions finalOptions)
             throws IOException {
+        java.nio.file.Path file = watchableFile();
+        if (file != null)
+            FileTracking.record(file);
+
+        FileTracking tracking = FileTracking.current();
+        ParsedFileCache.Key cacheKey = parsedFileCacheKey(origin, finalOptions);
+        if (cacheKey != null) {
+            AbstractConfigValue cached = tracking != null ? tracking.get(cacheKey) : null;
+            if (cached == null)
+                cached = ParsedFileCache.get(cacheKey);
+            if (cached != null) {
+                if (tracking != null)
+                    tracking.put(cacheKey, cached);
+                if (ConfigImpl.traceLoadsEnabled())
+                    trace("Using previously parsed " + this);
+                return cached;
+            }
+        }
+        long start = System.nanoTime();
+
         Reader reader = reader(finalOptions);
 
         // after reader() we will have loaded the Content-Type.
@@ -359,7 +535,28 @@ public abstract class Parseable implements ConfigParseable {
         }
 
         try {
-            return rawParseValue(reader, origin, optionsWithContentType);
+            HttpCache.Entry fetched = httpCacheEntry();
+            if (fetched != null) {
+                AbstractConfigValue unchanged = fetched.parsed(origin, optionsWithContentType);
+                if (unchanged != null) {
+                    if (ConfigImpl.traceLoadsEnabled())
+                        trace("Using previously parsed " + this);
+                    return unchanged;
+                }
+            }
+            if (cacheKey == null && fetched == null)
+                return rawParseValue(reader, origin, optionsWithContentType);
+
+            boolean[] cacheable = new boolean[1];
+            AbstractConfigValue value = rawParseValue(reader, origin, optionsWithContentType, cacheable);
+            if (cacheKey != null) {
+                ParsedFileCache.put(cacheKey, cacheable[0] ? value : null, System.nanoTime() - start);
+                if (tracking != null && cacheable[0])
+                    tracking.put(cacheKey, value);
+            }
+            if (fetched != null && cacheable[0])
+                fetched.setParsed(origin, optionsWithContentType, value);
+            return value;
         } finally {
             reader.close();
         }
@@ -367,15 +564,44 @@ public abstract class Parseable implements ConfigParseable {
 
     private AbstractConfigValue rawParseValue(Reader reader, ConfigOrigin origin,
                                               ConfigParseOptions finalOptions) throws IOException {
+        return rawParseValue(reader, origin, finalOptions, null);
+    }
+
+    // sets cacheable[0] if the value only depends on what the reader read,
+    // that is, there were no includes
+    private AbstractConfigValue rawParseValue(Reader reader, ConfigOrigin origin,
+                                              ConfigParseOptions finalOptions, boolean[] cacheable) throws IOException {
         if (finalOptions.getSyntax() == ConfigSyntax.PROPERTIES) {
-            return PropertiesParser.parse(reader, origin);
+            if (cacheable != null)
+                cacheable[0] = true;
+            return PropertiesParser.parse(reader, origin, finalOptions.getPathFilter());
         } else {
-            Iterator<Token> tokens = Tokenizer.tokenize(origin, reader, finalOptions.getSyntax());
+            Iterator<Token> tokens = Tokenizer.tokenizeValuesOnly(origin, reader, finalOptions.getSyntax());
             ConfigNodeRoot document = ConfigDocumentParser.parse(tokens, origin, finalOptions);
+            if (cacheable != null)
+                cacheable[0] = !ConfigParser.hasIncludes(document);
             return ConfigParser.parse(document, origin, finalOptions, includeContext());
         }
     }
 
+    // identifies the current contents of this parseable for the parsed
+    // file cache and for file tracking; null if neither is on or this isn't
+    // a file.
+    ParsedFileCache.Key parsedFileCacheKey(ConfigOrigin origin, ConfigParseOptions options) {
+        return null;
+    }
+
+    // the file on disk this parseable reads, if any, for FileTracking
+    java.nio.file.Path watchableFile() {
+        return null;
+    }
+
+    // after reader(), the HTTP response it read if that was remembered in
+    // the HttpCache (or revalidated from it)
+    HttpCache.Entry httpCacheEntry() {
+        return null;
+    }
+
     // this is parseDocument without post-processing the IOException or handling
     // options.getAllowMissing()
     protected ConfigDocument rawParseDocument(ConfigOrigin origin, ConfigParseOptions finalOptions)
@@ -406,17 +632,38 @@ public abstract class Parseable implements ConfigParseable {
     private ConfigDocument rawParseDocument(Reader reader, ConfigOrigin origin,
                                             ConfigParseOptions finalOptions) throws IOException {
         Iterator<Token> tokens = Tokenizer.tokenize(origin, reader, finalOptions.getSyntax());
-        return new SimpleConfigDocument(ConfigDocumentParser.parse(tokens, origin, finalOptions), finalOptions);
+        return new SimpleConfigDocument(ConfigDocumentParser.parse(tokens, origin, finalOptions), finalOptions, this);
     }
 
     public ConfigObject parse() {
-        return forceParsedToObject(parseValue(options()));
+        return parse(options());
     }
 
     public ConfigDocument parseConfigDocument() {
         return parseDocument(options());
     }
 
+    public ConfigEventReader eventReader() {
+        ConfigParseOptions options = options();
+        ConfigOrigin origin = origin();
+        Reader reader;
+        try {
+            reader = reader(options);
+        } catch (IOException e) {
+            if (options.getAllowMissing())
+                return new SimpleConfigEventReader(new StringReader(""), origin, ConfigSyntax.CONF);
+            trace("exception loading " + origin.description() + ": " + e.getClass().getName()
+                    + ": " + e.getMessage());
+            throw new ConfigException.IO(origin,
+                    e.getClass().getName() + ": " + e.getMessage(), e);
+        }
+
+        // after reader() we will have loaded the Content-Type.
+        ConfigSyntax contentType = contentType();
+        return new SimpleConfigEventReader(reader, origin,
+                contentType != null ? contentType : options.getSyntax());
+    }
+
     AbstractConfigValue parseValue() {
         return parseValue(options());
     }
@@ -518,6 +765,7 @@ public abstract class Parseable implements ConfigParseable {
     private static class ParseableURI extends Parseable {
         final protected URI input;
         private String contentType = null;
+        private HttpCache.Entry fetched = null;
 
         protected ParseableURI(URI input) {
             this.input = input;
@@ -561,8 +809,21 @@ public abstract class Parseable implements ConfigParseable {
                     connection.setRequestProperty("Accept", acceptContent);
                 }
 
+                fetched = null;
+                HttpCache.Entry previous = HttpCache.handles(connection) ? HttpCache.get(input, acceptContent) : null;
+                if (previous != null)
+                    HttpCache.addConditions(connection, previous);
+
                 connection.connect();
 
+                if (previous != null && HttpCache.notModified(connection)) {
+                    if (ConfigImpl.traceLoadsEnabled())
+                        trace("URI not modified since last loaded: " + input.toASCIIString());
+                    fetched = previous;
+                    contentType = previous.contentType;
+                    return readerFromStream(new ByteArrayInputStream(previous.body));
+                }
+
                 // save content type for later
                 contentType = connection.getContentType();
                 if (contentType != null) {
@@ -576,6 +837,12 @@ public abstract class Parseable implements ConfigParseable {
 
                 InputStream stream = connection.getInputStream();
 
+                if (HttpCache.handles(connection)) {
+                    fetched = HttpCache.remember(input, acceptContent, connection, contentType, stream);
+                    if (fetched != null)
+                        return readerFromStream(new ByteArrayInputStream(fetched.body));
+                }
+
                 return readerFromStream(stream);
             } catch (FileNotFoundException fnf) {
                 // If the resource is not found (HTTP response
@@ -599,6 +866,25 @@ public abstract class Parseable implements ConfigParseable {
             return ConfigImplUtil.syntaxFromExtension(input.getPath());
         }
 
+        @Override
+        ParsedFileCache.Key parsedFileCacheKey(ConfigOrigin origin, ConfigParseOptions options) {
+            return ParsedFileCache.keyForURI(input, origin, options);
+        }
+
+        @Override
+        HttpCache.Entry httpCacheEntry() {
+            return fetched;
+        }
+
+        @Override
+        java.nio.file.Path watchableFile() {
+            // resources in a classpath directory
+            if ("file".equals(input.getScheme()))
+                return ConfigImplUtil.uriToFile(input).toPath();
+            else
+                return null;
+        }
+
         @Override
         ConfigSyntax contentType() {
             if (contentType != null) {
@@ -657,6 +943,16 @@ public abstract class Parseable implements ConfigParseable {
             return ConfigImplUtil.syntaxFromExtension(input.getName());
         }
 
+        @Override
+        ParsedFileCache.Key parsedFileCacheKey(ConfigOrigin origin, ConfigParseOptions options) {
+            return ParsedFileCache.keyForFile(input, origin, options);
+        }
+
+        @Override
+        java.nio.file.Path watchableFile() {
+            return input.toPath();
+        }
+
         @Override
         ConfigParseable relativeTo(String filename) {
             File sibling;
@@ -672,6 +968,7 @@ public abstract class Parseable implements ConfigParseable {
                 trace(sibling + " exists, so loading it as a file");
                 return newFile(sibling, options().setOriginDescription(null));
             } else {
+                FileTracking.record(sibling.toPath());
                 trace(sibling + " does not exist, so trying it as a classpath resource");
                 return super.relativeTo(filename);
             }
@@ -744,14 +1041,15 @@ public abstract class Parseable implements ConfigParseable {
             if (loader == null)
                 throw new ConfigException.BugOrBroken(
                         "null class loader; pass in a class loader or use Thread.currentThread().setContextClassLoader()");
-            Enumeration<URL> e = loader.getResources(resource);
+            List<URL> indexed = ResourceIndex.find(loader, resource);
+            Enumeration<URL> e = indexed != null ? Collections.enumeration(indexed) : loader.getResources(resource);
             if (!e.hasMoreElements()) {
                 if (ConfigImpl.traceLoadsEnabled())
                     trace("Loading config from class loader " + loader
                             + " but there were no resources called " + resource);
                 throw new IOException("resource not found on classpath: " + resource);
             }
-            AbstractConfigObject merged = SimpleConfigObject.empty(origin);
+            List<Parseable> elements = new ArrayList<>();
             while (e.hasMoreElements()) {
                 URL url = e.nextElement();
 
@@ -761,10 +1059,8 @@ public abstract class Parseable implements ConfigParseable {
 
                 try {
                     Parseable element = newResourceURL(url.toURI(), finalOptions, resource, this);
-
-                    AbstractConfigValue v = element.parseValue();
-
-                    merged = merged.withFallback(v);
+                    element.setPartOf(this);
+                    elements.add(element);
                 } catch (URISyntaxException ex) {
                     // the URL constructor can throw this if the URL
                     // contains invalid characters
@@ -772,6 +1068,18 @@ public abstract class Parseable implements ConfigParseable {
                 }
             }
 
+            List<AbstractConfigValue> values;
+            if (finalOptions.getParallelResources() && elements.size() > 1)
+                values = parseInParallel(elements);
+            else
+                values = elements.stream().map(Parseable::parseValue).toList();
+
+            // merge in classpath order no matter what order they were parsed in
+            AbstractConfigObject merged = SimpleConfigObject.empty(origin);
+            for (AbstractConfigValue v : values) {
+                merged = merged.withFallback(v);
+            }
+
             return merged;
         }
 
@@ -830,7 +1138,7 @@ public abstract class Parseable implements ConfigParseable {
                                                      ConfigParseOptions finalOptions) {
             if (ConfigImpl.traceLoadsEnabled())
                 trace("Loading config from properties " + props);
-            return PropertiesParser.fromProperties(origin, props);
+            return PropertiesParser.fromProperties(origin, props, finalOptions.getPathFilter());
         }
 
         @Override
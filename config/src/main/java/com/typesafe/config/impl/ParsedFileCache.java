@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config.impl;
+
+import com.typesafe.config.ConfigCacheStats;
+import com.typesafe.config.ConfigOrigin;
+import com.typesafe.config.ConfigParseOptions;
+import com.typesafe.config.ConfigSyntax;
+import com.typesafe.config.SystemOverride;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A process-wide cache of parsed files and classpath resources, so that a
+ * file included from many configs is only read and parsed once as long as it
+ * doesn't change. Entries are keyed by the file's real path, modification time
+ * and size (for a resource in a jar, the jar's), plus the origin and parse options it
+ * was parsed with, since those end up in the parsed value.
+ *
+ * <p>
+ * Files that contain includes are never cached, because the included files
+ * could change without the including file changing; the included files are
+ * cached on their own instead. Sharing the values is safe since they're
+ * immutable.
+ *
+ * <p>
+ * This is opt-in: {@code -Dconfig.parsed_file_cache=N} keeps up to N parsed
+ * files, evicting the least recently used. The property is read once, and
+ * again whenever {@link com.typesafe.config.ConfigFactory#invalidateCaches()}
+ * is called.
+ */
+final class ParsedFileCache {
+    private static final String PROPERTY = "config.parsed_file_cache";
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, AbstractConfigValue> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private ParsedFileCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true /* accessOrder */) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, AbstractConfigValue> eldest) {
+                if (size() > ParsedFileCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+        };
+    }
+
+    record Key(Object content, ConfigOrigin origin, ConfigSyntax syntax, boolean keyOrder,
+               List<String> pathFilter) {
+    }
+
+    // what a file's contents are identified by; FileTime and the size
+    // change whenever the file is written
+    private record FileVersion(Path path, FileTime modified, long size) {
+    }
+
+    private record JarEntryVersion(FileVersion jar, String entry) {
+    }
+
+    // null if the cache is turned off; read on every parse, so the property
+    // is only looked at the first time and again on invalidateCaches()
+    private static volatile ParsedFileCache instance = null;
+    private static volatile boolean configured = false;
+
+    private static ParsedFileCache current() {
+        if (!configured)
+            reconfigure();
+        return instance;
+    }
+
+    // a change to the configured size starts over with an empty cache
+    static synchronized void reconfigure() {
+        int maxEntries;
+        try {
+            String s = SystemOverride.getProperty(PROPERTY);
+            maxEntries = s == null ? 0 : Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            maxEntries = 0;
+        }
+        ParsedFileCache cache = instance;
+        if (maxEntries <= 0) {
+            instance = null;
+        } else if (cache == null || cache.maxEntries != maxEntries) {
+            instance = new ParsedFileCache(maxEntries);
+        }
+        configured = true;
+    }
+
+    static ConfigCacheStats stats() {
+        ParsedFileCache cache = current();
+        if (cache == null)
+            return new ConfigCacheStats(0, 0, Duration.ZERO, 0);
+        return new ConfigCacheStats(cache.hits.sum(), cache.misses.sum(),
+                Duration.ofNanos(cache.loadNanos.sum()), cache.evictions.sum());
+    }
+
+    /**
+     * The key for a file at the given path, or null if neither this cache nor
+     * {@link FileTracking} is on, or the file can't be looked at.
+     */
+    static Key keyForFile(java.io.File file, ConfigOrigin origin, ConfigParseOptions options) {
+        if (current() == null && FileTracking.current() == null)
+            return null;
+        FileVersion version = versionOf(file.toPath());
+        return version == null ? null : new Key(version, origin, options.getSyntax(), options.getPreserveKeyOrder(),
+                options.getPathFilter());
+    }
+
+    /**
+     * The key for a file: or jar:file: URI, or null if neither this cache nor
+     * {@link FileTracking} is on, or it's any other kind of URI.
+     */
+    static Key keyForURI(URI uri, ConfigOrigin origin, ConfigParseOptions options) {
+        if (current() == null && FileTracking.current() == null)
+            return null;
+        Object content = null;
+        if ("file".equals(uri.getScheme())) {
+            content = versionOf(Path.of(uri));
+        } else if ("jar".equals(uri.getScheme())) {
+            String spec = uri.getRawSchemeSpecificPart();
+            int separator = spec.indexOf("!/");
+            if (separator > 0) {
+                try {
+                    URI jar = new URI(spec.substring(0, separator));
+                    if ("file".equals(jar.getScheme())) {
+                        FileVersion version = versionOf(Path.of(jar));
+                        if (version != null)
+                            content = new JarEntryVersion(version, spec.substring(separator + 2));
+                    }
+                } catch (Exception e) {
+                    // not a jar URI we understand, don't cache it
+                }
+            }
+        }
+        return content == null ? null : new Key(content, origin, options.getSyntax(), options.getPreserveKeyOrder(),
+                options.getPathFilter());
+    }
+
+    private static FileVersion versionOf(Path path) {
+        try {
+            Path real = path.toRealPath();
+            BasicFileAttributes attributes = Files.readAttributes(real, BasicFileAttributes.class);
+            if (!attributes.isRegularFile())
+                return null;
+            return new FileVersion(real, attributes.lastModifiedTime(), attributes.size());
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+
+    static AbstractConfigValue get(Key key) {
+        ParsedFileCache cache = current();
+        if (cache == null)
+            return null;
+        AbstractConfigValue value;
+        synchronized (cache.entries) {
+            value = cache.entries.get(key);
+        }
+        if (value != null)
+            cache.hits.increment();
+        else
+            cache.misses.increment();
+        return value;
+    }
+
+    // records the parse after a miss; value is null if what was parsed
+    // can't be cached. Two threads missing at once both parse and the
+    // second put wins, which is fine since they parsed the same thing.
+    static void put(Key key, AbstractConfigValue value, long loadNanos) {
+        ParsedFileCache cache = current();
+        if (cache == null)
+            return;
+        cache.loadNanos.add(loadNanos);
+        if (value != null) {
+            synchronized (cache.entries) {
+                cache.entries.put(key, value);
+            }
+        }
+    }
+}
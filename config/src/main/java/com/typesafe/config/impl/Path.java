@@ -217,7 +217,7 @@ record Path(
     }
 
     public List<String> toUnmodifiableJava() {
-        return Stream.iterate(this, p -> Objects.nonNull(p.remainder), Path::remainder)
+        return Stream.iterate(this, Objects::nonNull, Path::remainder)
                 .map(Path::first)
                 .toList();
 
@@ -12,10 +12,10 @@ import java.util.*;
 
 final class PropertiesParser {
     static AbstractConfigObject parse(Reader reader,
-                                      ConfigOrigin origin) throws IOException {
+                                      ConfigOrigin origin, List<String> pathFilter) throws IOException {
         Properties props = new Properties();
         props.load(reader);
-        return fromProperties(origin, props);
+        return fromProperties(origin, props, pathFilter);
     }
 
     static String lastElement(String path) {
@@ -51,6 +51,26 @@ final class PropertiesParser {
         return fromEntrySet(origin, props.entrySet());
     }
 
+    // keeps only the properties at, under or above the paths in the filter,
+    // as ConfigParser does
+    static AbstractConfigObject fromProperties(ConfigOrigin origin,
+                                               Properties props, List<String> pathFilter) {
+        if (pathFilter == null)
+            return fromProperties(origin, props);
+        List<Path> filter = new ArrayList<>(pathFilter.size());
+        for (String p : pathFilter)
+            filter.add(Path.newPath(p));
+        Map<Path, Object> pathMap = getPathMap(props.entrySet());
+        pathMap.keySet().removeIf(path -> {
+            for (Path p : filter) {
+                if (path.startsWith(p) || p.startsWith(path))
+                    return false;
+            }
+            return true;
+        });
+        return fromPathMap(origin, pathMap, true /* from properties */);
+    }
+
     private static <K, V> AbstractConfigObject fromEntrySet(ConfigOrigin origin, Set<Map.Entry<K, V>> entries) {
         final Map<Path, Object> pathMap = getPathMap(entries);
         return fromPathMap(origin, pathMap, true /* from properties */);
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config.impl;
+
+import java.io.IOException;
+
+/**
+ * Where values render themselves to: either a {@link StringBuilder}, for
+ * {@link com.typesafe.config.ConfigValue#render()}, or any
+ * {@link Appendable} such as a {@link java.io.Writer}, so that large configs
+ * can be written out without first being built up as one string.
+ *
+ * <p>
+ * Strings are escaped straight into the sink rather than into a string of
+ * their own. An {@link IOException} from the appendable is carried out of the
+ * render by {@link Failed} and rethrown by {@link #rethrow}.
+ */
+final class RenderSink {
+    private final Appendable out;
+
+    RenderSink(Appendable out) {
+        this.out = out;
+    }
+
+    static final class Failed extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private Failed(IOException cause) {
+            super(cause);
+        }
+
+        IOException rethrow() {
+            return (IOException) getCause();
+        }
+    }
+
+    RenderSink append(CharSequence s) {
+        try {
+            out.append(s);
+        } catch (IOException e) {
+            throw new Failed(e);
+        }
+        return this;
+    }
+
+    RenderSink append(CharSequence s, int start, int end) {
+        try {
+            out.append(s, start, end);
+        } catch (IOException e) {
+            throw new Failed(e);
+        }
+        return this;
+    }
+
+    RenderSink append(char c) {
+        try {
+            out.append(c);
+        } catch (IOException e) {
+            throw new Failed(e);
+        }
+        return this;
+    }
+
+    RenderSink append(int i) {
+        return append(Integer.toString(i));
+    }
+
+    // same output as ConfigImplUtil.renderJsonString(s); unescaped runs are
+    // appended in one go
+    RenderSink appendJsonString(String s) {
+        append('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            String escaped = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\b' -> "\\b";
+                case '\f' -> "\\f";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                default -> ConfigImplUtil.isC0Control(c) ? String.format("\\u%04x", (int) c) : null;
+            };
+            if (escaped != null) {
+                if (start < i)
+                    append(s, start, i);
+                append(escaped);
+                start = i + 1;
+            }
+        }
+        if (start < s.length())
+            append(s, start, s.length());
+        return append('"');
+    }
+
+    RenderSink appendStringUnquotedIfPossible(String s) {
+        if (ConfigImplUtil.canRenderUnquoted(s))
+            return append(s);
+        else
+            return appendJsonString(s);
+    }
+}
@@ -146,7 +146,7 @@ final class ResolveSource {
             if (result.result.value() == null && result.result.context().options().getUseSystemEnvironment()) {
                 if (ConfigImpl.traceSubstitutionsEnabled())
                     ConfigImpl.trace(result.result.context().depth(), unprefixed + " - looking up in system environment");
-                result = findInObject(ConfigImpl.envVariablesAsConfigObject(), context, unprefixed);
+                result = findInObject(ConfigImpl.envVariablesAt(unprefixed), context, unprefixed);
             }
         }
 
@@ -0,0 +1,262 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config.impl;
+
+import com.typesafe.config.SystemOverride;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * An index from config resource names (anything ending in .conf, .json or
+ * .properties) to the URLs a class loader would return for them, built once
+ * per class loader by listing every jar on its classpath. With it, looking up
+ * a resource is a hash lookup instead of asking every jar on the classpath
+ * again for each include. Directories on the classpath aren't listed, since
+ * files can be added to them at any time; a lookup checks each of them for the
+ * file instead, in its place in the classpath order.
+ *
+ * <p>
+ * This is opt-in with {@code -Dconfig.resource_index=true}, and only works for
+ * class loaders whose classpath can be listed: plain {@link URLClassLoader}s
+ * and the application class loader when it only uses
+ * {@code java.class.path}. For any other class loader (or any loader with such
+ * a parent) there is no index and callers should use
+ * {@link ClassLoader#getResources} as usual.
+ */
+final class ResourceIndex {
+    private static final String PROPERTY = "config.resource_index";
+
+    // an index for each loader; a loader that can't have one maps to NONE.
+    // The lock is only held to find or add the task; the first thread to
+    // ask for a loader builds its index outside it, and other threads asking
+    // for the same loader wait for that.
+    private static final Map<ClassLoader, FutureTask<ResourceIndex>> indexes = new WeakHashMap<>();
+    private static final ResourceIndex NONE = new ResourceIndex(Map.of(), List.of());
+
+    // a URL found in a jar, and the position of the jar in the classpath
+    private record Located(int position, URL url) {
+    }
+
+    // a directory on the classpath and its position in it
+    private record Directory(int position, Path path) {
+    }
+
+    private final Map<String, List<Located>> inJars;
+    private final List<Directory> directories;
+
+    private ResourceIndex(Map<String, List<Located>> inJars, List<Directory> directories) {
+        this.inJars = inJars;
+        this.directories = directories;
+    }
+
+    static boolean isIndexed(String resource) {
+        return resource.endsWith(".conf") || resource.endsWith(".json") || resource.endsWith(".properties");
+    }
+
+    /**
+     * The URLs of the resource in classpath order, as
+     * {@link ClassLoader#getResources} would return them, or null if there is
+     * no index for this loader or the name isn't one that gets indexed.
+     */
+    static List<URL> find(ClassLoader loader, String resource) {
+        if (!isIndexed(resource) || !Boolean.parseBoolean(SystemOverride.getProperty(PROPERTY)))
+            return null;
+        ResourceIndex index = forLoader(loader);
+        if (index == NONE)
+            return null;
+        return index.lookup(resource);
+    }
+
+    private List<URL> lookup(String resource) {
+        List<Located> found = inJars.getOrDefault(resource, List.of());
+        List<URL> result = new ArrayList<>(found.size() + 1);
+        int next = 0;
+        for (Directory directory : directories) {
+            while (next < found.size() && found.get(next).position() < directory.position())
+                result.add(found.get(next++).url());
+            URL url = inDirectory(directory.path(), resource);
+            if (url != null)
+                result.add(url);
+        }
+        while (next < found.size())
+            result.add(found.get(next++).url());
+        return result;
+    }
+
+    private static URL inDirectory(Path directory, String resource) {
+        try {
+            Path file = directory.resolve(resource).normalize();
+            // like the class loader, don't look outside the directory
+            if (!file.startsWith(directory) || !Files.isRegularFile(file))
+                return null;
+            return file.toUri().toURL();
+        } catch (InvalidPathException | MalformedURLException e) {
+            return null;
+        }
+    }
+
+    private static ResourceIndex forLoader(ClassLoader loader) {
+        FutureTask<ResourceIndex> task;
+        synchronized (indexes) {
+            task = indexes.get(loader);
+            if (task == null) {
+                task = new FutureTask<>(() -> build(loader));
+                indexes.put(loader, task);
+            }
+        }
+        // does nothing if another thread has run it or is running it
+        task.run();
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            // build() only fails on a bug; don't keep the failure, and
+            // let callers go without an index
+            synchronized (indexes) {
+                indexes.remove(loader, task);
+            }
+            if (ConfigImpl.traceLoadsEnabled())
+                ConfigImpl.trace("Failed to index resources of " + loader + ": " + e.getCause());
+            return NONE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return NONE;
+        }
+    }
+
+    private static ResourceIndex build(ClassLoader loader) {
+        List<URL> roots = classpathOf(loader);
+        if (roots == null) {
+            if (ConfigImpl.traceLoadsEnabled())
+                ConfigImpl.trace("Can't list the classpath of " + loader + ", not indexing its resources");
+            return NONE;
+        }
+
+        long start = System.nanoTime();
+        Map<String, List<Located>> inJars = new HashMap<>();
+        List<Directory> directories = new ArrayList<>();
+        Deque<URL> pending = new ArrayDeque<>(roots);
+        Set<String> seen = new HashSet<>();
+        try {
+            while (!pending.isEmpty()) {
+                URL root = pending.removeFirst();
+                if (!seen.add(root.toExternalForm()))
+                    continue;
+                // jars named in a Class-Path manifest attribute are
+                // searched right after the jar naming them
+                List<URL> extra = indexRoot(root, seen.size(), inJars, directories);
+                for (int i = extra.size() - 1; i >= 0; --i)
+                    pending.addFirst(extra.get(i));
+            }
+        } catch (IOException | URISyntaxException e) {
+            if (ConfigImpl.traceLoadsEnabled())
+                ConfigImpl.trace("Failed to index resources of " + loader + ", not using an index: " + e);
+            return NONE;
+        }
+
+        if (ConfigImpl.traceLoadsEnabled())
+            ConfigImpl.trace("Indexed " + inJars.size() + " config resources in " + seen.size()
+                    + " classpath entries of " + loader + " in " + (System.nanoTime() - start) / 1000000 + "ms");
+        return new ResourceIndex(inJars, directories);
+    }
+
+    // the classpath in the order getResources() searches it, parents first;
+    // null if some loader in the chain doesn't let us list its classpath
+    private static List<URL> classpathOf(ClassLoader loader) {
+        if (loader == null || loader == ClassLoader.getPlatformClassLoader()) {
+            // the JDK's own modules, which don't have config resources
+            return new ArrayList<>();
+        }
+
+        List<URL> parent = classpathOf(loader.getParent());
+        if (parent == null)
+            return null;
+
+        if (loader.getClass() == URLClassLoader.class) {
+            parent.addAll(Arrays.asList(((URLClassLoader) loader).getURLs()));
+            return parent;
+        } else if (loader == ClassLoader.getSystemClassLoader()
+                && loader.getClass().getName().equals("jdk.internal.loader.ClassLoaders$AppClassLoader")
+                && SystemOverride.getProperty("jdk.module.path") == null) {
+            String classpath = SystemOverride.getProperty("java.class.path");
+            if (classpath != null && !classpath.isEmpty()) {
+                for (String entry : classpath.split(File.pathSeparator)) {
+                    try {
+                        parent.add(new File(entry.isEmpty() ? "." : entry).toURI().toURL());
+                    } catch (MalformedURLException e) {
+                        return null;
+                    }
+                }
+            }
+            return parent;
+        } else {
+            return null;
+        }
+    }
+
+    // adds the config resources in one classpath entry, or the entry itself
+    // if it's a directory, returning the entries from its Class-Path
+    // attribute if it's a jar
+    private static List<URL> indexRoot(URL root, int position, Map<String, List<Located>> inJars,
+                                       List<Directory> directories) throws IOException, URISyntaxException {
+        if (!root.getProtocol().equals("file")) {
+            // getResources() could fetch these, but we can't list them
+            throw new IOException("can't list classpath entry " + root);
+        }
+        Path path = Path.of(root.toURI());
+        if (Files.isRegularFile(path)) {
+            try (JarFile jar = new JarFile(path.toFile(), false, JarFile.OPEN_READ, Runtime.version())) {
+                // the same form of URL the class loader would return
+                String base = "jar:" + path.toUri().toURL().toExternalForm() + "!/";
+                for (JarEntry entry : (Iterable<JarEntry>) jar.versionedStream()::iterator) {
+                    if (isIndexed(entry.getName()) && !entry.isDirectory()) {
+                        String encoded = new URI(null, null, entry.getName(), null).getRawPath();
+                        URL url = URI.create(base + encoded).toURL();
+                        inJars.computeIfAbsent(entry.getName(), n -> new ArrayList<>(1)).add(new Located(position, url));
+                    }
+                }
+                return classPathAttribute(jar.getManifest(), root);
+            }
+        } else {
+            // a directory, or an entry that doesn't exist (yet); for the
+            // class loader a missing entry is just a directory with no files
+            directories.add(new Directory(position, path.normalize()));
+            return List.of();
+        }
+    }
+
+    private static List<URL> classPathAttribute(Manifest manifest, URL jar) {
+        if (manifest == null)
+            return List.of();
+        String classPath = manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+        if (classPath == null)
+            return List.of();
+        List<URL> result = new ArrayList<>();
+        for (String relative : classPath.trim().split("\\s+")) {
+            if (relative.isEmpty())
+                continue;
+            try {
+                result.add(jar.toURI().resolve(relative).toURL());
+            } catch (URISyntaxException | IllegalArgumentException | MalformedURLException e) {
+                // the class loader skips these too
+            }
+        }
+        return result;
+    }
+}
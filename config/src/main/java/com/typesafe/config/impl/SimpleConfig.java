@@ -1031,6 +1031,81 @@ final class SimpleConfig implements Config, MergeableValue, Serializable {
         return new SimpleConfig(root().withValue(path, v));
     }
 
+    @Override
+    public ConfigDiff diff(Config other) {
+        SimpleConfig o = (SimpleConfig) other;
+        if (root().resolveStatus() != ResolveStatus.RESOLVED
+                || o.root().resolveStatus() != ResolveStatus.RESOLVED)
+            throw new ConfigException.NotResolved(
+                    "need to Config#resolve() both configs before comparing them, see the API docs for Config#resolve()");
+
+        Set<String> added = new HashSet<>();
+        Set<String> removed = new HashSet<>();
+        Set<String> changed = new HashSet<>();
+        diffObjects(null, root(), o.root(), added, removed, changed);
+        return new ConfigDiff(added, removed, changed);
+    }
+
+    private static void diffObjects(Path parent, AbstractConfigObject a, AbstractConfigObject b,
+                                    Set<String> added, Set<String> removed, Set<String> changed) {
+        // identical values are the same subtree, which is the common case
+        // when one config was derived from the other; diffChildren() skips
+        // those without allocating anything
+        if (a == b)
+            return;
+        ((SimpleConfigObject) a).diffChildren((SimpleConfigObject) b, new HashTrieMap.DiffVisitor<>() {
+            @Override
+            public void onlyInThis(String key, AbstractConfigValue value) {
+                addLeafPaths(removed, childPath(parent, key), value);
+            }
+
+            @Override
+            public void onlyInOther(String key, AbstractConfigValue value) {
+                addLeafPaths(added, childPath(parent, key), value);
+            }
+
+            @Override
+            public void different(String key, AbstractConfigValue aValue, AbstractConfigValue bValue) {
+                Path path = childPath(parent, key);
+                boolean aIsObject = aValue instanceof AbstractConfigObject;
+                boolean bIsObject = bValue instanceof AbstractConfigObject;
+                boolean aIsLeaf = !aIsObject && !(aValue instanceof ConfigNull);
+                boolean bIsLeaf = !bIsObject && !(bValue instanceof ConfigNull);
+                if (aIsObject && bIsObject) {
+                    diffObjects(path, (AbstractConfigObject) aValue, (AbstractConfigObject) bValue,
+                            added, removed, changed);
+                } else if (aIsLeaf && bIsLeaf) {
+                    if (!aValue.equals(bValue))
+                        changed.add(path.render());
+                } else {
+                    addLeafPaths(removed, path, aValue);
+                    addLeafPaths(added, path, bValue);
+                }
+            }
+        });
+    }
+
+    private static Path childPath(Path parent, String key) {
+        Path path = Path.newKey(key);
+        return parent == null ? path : path.prepend(parent);
+    }
+
+    // the path itself if v is a leaf, the leaves below it if v is an object,
+    // and nothing if v is null
+    private static void addLeafPaths(Set<String> paths, Path path, AbstractConfigValue v) {
+        if (v instanceof AbstractConfigObject object)
+            findLeafPaths(paths, path, object);
+        else if (!(v instanceof ConfigNull))
+            paths.add(path.render());
+    }
+
+    // the paths of every leaf below obj, like findPaths above
+    private static void findLeafPaths(Set<String> paths, Path parent, AbstractConfigObject obj) {
+        for (String key : obj.keySet()) {
+            addLeafPaths(paths, Path.newKey(key).prepend(parent), obj.get(key));
+        }
+    }
+
     SimpleConfig atKey(ConfigOrigin origin, String key) {
         return root().atKey(origin, key);
     }
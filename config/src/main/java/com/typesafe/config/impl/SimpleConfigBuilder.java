@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config.impl;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigBuilder;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigOrigin;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class SimpleConfigBuilder implements ConfigBuilder {
+    final private ConfigOrigin origin;
+    private Branch root;
+
+    SimpleConfigBuilder(ConfigOrigin origin) {
+        this.origin = origin;
+        this.root = new Branch();
+    }
+
+    private Branch root() {
+        if (root == null)
+            throw new ConfigException.BugOrBroken(
+                    "bug in method caller: ConfigBuilder can't be used after build()");
+        return root;
+    }
+
+    @Override
+    public SimpleConfigBuilder put(String path, Object value) {
+        put(Path.newPath(path), value);
+        return this;
+    }
+
+    private void put(Path path, Object value) {
+        Branch branch = root();
+        AbstractConfigValue v = ConfigImpl.fromAnyRef(value, origin, FromMapMode.KEYS_ARE_KEYS);
+
+        Path p = path;
+        while (p.remainder() != null) {
+            branch = branch.child(p.first());
+            p = p.remainder();
+        }
+        branch.children.put(p.first(), v);
+    }
+
+    @Override
+    public SimpleConfigBuilder putAll(Map<String, ?> values) {
+        root();
+        // put parents before their children, so that a map holding both
+        // "a" and "a.b" gives the same result whatever order it iterates in
+        List<Map.Entry<Path, Object>> entries = new ArrayList<>(values.size());
+        for (Map.Entry<String, ?> e : values.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(Path.newPath(e.getKey()), e.getValue()));
+        }
+        entries.sort(Comparator.comparingInt(e -> e.getKey().length()));
+        for (Map.Entry<Path, Object> e : entries) {
+            put(e.getKey(), e.getValue());
+        }
+        return this;
+    }
+
+    @Override
+    public SimpleConfig build() {
+        SimpleConfigObject object = root().freeze(origin);
+        root = null;
+        return object.toConfig();
+    }
+
+    // an object that's still being built; each child is either a
+    // Branch or a finished AbstractConfigValue.
+    private static final class Branch {
+        final Map<String, Object> children = new HashMap<>();
+        boolean sawUnresolved = false;
+
+        Branch child(String key) {
+            Object existing = children.get(key);
+            if (existing instanceof Branch branch)
+                return branch;
+
+            Branch branch = new Branch();
+            // keep the contents of an object that was put as a whole;
+            // anything else gets replaced, as with withValue().
+            if (existing instanceof SimpleConfigObject object)
+                branch.children.putAll(object);
+            children.put(key, branch);
+            return branch;
+        }
+
+        // reuses our own map as the object's map rather than copying it,
+        // which is why a builder is single-use
+        @SuppressWarnings("unchecked")
+        SimpleConfigObject freeze(ConfigOrigin origin) {
+            for (Map.Entry<String, Object> e : children.entrySet()) {
+                AbstractConfigValue v;
+                if (e.getValue() instanceof Branch branch) {
+                    v = branch.freeze(origin);
+                    e.setValue(v);
+                } else {
+                    v = (AbstractConfigValue) e.getValue();
+                }
+                if (v.resolveStatus() == ResolveStatus.UNRESOLVED)
+                    sawUnresolved = true;
+            }
+            Map<String, AbstractConfigValue> values = (Map<String, AbstractConfigValue>) (Map<String, ?>) children;
+            return SimpleConfigObject.withKnownStatus(origin, values,
+                    sawUnresolved ? ResolveStatus.UNRESOLVED : ResolveStatus.RESOLVED);
+        }
+    }
+}
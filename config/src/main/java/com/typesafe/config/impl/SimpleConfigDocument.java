@@ -1,48 +1,91 @@
 package com.typesafe.config.impl;
 
+import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
 import com.typesafe.config.ConfigParseOptions;
-import com.typesafe.config.ConfigRenderOptions;
 import com.typesafe.config.ConfigValue;
 import com.typesafe.config.parser.ConfigDocument;
+import com.typesafe.config.parser.ConfigDocumentEditor;
 
-import java.io.StringReader;
-import java.util.Iterator;
+import java.util.function.Consumer;
 
 public final class SimpleConfigDocument implements ConfigDocument {
     private final ConfigNodeRoot configNodeTree;
     private final ConfigParseOptions parseOptions;
+    // where the document was parsed from, for resolving its includes
+    private final Parseable source;
+    // whether the nodes are exactly what parsing render() would give; nodes
+    // made by the editor render right but their tokens have other origins,
+    // so toConfig() has to parse an edited document's text again
+    private final boolean asParsed;
 
-    SimpleConfigDocument(ConfigNodeRoot parsedNode, ConfigParseOptions parseOptions) {
+    SimpleConfigDocument(ConfigNodeRoot parsedNode, ConfigParseOptions parseOptions, Parseable source) {
+        this(parsedNode, parseOptions, source, true);
+    }
+
+    private SimpleConfigDocument(ConfigNodeRoot parsedNode, ConfigParseOptions parseOptions, Parseable source,
+                                 boolean asParsed) {
         configNodeTree = parsedNode;
         this.parseOptions = parseOptions;
+        this.source = source;
+        this.asParsed = asParsed;
     }
 
     @Override
     public ConfigDocument withValueText(String path, String newValue) {
         if (newValue == null)
             throw new ConfigException.BugOrBroken("null value for " + path + " passed to withValueText");
-        SimpleConfigOrigin origin = SimpleConfigOrigin.newSimple("single value parsing");
-        StringReader reader = new StringReader(newValue);
-        Iterator<Token> tokens = Tokenizer.tokenize(origin, reader, parseOptions.getSyntax());
-        AbstractConfigNodeValue parsedValue = ConfigDocumentParser.parseValue(tokens, origin, parseOptions);
-        reader.close();
-
-        return new SimpleConfigDocument(configNodeTree.setValue(path, parsedValue, parseOptions.getSyntax()), parseOptions);
+        return edit(editor -> editor.setValueText(path, newValue));
     }
 
     @Override
     public ConfigDocument withValue(String path, ConfigValue newValue) {
         if (newValue == null)
             throw new ConfigException.BugOrBroken("null value for " + path + " passed to withValue");
-        ConfigRenderOptions options = ConfigRenderOptions.defaults();
-        options = options.setOriginComments(false);
-        return withValueText(path, newValue.render(options).trim());
+        return edit(editor -> editor.setValue(path, newValue));
     }
 
     @Override
     public ConfigDocument withoutPath(String path) {
-        return new SimpleConfigDocument(configNodeTree.setValue(path, null, parseOptions.getSyntax()), parseOptions);
+        return edit(editor -> editor.remove(path));
+    }
+
+    @Override
+    public ConfigDocument withTextEdit(int offset, int length, String replacement) {
+        if (replacement == null)
+            throw new ConfigException.BugOrBroken("null replacement text passed to withTextEdit");
+        return new SimpleConfigDocument(ConfigDocumentReparser.reparse(configNodeTree, parseOptions, offset, length, replacement),
+                parseOptions, source, asParsed);
+    }
+
+    @Override
+    public ConfigDocument edit(Consumer<ConfigDocumentEditor> edits) {
+        SimpleConfigDocumentEditor editor = new SimpleConfigDocumentEditor(configNodeTree, parseOptions);
+        ConfigNodeRoot edited;
+        try {
+            edits.accept(editor);
+        } finally {
+            edited = editor.finish();
+        }
+        // an edit that changed nothing keeps this document, and with it a
+        // toConfig() that doesn't parse the text again
+        if (!editor.changed())
+            return this;
+        return new SimpleConfigDocument(edited, parseOptions, source, false);
+    }
+
+    // whether toConfig() has to render and parse the text again, for tests
+    boolean toConfigReparses() {
+        return !asParsed;
+    }
+
+    @Override
+    public Config toConfig(ConfigParseOptions options) {
+        if (options == null)
+            throw new ConfigException.BugOrBroken("null options passed to toConfig");
+        ConfigNodeRoot document = asParsed ? configNodeTree : ConfigDocumentReparser.parse(configNodeTree, parseOptions);
+        return Parseable.forceParsedToObject(source.parseDocumentValue(document, parseOptions.getSyntax(), options))
+                .toConfig();
     }
 
     @Override
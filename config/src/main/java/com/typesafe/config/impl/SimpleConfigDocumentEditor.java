@@ -0,0 +1,88 @@
+package com.typesafe.config.impl;
+
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigParseOptions;
+import com.typesafe.config.ConfigRenderOptions;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.parser.ConfigDocumentEditor;
+
+import java.io.StringReader;
+import java.util.Iterator;
+
+/**
+ * Applies edits to a private copy of a document's root. Each object along an
+ * edited path is copied the first time an edit reaches it and changed in
+ * place after that, so a batch costs one copy of the touched objects rather
+ * than one per edit; the copies are never visible outside the editor until
+ * {@link #finish()} hands the root over.
+ */
+public final class SimpleConfigDocumentEditor implements ConfigDocumentEditor {
+    private final ConfigNodeRoot root;
+    private final ConfigParseOptions parseOptions;
+    private final ConfigNodeObject.EditBatch batch = ConfigNodeObject.newEditBatch();
+    private boolean finished = false;
+    // whether setValueText or remove was called; until then the root is an
+    // unchanged copy and the document can be handed back as it was
+    private boolean changed = false;
+
+    SimpleConfigDocumentEditor(ConfigNodeRoot original, ConfigParseOptions parseOptions) {
+        this.root = original.editable();
+        this.parseOptions = parseOptions;
+    }
+
+    private static AbstractConfigNodeValue parseValueText(String newValue, ConfigParseOptions parseOptions) {
+        SimpleConfigOrigin origin = SimpleConfigOrigin.newSimple("single value parsing");
+        StringReader reader = new StringReader(newValue);
+        Iterator<Token> tokens = Tokenizer.tokenize(origin, reader, parseOptions.getSyntax());
+        AbstractConfigNodeValue parsedValue = ConfigDocumentParser.parseValue(tokens, origin, parseOptions);
+        reader.close();
+        return parsedValue;
+    }
+
+    private void checkNotFinished() {
+        if (finished)
+            throw new ConfigException.BugOrBroken("ConfigDocumentEditor used after the ConfigDocument.edit callback returned");
+    }
+
+    @Override
+    public ConfigDocumentEditor setValueText(String path, String newValue) {
+        checkNotFinished();
+        if (newValue == null)
+            throw new ConfigException.BugOrBroken("null value for " + path + " passed to setValueText");
+        root.setValueInPlace(path, parseValueText(newValue, parseOptions), parseOptions.getSyntax(), batch);
+        changed = true;
+        return this;
+    }
+
+    @Override
+    public ConfigDocumentEditor setValue(String path, ConfigValue newValue) {
+        if (newValue == null)
+            throw new ConfigException.BugOrBroken("null value for " + path + " passed to setValue");
+        ConfigRenderOptions options = ConfigRenderOptions.defaults();
+        options = options.setOriginComments(false);
+        return setValueText(path, newValue.render(options).trim());
+    }
+
+    @Override
+    public ConfigDocumentEditor remove(String path) {
+        checkNotFinished();
+        root.setValueInPlace(path, null, parseOptions.getSyntax(), batch);
+        changed = true;
+        return this;
+    }
+
+    @Override
+    public boolean hasPath(String path) {
+        checkNotFinished();
+        return root.hasValue(path);
+    }
+
+    boolean changed() {
+        return changed;
+    }
+
+    ConfigNodeRoot finish() {
+        finished = true;
+        return root;
+    }
+}
@@ -0,0 +1,675 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config.impl;
+
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigOrigin;
+import com.typesafe.config.ConfigSyntax;
+import com.typesafe.config.ConfigValue;
+import com.typesafe.config.ConfigValueType;
+import com.typesafe.config.parser.ConfigEventReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The grammar of {@link ConfigDocumentParser}, turned inside out so that it
+ * stops at each event instead of building nodes. What the parser keeps on
+ * the call stack is kept in {@link #frames}, one per open object or array,
+ * and in {@link #state}, which says what may come next at the current
+ * position. Error messages are the parser's.
+ *
+ * <p>
+ * Unlike the parser, this doesn't remember the keys of each object, so JSON
+ * with a duplicate key is not reported as an error.
+ */
+public final class SimpleConfigEventReader implements ConfigEventReader {
+    private enum State {
+        // before the root value
+        ROOT,
+        // in an object, where a field, an include or the close brace may be
+        FIELD,
+        // after '{' that follows a key without ':' or '='
+        OBJECT_VALUE,
+        // after ':', '=' or '+=', where a value must be
+        VALUE,
+        // in an array, after '['
+        FIRST_ELEMENT,
+        // in an array, after a separator
+        ELEMENT,
+        // where the next piece of a value starts
+        PIECE,
+        // after a piece of a value, which may be concatenated with another
+        AFTER_PIECE,
+        // after a field or element, where a separator or the close may be
+        AFTER_ELEMENT,
+        // after the root value
+        DONE
+    }
+
+    private static final class Frame {
+        final boolean array;
+        final boolean hadOpenBrace;
+        // whether the object or array may be concatenated with what follows
+        final boolean piece;
+        boolean afterComma = false;
+
+        Frame(boolean array, boolean hadOpenBrace, boolean piece) {
+            this.array = array;
+            this.hadOpenBrace = hadOpenBrace;
+            this.piece = piece;
+        }
+    }
+
+    private static final String ExpectingClosingParenthesisError = "expecting a close parentheses ')' here, not: ";
+
+    private final Reader reader;
+    private final Iterator<Token> tokens;
+    private final ConfigSyntax flavor;
+    private final ConfigOrigin baseOrigin;
+    private final ArrayDeque<Token> buffer = new ArrayDeque<>();
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private int lineNumber = 1;
+    private State state = State.ROOT;
+
+    private Event current = null;
+    private ConfigOrigin origin = null;
+    private List<String> path = null;
+    private boolean append = false;
+    private AbstractConfigValue value = null;
+    private boolean optional = false;
+    private String includeName = null;
+    private IncludeKind includeKind = null;
+    private boolean required = false;
+
+    SimpleConfigEventReader(Reader reader, ConfigOrigin origin, ConfigSyntax flavor) {
+        this.reader = reader;
+        this.flavor = flavor == null ? ConfigSyntax.CONF : flavor;
+        this.baseOrigin = origin;
+        this.tokens = Tokenizer.tokenize(origin, reader, this.flavor);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return state != State.DONE;
+    }
+
+    @Override
+    public Event next() {
+        if (state == State.DONE)
+            throw new NoSuchElementException("no more events after the end of the root value");
+        path = null;
+        append = false;
+        value = null;
+        optional = false;
+        includeName = null;
+        includeKind = null;
+        required = false;
+        Event event = read();
+        current = event;
+        return event;
+    }
+
+    @Override
+    public Event current() {
+        return current;
+    }
+
+    @Override
+    public int depth() {
+        return frames.size();
+    }
+
+    @Override
+    public ConfigOrigin origin() {
+        return origin;
+    }
+
+    @Override
+    public List<String> path() {
+        if (path == null)
+            throw new IllegalStateException("no path for event " + current);
+        return path;
+    }
+
+    @Override
+    public boolean isAppend() {
+        check(Event.KEY);
+        return append;
+    }
+
+    @Override
+    public ConfigValue value() {
+        check(Event.VALUE);
+        return value;
+    }
+
+    @Override
+    public boolean isOptional() {
+        check(Event.SUBSTITUTION);
+        return optional;
+    }
+
+    @Override
+    public String includeName() {
+        check(Event.INCLUDE);
+        return includeName;
+    }
+
+    @Override
+    public IncludeKind includeKind() {
+        check(Event.INCLUDE);
+        return includeKind;
+    }
+
+    @Override
+    public boolean isRequired() {
+        check(Event.INCLUDE);
+        return required;
+    }
+
+    @Override
+    public void skipChildren() {
+        if (current != Event.START_OBJECT && current != Event.START_ARRAY)
+            return;
+        int outside = depth() - 1;
+        while (depth() > outside)
+            next();
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new ConfigException.IO(baseOrigin, "close error: " + e.getMessage(), e);
+        }
+    }
+
+    private void check(Event expected) {
+        if (current != expected)
+            throw new IllegalStateException("current event is " + current + ", not " + expected);
+    }
+
+    private Event read() {
+        while (true) {
+            switch (state) {
+                case ROOT -> {
+                    return readRoot();
+                }
+                case FIELD -> {
+                    return readField();
+                }
+                case OBJECT_VALUE -> {
+                    // the '{' was put back by readField
+                    nextToken();
+                    return open(false, false);
+                }
+                case VALUE -> {
+                    Token t = nextTokenSkippingWhitespace();
+                    if (!isValueStart(t))
+                        throw parseError(addQuoteSuggestion(t.toString(),
+                                "Expecting a value but got wrong token: " + t));
+                    putBack(t);
+                    state = State.PIECE;
+                }
+                case FIRST_ELEMENT, ELEMENT -> {
+                    Token t = nextTokenSkippingWhitespace();
+                    if (isValueStart(t)) {
+                        putBack(t);
+                        state = State.PIECE;
+                    } else if (t == StaticToken.CLOSE_SQUARE
+                            && (state == State.FIRST_ELEMENT || flavor != ConfigSyntax.JSON)) {
+                        // we allow one trailing comma
+                        return closeFrame();
+                    } else if (state == State.FIRST_ELEMENT) {
+                        throw parseError("List should have ] or a first element after the open [, instead had token: "
+                                + t
+                                + " (if you want "
+                                + t
+                                + " to be part of a string value, then double-quote it)");
+                    } else {
+                        throw parseError("List should have had new element after a comma, instead had token: "
+                                + t
+                                + " (if you want the comma or "
+                                + t
+                                + " to be part of a string value, then double-quote it)");
+                    }
+                }
+                case PIECE -> {
+                    return readPiece();
+                }
+                case AFTER_PIECE -> {
+                    // don't concatenate across a newline
+                    Token t = nextToken();
+                    while (t instanceof TokenWithOrigin.IgnoredWhitespace)
+                        t = nextToken();
+                    putBack(t);
+                    if (isValueStart(t)) {
+                        state = State.PIECE;
+                        origin = lineOrigin();
+                        return Event.CONCATENATION;
+                    }
+                    state = State.AFTER_ELEMENT;
+                }
+                case AFTER_ELEMENT -> {
+                    Event event = readAfterElement();
+                    if (event != null)
+                        return event;
+                }
+                case DONE -> throw new ConfigException.BugOrBroken("read past the end of the root value");
+            }
+        }
+    }
+
+    private Event readRoot() {
+        Token t = nextToken();
+        if (t != StaticToken.START)
+            throw new ConfigException.BugOrBroken("token stream did not begin with START, had " + t);
+
+        t = nextTokenSkippingWhitespace();
+        if (t == StaticToken.OPEN_CURLY || t == StaticToken.OPEN_SQUARE) {
+            return open(t == StaticToken.OPEN_SQUARE, false);
+        } else if (flavor == ConfigSyntax.JSON) {
+            if (t == StaticToken.END)
+                throw parseError("Empty document");
+            else
+                throw parseError("Document must have an object or array at root, unexpected token: "
+                        + t);
+        } else {
+            // the root object can omit the surrounding braces.
+            // this token should be the first field's key, or part
+            // of it, so put it back.
+            putBack(t);
+            frames.push(new Frame(false, false, false));
+            state = State.FIELD;
+            origin = lineOrigin();
+            return Event.START_OBJECT;
+        }
+    }
+
+    private Event readField() {
+        Frame frame = frames.peek();
+        Token t = nextTokenSkippingWhitespace();
+        if (t == StaticToken.CLOSE_CURLY) {
+            if (flavor == ConfigSyntax.JSON && frame.afterComma) {
+                throw parseError(addQuoteSuggestion(t.toString(),
+                        "expecting a field name after a comma, got a close brace } instead"));
+            } else if (!frame.hadOpenBrace) {
+                throw parseError(addQuoteSuggestion(t.toString(),
+                        "unbalanced close brace '}' with no open brace"));
+            }
+            return closeFrame();
+        } else if (t == StaticToken.END && !frame.hadOpenBrace) {
+            putBack(t);
+            return closeFrame();
+        } else if (flavor != ConfigSyntax.JSON && isIncludeKeyword(t)) {
+            origin = lineOrigin();
+            readInclude();
+            frame.afterComma = false;
+            state = State.AFTER_ELEMENT;
+            return Event.INCLUDE;
+        }
+
+        Path key = parseKey(t);
+        origin = lineOrigin();
+        Token afterKey = nextTokenSkippingWhitespace();
+        if (flavor == ConfigSyntax.CONF && afterKey == StaticToken.OPEN_CURLY) {
+            // can omit the ':' or '=' before an object value
+            putBack(afterKey);
+            state = State.OBJECT_VALUE;
+        } else {
+            if (!isKeyValueSeparatorToken(afterKey)) {
+                throw parseError(addQuoteSuggestion(afterKey.toString(),
+                        "Key '" + key.render() + "' may not be followed by token: "
+                                + afterKey));
+            }
+            append = afterKey == StaticToken.PLUS_EQUALS;
+            state = State.VALUE;
+        }
+        frame.afterComma = false;
+        path = key.toUnmodifiableJava();
+        return Event.KEY;
+    }
+
+    private Event readPiece() {
+        Token t = nextToken();
+        if (t == StaticToken.OPEN_CURLY || t == StaticToken.OPEN_SQUARE) {
+            return open(t == StaticToken.OPEN_SQUARE, flavor != ConfigSyntax.JSON);
+        } else if (t instanceof TokenWithOrigin.Substitution substitution) {
+            Path p = PathParser.parsePathExpression(substitution.value().iterator(), substitution.origin());
+            path = p.toUnmodifiableJava();
+            optional = substitution.optional();
+            origin = substitution.origin();
+            state = State.AFTER_PIECE;
+            return Event.SUBSTITUTION;
+        } else if (flavor == ConfigSyntax.JSON) {
+            value = simpleValue((TokenWithOrigin) t);
+            origin = value.origin();
+            state = State.AFTER_ELEMENT;
+            return Event.VALUE;
+        }
+
+        // adjacent strings, numbers and so on always concatenate into one
+        // string, so read them as one value
+        AbstractConfigValue first = simpleValue((TokenWithOrigin) t);
+        t = nextToken();
+        if (t instanceof TokenWithOrigin.Value || t instanceof TokenWithOrigin.UnquotedText) {
+            List<AbstractConfigValue> values = new ArrayList<>();
+            values.add(first);
+            do {
+                values.add(simpleValue((TokenWithOrigin) t));
+                t = nextToken();
+            } while (t instanceof TokenWithOrigin.Value || t instanceof TokenWithOrigin.UnquotedText);
+            value = ConfigConcatenation.concatenate(values);
+        } else {
+            value = first;
+        }
+        putBack(t);
+        origin = value.origin();
+        state = State.AFTER_PIECE;
+        return Event.VALUE;
+    }
+
+    // null if there was only a separator, which isn't an event
+    private Event readAfterElement() {
+        Frame frame = frames.peek();
+        if (frame == null)
+            throw new ConfigException.BugOrBroken("element outside of the root value");
+        if (checkElementSeparator()) {
+            frame.afterComma = true;
+            state = frame.array ? State.ELEMENT : State.FIELD;
+            return null;
+        }
+        Token t = nextTokenSkippingWhitespace();
+        if (frame.array) {
+            if (t == StaticToken.CLOSE_SQUARE)
+                return closeFrame();
+            throw parseError("List should have ended with ] or had a comma, instead had token: "
+                    + t
+                    + " (if you want "
+                    + t
+                    + " to be part of a string value, then double-quote it)");
+        } else if (t == StaticToken.CLOSE_CURLY) {
+            if (!frame.hadOpenBrace) {
+                throw parseError(addQuoteSuggestion(t.toString(),
+                        "unbalanced close brace '}' with no open brace"));
+            }
+            return closeFrame();
+        } else if (frame.hadOpenBrace) {
+            throw parseError(addQuoteSuggestion(t.toString(),
+                    "Expecting close brace } or a comma, got " + t));
+        } else if (t == StaticToken.END) {
+            putBack(t);
+            return closeFrame();
+        } else {
+            throw parseError(addQuoteSuggestion(t.toString(),
+                    "Expecting end of input or a comma, got " + t));
+        }
+    }
+
+    private Event open(boolean array, boolean piece) {
+        frames.push(new Frame(array, true, piece));
+        state = array ? State.FIRST_ELEMENT : State.FIELD;
+        origin = lineOrigin();
+        return array ? Event.START_ARRAY : Event.START_OBJECT;
+    }
+
+    private Event closeFrame() {
+        Frame frame = frames.pop();
+        origin = lineOrigin();
+        if (frames.isEmpty()) {
+            // look for trailing tokens now, so that there's no event left
+            // once the root is closed
+            Token t = nextTokenSkippingWhitespace();
+            if (t != StaticToken.END)
+                throw parseError("Document has trailing tokens after first object or array: "
+                        + t);
+            state = State.DONE;
+        } else {
+            state = frame.piece ? State.AFTER_PIECE : State.AFTER_ELEMENT;
+        }
+        return frame.array ? Event.END_ARRAY : Event.END_OBJECT;
+    }
+
+    private void readInclude() {
+        Token t = nextTokenSkippingWhitespace();
+
+        // we either have a 'required()' or a quoted string or the "file()" syntax
+        if (t instanceof TokenWithOrigin.UnquotedText ut && ut.value().startsWith("required(")) {
+            String r = ut.value().replaceFirst("required\\(", "");
+            if (!r.isEmpty()) {
+                putBack(new TokenWithOrigin.UnquotedText(ut.origin(), r));
+            }
+
+            required = true;
+            readIncludeResource();
+
+            t = nextTokenSkippingWhitespace();
+            if (!(t instanceof TokenWithOrigin.UnquotedText unt && unt.value().equals(")")))
+                throw parseError(ExpectingClosingParenthesisError + t);
+        } else {
+            putBack(t);
+            readIncludeResource();
+        }
+    }
+
+    private void readIncludeResource() {
+        Token t = nextTokenSkippingWhitespace();
+
+        // we either have a quoted string or the "file()" syntax
+        if (t instanceof TokenWithOrigin.UnquotedText ut) {
+            // get foo(
+            String kindText = ut.value();
+            String prefix;
+
+            if (kindText.startsWith("url(")) {
+                includeKind = IncludeKind.URL;
+                prefix = "url(";
+            } else if (kindText.startsWith("file(")) {
+                includeKind = IncludeKind.FILE;
+                prefix = "file(";
+            } else if (kindText.startsWith("classpath(")) {
+                includeKind = IncludeKind.CLASSPATH;
+                prefix = "classpath(";
+            } else {
+                throw parseError("expecting include parameter to be quoted filename, file(), classpath(), or url(). No spaces are allowed before the open paren. Not expecting: "
+                        + t);
+            }
+            String r = kindText.replaceFirst("[^(]*\\(", "");
+            if (!r.isEmpty()) {
+                putBack(new TokenWithOrigin.UnquotedText(ut.origin(), r));
+            }
+
+            // skip space inside parens
+            t = nextTokenSkippingWhitespace();
+
+            // quoted string
+            if (!isQuotedString(t)) {
+                throw parseError("expecting include " + prefix + ") parameter to be a quoted string, rather than: " + t);
+            }
+            includeName = (String) ((TokenWithOrigin.Value) t).value().unwrapped();
+            // skip space after string, inside parens
+            t = nextTokenSkippingWhitespace();
+
+            if (t instanceof TokenWithOrigin.UnquotedText unt && unt.value().startsWith(")")) {
+                String rest = unt.value().substring(1);
+                if (!rest.isEmpty()) {
+                    putBack(new TokenWithOrigin.UnquotedText(unt.origin(), rest));
+                }
+                // OK, close paren
+            } else {
+                throw parseError(ExpectingClosingParenthesisError + t);
+            }
+        } else if (isQuotedString(t)) {
+            includeKind = IncludeKind.HEURISTIC;
+            includeName = (String) ((TokenWithOrigin.Value) t).value().unwrapped();
+        } else {
+            throw parseError("include keyword is not followed by a quoted string, but by: " + t);
+        }
+    }
+
+    private Path parseKey(Token token) {
+        if (flavor == ConfigSyntax.JSON) {
+            if (isQuotedString(token)) {
+                return PathParser.parsePathExpression(List.of(token).iterator(), lineOrigin());
+            } else {
+                throw parseError("Expecting close brace } or a field name here, got "
+                        + token);
+            }
+        }
+
+        List<Token> expression = new ArrayList<>();
+        Token t = token;
+        while (t instanceof TokenWithOrigin.Value || t instanceof TokenWithOrigin.UnquotedText) {
+            expression.add(t);
+            t = nextToken(); // note: don't cross a newline
+        }
+
+        if (expression.isEmpty()) {
+            throw parseError(ExpectingClosingParenthesisError + t);
+        }
+
+        putBack(t); // put back the token we ended with
+        return PathParser.parsePathExpression(expression.iterator(), lineOrigin());
+    }
+
+    // In arrays and objects, comma can be omitted
+    // as long as there's at least one newline instead.
+    // this skips any newlines in front of a comma,
+    // skips the comma, and returns true if it found
+    // either a newline or a comma.
+    private boolean checkElementSeparator() {
+        if (flavor == ConfigSyntax.JSON) {
+            Token t = nextTokenSkippingWhitespace();
+            if (t == StaticToken.COMMA) {
+                return true;
+            } else {
+                putBack(t);
+                return false;
+            }
+        }
+
+        boolean sawSeparatorOrNewline = false;
+        while (true) {
+            Token t = nextToken();
+            if (t instanceof TokenWithOrigin.IgnoredWhitespace || isUnquotedWhitespace(t)
+                    || t instanceof TokenWithOrigin.Comment) {
+                // skip
+            } else if (t instanceof TokenWithOrigin.Line) {
+                sawSeparatorOrNewline = true;
+                lineNumber++;
+                // we want to continue to also eat
+                // a comma if there is one.
+            } else if (t == StaticToken.COMMA) {
+                return true;
+            } else {
+                // non-newline-or-comma
+                putBack(t);
+                return sawSeparatorOrNewline;
+            }
+        }
+    }
+
+    private Token nextToken() {
+        Token t = buffer.isEmpty() ? tokens.next() : buffer.pop();
+        if (t instanceof TokenWithOrigin.Problem problem) {
+            throw new ConfigException.Parse(problem.origin(), problem.message(), problem.cause());
+        } else if (flavor == ConfigSyntax.JSON) {
+            if (t instanceof TokenWithOrigin.UnquotedText ut && !isUnquotedWhitespace(ut)) {
+                throw parseError("Token not allowed in valid JSON: '"
+                        + ut.value() + "'");
+            } else if (t instanceof TokenWithOrigin.Substitution) {
+                throw parseError("Substitutions (${} syntax) not allowed in JSON");
+            }
+        }
+        return t;
+    }
+
+    // skips whitespace, newlines and comments
+    private Token nextTokenSkippingWhitespace() {
+        while (true) {
+            Token t = nextToken();
+            if (t instanceof TokenWithOrigin.IgnoredWhitespace || t instanceof TokenWithOrigin.Line
+                    || isUnquotedWhitespace(t) || t instanceof TokenWithOrigin.Comment) {
+                if (t instanceof TokenWithOrigin.Line)
+                    lineNumber = t.lineNumber() + 1;
+            } else {
+                int newNumber = t.lineNumber();
+                if (newNumber >= 0)
+                    lineNumber = newNumber;
+                return t;
+            }
+        }
+    }
+
+    private void putBack(Token token) {
+        buffer.push(token);
+    }
+
+    private boolean isValueStart(Token t) {
+        return t instanceof TokenWithOrigin.Value || t instanceof TokenWithOrigin.UnquotedText
+                || t instanceof TokenWithOrigin.Substitution || t == StaticToken.OPEN_CURLY
+                || t == StaticToken.OPEN_SQUARE;
+    }
+
+    private boolean isKeyValueSeparatorToken(Token t) {
+        if (flavor == ConfigSyntax.JSON) {
+            return t == StaticToken.COLON;
+        } else {
+            return t == StaticToken.COLON || t == StaticToken.EQUALS || t == StaticToken.PLUS_EQUALS;
+        }
+    }
+
+    private static AbstractConfigValue simpleValue(TokenWithOrigin t) {
+        if (t instanceof TokenWithOrigin.Value v)
+            return v.value();
+        else
+            return new ConfigString.Unquoted(t.origin(), ((TokenWithOrigin.UnquotedText) t).value());
+    }
+
+    private static boolean isQuotedString(Token t) {
+        return t instanceof TokenWithOrigin.Value v && v.value().valueType() == ConfigValueType.STRING;
+    }
+
+    private static boolean isIncludeKeyword(Token t) {
+        return t instanceof TokenWithOrigin.UnquotedText ut
+                && ut.value().equals("include");
+    }
+
+    private static boolean isUnquotedWhitespace(Token t) {
+        if (!(t instanceof TokenWithOrigin.UnquotedText ut))
+            return false;
+
+        String s = ut.value();
+
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            if (!ConfigImplUtil.isWhitespace(c))
+                return false;
+        }
+        return true;
+    }
+
+    private ConfigOrigin lineOrigin() {
+        return baseOrigin.withLineNumber(lineNumber);
+    }
+
+    private ConfigException parseError(String message) {
+        return new ConfigException.Parse(lineOrigin(), message);
+    }
+
+    private static String addQuoteSuggestion(String badToken, String message) {
+        if (badToken.equals(StaticToken.END.toString()))
+            return message;
+        return message + " (if you intended " + badToken
+                + " to be part of a key or string value, "
+                + "try enclosing the key or value in double quotes)";
+    }
+}
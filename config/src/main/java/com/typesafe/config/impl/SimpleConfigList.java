@@ -18,6 +18,8 @@ final class SimpleConfigList extends AbstractConfigValue implements ConfigList,
 
     final private List<AbstractConfigValue> value;
     final private boolean resolved;
+    // cached by hashCode(), 0 if not computed yet; racy like String.hash
+    private int hash;
 
     SimpleConfigList(ConfigOrigin origin, List<AbstractConfigValue> value) {
         this(origin, value, ResolveStatus
@@ -216,10 +218,16 @@ final class SimpleConfigList extends AbstractConfigValue implements ConfigList,
     @Override
     public boolean equals(Object other) {
         // note that "origin" is deliberately NOT part of equality
-        if (other instanceof SimpleConfigList) {
+        if (other instanceof SimpleConfigList list) {
+            if (this == list)
+                return true;
+            // hashes are only compared once both are cached, since
+            // computing one walks the whole list anyway
+            if (hash != 0 && list.hash != 0 && hash != list.hash)
+                return false;
             // optimization to avoid unwrapped() for two ConfigList
             return canEqual(other)
-                    && (value == ((SimpleConfigList) other).value || value.equals(((SimpleConfigList) other).value));
+                    && (value == list.value || value.equals(list.value));
         } else {
             return false;
         }
@@ -228,18 +236,31 @@ final class SimpleConfigList extends AbstractConfigValue implements ConfigList,
     @Override
     public int hashCode() {
         // note that "origin" is deliberately NOT part of equality
-        return value.hashCode();
+        int h = hash;
+        if (h == 0) {
+            h = value.hashCode();
+            hash = h;
+        }
+        return h;
     }
 
     @Override
-    protected void render(StringBuilder sb, int indent, boolean atRoot, ConfigRenderOptions options) {
+    protected void render(RenderSink sb, int indent, boolean atRoot, ConfigRenderOptions options) {
         if (value.isEmpty()) {
             sb.append("[]");
         } else {
             sb.append("[");
             if (options.getFormatted())
                 sb.append('\n');
+            boolean first = true;
             for (AbstractConfigValue v : value) {
+                if (first)
+                    first = false;
+                else if (options.getFormatted())
+                    sb.append(",\n");
+                else
+                    sb.append(",");
+
                 if (options.getOriginComments()) {
                     String[] lines = v.origin().description().split("\n");
                     for (String l : lines) {
@@ -262,13 +283,8 @@ final class SimpleConfigList extends AbstractConfigValue implements ConfigList,
                 indent(sb, indent + 1, options);
 
                 v.render(sb, indent + 1, atRoot, options);
-                sb.append(",");
-                if (options.getFormatted())
-                    sb.append('\n');
             }
-            sb.setLength(sb.length() - 1); // chop or newline
             if (options.getFormatted()) {
-                sb.setLength(sb.length() - 1); // also chop comma
                 sb.append('\n');
                 indent(sb, indent, options);
             }
@@ -9,6 +9,7 @@ import java.io.ObjectStreamException;
 import java.io.Serial;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 final class SimpleConfigObject extends AbstractConfigObject implements Serializable {
@@ -20,21 +21,41 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
     final private Map<String, AbstractConfigValue> value;
     final private boolean resolved;
     final private boolean ignoresFallbacks;
+    // the keys in the order they were parsed in, followed by keys added
+    // since; null unless parsed with ConfigParseOptions.setPreserveKeyOrder.
+    // An array rather than an ordered map so that the map can be anything,
+    // including a HashTrieMap after withValue(). Don't modify.
+    final private String[] keyOrder;
+    // cached by hashCode(), 0 if not computed yet; racy like String.hash
+    private int hash;
+    // cached by sortedKeys() and jsonKeyPrefixes() the first time this is
+    // rendered, since a config that's rendered once is often rendered again
+    private volatile String[] sortedKeys;
+    private volatile byte[][] jsonKeyPrefixes;
 
     SimpleConfigObject(ConfigOrigin origin,
                        Map<String, AbstractConfigValue> value, ResolveStatus status,
                        boolean ignoresFallbacks) {
+        this(origin, value, status == ResolveStatus.RESOLVED, ignoresFallbacks, null);
+
+        // Kind of an expensive debug check. Comment out?
+        if (status != ResolveStatus.fromValues(value.values()))
+            throw new ConfigException.BugOrBroken("Wrong resolved status on " + this);
+    }
+
+    // does not check the resolve status against the values, so only
+    // use it when the status is known without walking the map.
+    private SimpleConfigObject(ConfigOrigin origin,
+                               Map<String, AbstractConfigValue> value, boolean resolved,
+                               boolean ignoresFallbacks, String[] keyOrder) {
         super(origin);
         if (value == null)
             throw new ConfigException.BugOrBroken(
                     "creating config object with null map");
         this.value = value;
-        this.resolved = status == ResolveStatus.RESOLVED;
+        this.resolved = resolved;
         this.ignoresFallbacks = ignoresFallbacks;
-
-        // Kind of an expensive debug check. Comment out?
-        if (status != ResolveStatus.fromValues(value.values()))
-            throw new ConfigException.BugOrBroken("Wrong resolved status on " + this);
+        this.keyOrder = keyOrder;
     }
 
     SimpleConfigObject(ConfigOrigin origin,
@@ -42,34 +63,33 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
         this(origin, value, ResolveStatus.fromValues(value.values()), false /* ignoresFallbacks */);
     }
 
-    private static boolean mapEquals(Map<String, ConfigValue> a, Map<String, ConfigValue> b) {
+    private static boolean mapEquals(SimpleConfigObject a, ConfigObject b) {
         if (a == b)
             return true;
-
-        Set<String> aKeys = a.keySet();
-        Set<String> bKeys = b.keySet();
-
-        if (!aKeys.equals(bKeys))
+        if (a.size() != b.size())
+            return false;
+        // hashes are only compared once both are cached, since computing
+        // one walks the whole tree anyway
+        if (b instanceof SimpleConfigObject sb && a.hash != 0 && sb.hash != 0 && a.hash != sb.hash)
             return false;
 
-        for (String key : aKeys) {
-            if (!a.get(key).equals(b.get(key)))
+        for (Map.Entry<String, AbstractConfigValue> e : a.value.entrySet()) {
+            ConfigValue bValue = b.get(e.getKey());
+            if (bValue == null || !e.getValue().equals(bValue))
                 return false;
         }
         return true;
     }
 
-    private static int mapHash(Map<String, ConfigValue> m) {
-        // the keys have to be sorted, otherwise we could be equal
-        // to another map but have a different hashcode.
-        List<String> keys = new ArrayList<>(m.keySet());
-        Collections.sort(keys);
-
-        int valuesHash = 0;
-        for (String k : keys) {
-            valuesHash += m.get(k).hashCode();
+    private static int mapHash(Map<String, AbstractConfigValue> m) {
+        // summing makes this independent of iteration order, so equal
+        // maps get the same hash without sorting the keys. This is also
+        // what java.util.Map specifies.
+        int h = 0;
+        for (Map.Entry<String, AbstractConfigValue> e : m.entrySet()) {
+            h += e.getKey().hashCode() ^ e.getValue().hashCode();
         }
-        return 41 * (41 + keys.hashCode()) + valuesHash;
+        return h;
     }
 
     static SimpleConfigObject empty() {
@@ -84,6 +104,32 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
                     Collections.emptyMap());
     }
 
+    // for a map that can only hold resolved values and that would be
+    // expensive to walk, such as a lazily-decoded snapshot (walking it
+    // for the debug check would decode everything).
+    static SimpleConfigObject fromResolvedMap(ConfigOrigin origin,
+                                              Map<String, AbstractConfigValue> value) {
+        return withKnownStatus(origin, value, ResolveStatus.RESOLVED);
+    }
+
+    // for callers that already looked at every value while building the
+    // map, so the debug check would be a second walk for nothing.
+    static SimpleConfigObject withKnownStatus(ConfigOrigin origin,
+                                              Map<String, AbstractConfigValue> value, ResolveStatus status) {
+        return new SimpleConfigObject(origin, value, status == ResolveStatus.RESOLVED, false /* ignoresFallbacks */,
+                null);
+    }
+
+    // for the parser, which knows the order it put the keys in
+    SimpleConfigObject withKeyOrder(String[] keyOrder) {
+        return new SimpleConfigObject(origin(), value, resolved, ignoresFallbacks, keyOrder);
+    }
+
+    // the order keys are given in by withKeyOrder(), or null
+    String[] keyOrder() {
+        return keyOrder;
+    }
+
     static SimpleConfigObject emptyMissing(ConfigOrigin baseOrigin) {
         return new SimpleConfigObject(SimpleConfigOrigin.newSimple(
                 baseOrigin.description() + " (not found)"),
@@ -148,24 +194,17 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
         AbstractConfigValue v = value.get(key);
 
         if (next != null && v instanceof AbstractConfigObject abstractConfigObject) {
-            v = abstractConfigObject.withoutPath(next);
-            Map<String, AbstractConfigValue> updated = new HashMap<>(
-                    value);
-            updated.put(key, v);
-            return new SimpleConfigObject(origin(), updated, ResolveStatus.fromValues(updated
-                    .values()), ignoresFallbacks);
+            return withValue(key, abstractConfigObject.withoutPath(next));
         } else if (next != null || v == null) {
             // can't descend, nothing to remove
             return this;
         } else {
-            Map<String, AbstractConfigValue> smaller = new HashMap<>(
-                    value.size() - 1);
-            for (Map.Entry<String, AbstractConfigValue> old : value.entrySet()) {
-                if (!old.getKey().equals(key))
-                    smaller.put(old.getKey(), old.getValue());
-            }
-            return new SimpleConfigObject(origin(), smaller, ResolveStatus.fromValues(smaller
-                    .values()), ignoresFallbacks);
+            HashTrieMap<String, AbstractConfigValue> smaller = HashTrieMap.from(value).minus(key);
+            // removing a value can't make us unresolved, but it may have
+            // been the only unresolved one
+            boolean smallerResolved = resolved || ResolveStatus.fromValues(smaller.values()) == ResolveStatus.RESOLVED;
+            return new SimpleConfigObject(origin(), smaller, smallerResolved, ignoresFallbacks,
+                    keyOrderWithout(Collections.singleton(key)));
         }
     }
 
@@ -175,16 +214,34 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
             throw new ConfigException.BugOrBroken(
                     "Trying to store null ConfigValue in a ConfigObject");
 
-        Map<String, AbstractConfigValue> newMap;
+        AbstractConfigValue newValue = (AbstractConfigValue) v;
         if (value.isEmpty()) {
-            newMap = Collections.singletonMap(key, (AbstractConfigValue) v);
-        } else {
-            newMap = new HashMap<>(value);
-            newMap.put(key, (AbstractConfigValue) v);
+            return new SimpleConfigObject(origin(), Collections.singletonMap(key, newValue),
+                    newValue.resolveStatus() == ResolveStatus.RESOLVED, ignoresFallbacks,
+                    keyOrder != null ? new String[]{key} : null);
         }
 
-        return new SimpleConfigObject(origin(), newMap, ResolveStatus.fromValues(newMap.values()),
-                ignoresFallbacks);
+        // the trie shares structure with the old map, so this is
+        // O(log n) rather than a copy of the whole map; after the first
+        // update of a parsed (HashMap-backed) object, later ones stay cheap.
+        HashTrieMap<String, AbstractConfigValue> newMap = HashTrieMap.from(value).plus(key, newValue);
+
+        // work out the status without walking all the values when we can
+        boolean newResolved;
+        if (newValue.resolveStatus() == ResolveStatus.UNRESOLVED)
+            newResolved = false;
+        else if (resolved)
+            newResolved = true;
+        else
+            newResolved = ResolveStatus.fromValues(newMap.values()) == ResolveStatus.RESOLVED;
+
+        String[] newKeyOrder = keyOrder;
+        if (keyOrder != null && !value.containsKey(key)) {
+            newKeyOrder = Arrays.copyOf(keyOrder, keyOrder.length + 1);
+            newKeyOrder[keyOrder.length] = key;
+        }
+
+        return new SimpleConfigObject(origin(), newMap, newResolved, ignoresFallbacks, newKeyOrder);
     }
 
     @Override
@@ -215,7 +272,8 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
 
     private SimpleConfigObject newCopy(ResolveStatus newStatus, ConfigOrigin newOrigin,
                                        boolean newIgnoresFallbacks) {
-        return new SimpleConfigObject(newOrigin, value, newStatus, newIgnoresFallbacks);
+        return new SimpleConfigObject(newOrigin, value, newStatus == ResolveStatus.RESOLVED, newIgnoresFallbacks,
+                keyOrder);
     }
 
     @Override
@@ -246,8 +304,9 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
                 else
                     newChildren.remove(old.getKey());
 
-                return new SimpleConfigObject(origin(), newChildren, ResolveStatus.fromValues(newChildren.values()),
-                        ignoresFallbacks);
+                return new SimpleConfigObject(origin(), newChildren,
+                        ResolveStatus.fromValues(newChildren.values()) == ResolveStatus.RESOLVED, ignoresFallbacks,
+                        replacement != null ? keyOrder : keyOrderWithout(Collections.singleton(old.getKey())));
             }
         }
         throw new ConfigException.BugOrBroken("SimpleConfigObject.replaceChild did not find " + child + " in " + this);
@@ -282,6 +341,30 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
         return m;
     }
 
+    private String[] keyOrderWithout(Set<String> removed) {
+        if (keyOrder == null)
+            return null;
+        List<String> remaining = new ArrayList<>(keyOrder.length);
+        for (String k : keyOrder) {
+            if (!removed.contains(k))
+                remaining.add(k);
+        }
+        return remaining.toArray(new String[0]);
+    }
+
+    // the fallback's keys usually come first in the source, as with a
+    // duplicate key in one file or reference.conf behind application.conf,
+    // so the order is the fallback's followed by the new keys
+    private static String[] mergedKeyOrder(SimpleConfigObject first, SimpleConfigObject fallback) {
+        if (first.keyOrder == null && fallback.keyOrder == null)
+            return null;
+        SimpleConfigObject earlier = fallback.keyOrder != null ? fallback : first;
+        SimpleConfigObject later = earlier == fallback ? first : fallback;
+        Set<String> order = new LinkedHashSet<>(Arrays.asList(earlier.keyOrder));
+        order.addAll(Arrays.asList(later.keyOrder != null ? later.keyOrder : later.sortedKeys()));
+        return order.toArray(new String[0]);
+    }
+
     @Override
     protected SimpleConfigObject mergedWithObject(AbstractConfigObject abstractFallback) {
         requireNotIgnoringFallbacks();
@@ -324,8 +407,8 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
         boolean newIgnoresFallbacks = fallback.ignoresFallbacks();
 
         if (changed) {
-            return new SimpleConfigObject(mergeOrigins(this, fallback), merged, newResolveStatus,
-                    newIgnoresFallbacks);
+            return new SimpleConfigObject(mergeOrigins(this, fallback), merged,
+                    newResolveStatus == ResolveStatus.RESOLVED, newIgnoresFallbacks, mergedKeyOrder(this, fallback));
         } else if (newResolveStatus != resolveStatus() || newIgnoresFallbacks != ignoresFallbacks()) {
             return newCopy(newResolveStatus, origin(), newIgnoresFallbacks);
         } else {
@@ -361,6 +444,7 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
             return this;
         } else {
             Map<String, AbstractConfigValue> modified = new HashMap<>();
+            Set<String> removed = new HashSet<>();
             boolean sawUnresolved = false;
             for (String k : keySet()) {
                 if (changes.containsKey(k)) {
@@ -372,6 +456,7 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
                         }
                     } else {
                         // remove this child; don't put it in the new map.
+                        removed.add(k);
                     }
                 } else {
                     AbstractConfigValue newValue = value.get(k);
@@ -381,9 +466,8 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
                     }
                 }
             }
-            return new SimpleConfigObject(origin(), modified,
-                    sawUnresolved ? ResolveStatus.UNRESOLVED : ResolveStatus.RESOLVED,
-                    ignoresFallbacks());
+            return new SimpleConfigObject(origin(), modified, !sawUnresolved, ignoresFallbacks(),
+                    removed.isEmpty() ? keyOrder : keyOrderWithout(removed));
         }
     }
 
@@ -420,7 +504,7 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
     }
 
     @Override
-    protected void render(StringBuilder sb, int indent, boolean atRoot, ConfigRenderOptions options) {
+    protected void render(RenderSink sb, int indent, boolean atRoot, ConfigRenderOptions options) {
         if (isEmpty()) {
             sb.append("{}");
         } else {
@@ -437,13 +521,21 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
                 innerIndent = indent;
             }
 
-            int separatorCount = 0;
-            String[] keys = keySet().toArray(new String[size()]);
-            Arrays.sort(keys, new RenderComparator());
+            String[] keys = renderOrder(options.getKeyOrder());
+            boolean first = true;
             for (String k : keys) {
                 AbstractConfigValue v;
                 v = value.get(k);
 
+                // separators go before each but the first, since what's
+                // written can't be taken back
+                if (first)
+                    first = false;
+                else if (options.getFormatted())
+                    sb.append(options.getJson() ? ",\n" : "\n");
+                else
+                    sb.append(",");
+
                 if (options.getOriginComments()) {
                     String[] lines = v.origin().description().split("\n");
                     for (String l : lines) {
@@ -467,22 +559,7 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
                 }
                 indent(sb, innerIndent, options);
                 v.render(sb, innerIndent, false /* atRoot */, k, options);
-
-                if (options.getFormatted()) {
-                    if (options.getJson()) {
-                        sb.append(",");
-                        separatorCount = 2;
-                    } else {
-                        separatorCount = 1;
-                    }
-                    sb.append('\n');
-                } else {
-                    sb.append(",");
-                    separatorCount = 1;
-                }
             }
-            // chop last commas/newlines
-            sb.setLength(sb.length() - separatorCount);
 
             if (outerBraces) {
                 if (options.getFormatted()) {
@@ -497,6 +574,39 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
             sb.append('\n');
     }
 
+    // the keys in the order they're rendered; don't modify
+    String[] renderOrder(ConfigRenderOptions.KeyOrder order) {
+        return switch (order) {
+            case SORTED -> sortedKeys();
+            case SOURCE -> keyOrder != null ? keyOrder : sortedKeys();
+            case UNORDERED -> keySet().toArray(new String[size()]);
+        };
+    }
+
+    private String[] sortedKeys() {
+        String[] keys = sortedKeys;
+        if (keys == null) {
+            keys = keySet().toArray(new String[size()]);
+            Arrays.sort(keys, new RenderComparator());
+            sortedKeys = keys;
+        }
+        return keys;
+    }
+
+    // for each key in sorted order, the key as a JSON string followed by a
+    // colon, in UTF-8; don't modify
+    byte[][] jsonKeyPrefixes() {
+        byte[][] prefixes = jsonKeyPrefixes;
+        if (prefixes == null) {
+            String[] keys = sortedKeys();
+            prefixes = new byte[keys.length][];
+            for (int i = 0; i < keys.length; ++i)
+                prefixes[i] = (ConfigImplUtil.renderJsonString(keys[i]) + ":").getBytes(StandardCharsets.UTF_8);
+            jsonKeyPrefixes = prefixes;
+        }
+        return prefixes;
+    }
+
     @Override
     public AbstractConfigValue get(Object key) {
         return value.get(key);
@@ -514,7 +624,7 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
         if (other instanceof ConfigObject) {
             // optimization to avoid unwrapped() for two ConfigObject,
             // which is what AbstractConfigValue does.
-            return canEqual(other) && mapEquals(this, ((ConfigObject) other));
+            return canEqual(other) && mapEquals(this, (ConfigObject) other);
         } else {
             return false;
         }
@@ -524,7 +634,12 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
     public int hashCode() {
         // note that "origin" is deliberately NOT part of equality
         // neither are other "extras" like ignoresFallbacks or resolve status.
-        return mapHash(this);
+        int h = hash;
+        if (h == 0) {
+            h = mapHash(value);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
@@ -542,6 +657,29 @@ final class SimpleConfigObject extends AbstractConfigObject implements Serializa
         return value.containsValue(v);
     }
 
+    // reports the children that aren't the same object in both, without
+    // copying either map; when both were made by withValue() from a common
+    // object, the parts of the maps they still share aren't even looked at
+    void diffChildren(SimpleConfigObject other,
+                      HashTrieMap.DiffVisitor<String, AbstractConfigValue> visitor) {
+        if (value instanceof HashTrieMap<String, AbstractConfigValue> trie
+                && other.value instanceof HashTrieMap<String, AbstractConfigValue> otherTrie) {
+            trie.diff(otherTrie, visitor);
+            return;
+        }
+        for (Map.Entry<String, AbstractConfigValue> e : value.entrySet()) {
+            AbstractConfigValue otherValue = other.value.get(e.getKey());
+            if (otherValue == null)
+                visitor.onlyInThis(e.getKey(), e.getValue());
+            else if (otherValue != e.getValue())
+                visitor.different(e.getKey(), e.getValue(), otherValue);
+        }
+        for (Map.Entry<String, AbstractConfigValue> e : other.value.entrySet()) {
+            if (!value.containsKey(e.getKey()))
+                visitor.onlyInOther(e.getKey(), e.getValue());
+        }
+    }
+
     @Override
     public Set<Map.Entry<String, ConfigValue>> entrySet() {
         // total bloat just to work around lack of type variance
@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2011-2012 Typesafe Inc. <http://typesafe.com>
+ */
+package com.typesafe.config.impl;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigWatcher;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+public final class SimpleConfigWatcher implements ConfigWatcher {
+    private final Supplier<Config> loader;
+    private final Duration debounce;
+    private final WatchService watchService;
+
+    private final List<Consumer<? super Config>> subscribers = new CopyOnWriteArrayList<>();
+    private final List<Consumer<? super RuntimeException>> failureListeners = new CopyOnWriteArrayList<>();
+
+    private volatile Config current;
+    private volatile boolean closed = false;
+    // the tracking of the last load that succeeded, whose parsed files the
+    // next load reuses
+    private FileTracking lastTracking;
+    // what we're watching; after construction, only the watcher thread
+    // touches these
+    private volatile Set<Path> files;
+    private final Map<Path, WatchKey> directories = new HashMap<>();
+
+    SimpleConfigWatcher(Supplier<Config> loader, Duration debounce) {
+        if (debounce.isNegative())
+            throw new ConfigException.BugOrBroken("debounce interval can't be negative: " + debounce);
+        this.loader = loader;
+        this.debounce = debounce;
+
+        FileTracking tracking = new FileTracking(null);
+        this.current = tracking.run(loader);
+        this.lastTracking = tracking;
+        this.files = tracking.files();
+
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new ConfigException.IO(SimpleConfigOrigin.newSimple("config watcher"),
+                    "could not watch files: " + e.getMessage(), e);
+        }
+        watchDirectoriesOf(files);
+
+        if (ConfigImpl.traceLoadsEnabled())
+            ConfigImpl.trace("Watching " + files.size() + " files in " + directories.size() + " directories");
+
+        Thread.ofVirtual().name("config-watcher").start(this::run);
+    }
+
+    @Override
+    public Config current() {
+        return current;
+    }
+
+    @Override
+    public Set<Path> watchedFiles() {
+        return files;
+    }
+
+    @Override
+    public void subscribe(Consumer<? super Config> listener) {
+        subscribers.add(listener);
+    }
+
+    @Override
+    public void onFailure(Consumer<? super RuntimeException> listener) {
+        failureListeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // nothing useful to do about it, we're done watching anyway
+        }
+    }
+
+    // watches the directory of each file, and stops watching directories
+    // that no longer have any of the files
+    private void watchDirectoriesOf(Set<Path> files) {
+        Set<Path> wanted = new HashSet<>();
+        for (Path file : files) {
+            Path dir = file.getParent();
+            if (dir != null)
+                wanted.add(dir);
+        }
+
+        Iterator<Map.Entry<Path, WatchKey>> i = directories.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry<Path, WatchKey> entry = i.next();
+            if (!wanted.contains(entry.getKey())) {
+                entry.getValue().cancel();
+                i.remove();
+            }
+        }
+
+        for (Path dir : wanted) {
+            if (directories.containsKey(dir))
+                continue;
+            try {
+                directories.put(dir, dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE));
+            } catch (NoSuchFileException | NotDirectoryException e) {
+                // files in it can't be created without creating it first,
+                // which we'd only see by watching its parent; leave it be
+                if (ConfigImpl.traceLoadsEnabled())
+                    ConfigImpl.trace("Not watching " + dir + " since it doesn't exist");
+            } catch (IOException e) {
+                if (ConfigImpl.traceLoadsEnabled())
+                    ConfigImpl.trace("Could not watch " + dir + ": " + e);
+            }
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean changed = handle(watchService.take());
+                // editors and deployment tools often write a file in several
+                // steps, or several files at once; wait for them to finish
+                WatchKey key;
+                while ((key = watchService.poll(debounce.toNanos(), TimeUnit.NANOSECONDS)) != null) {
+                    changed |= handle(key);
+                }
+                if (changed && !closed)
+                    reload();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed, we're done
+        }
+    }
+
+    // whether any of the events were for files we watch
+    private boolean handle(WatchKey key) {
+        Path dir = (Path) key.watchable();
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || files.contains(dir.resolve((Path) event.context())))
+                relevant = true;
+        }
+        if (!key.reset())
+            directories.remove(dir);
+        return relevant;
+    }
+
+    private void reload() {
+        FileTracking tracking = new FileTracking(lastTracking);
+        Config config;
+        try {
+            config = tracking.run(loader);
+        } catch (RuntimeException e) {
+            if (ConfigImpl.traceLoadsEnabled())
+                ConfigImpl.trace("Reloading watched config failed: " + e);
+            // keep watching what we had, and whatever the failed load got to,
+            // so fixing the problem triggers another reload
+            Set<Path> union = new HashSet<>(files);
+            union.addAll(tracking.files());
+            files = Set.copyOf(union);
+            watchDirectoriesOf(files);
+            for (Consumer<? super RuntimeException> listener : failureListeners) {
+                if (!closed)
+                    tell(listener, e);
+            }
+            return;
+        }
+
+        lastTracking = tracking;
+        files = tracking.files();
+        watchDirectoriesOf(files);
+
+        if (config.equals(current))
+            return;
+        current = config;
+        if (ConfigImpl.traceLoadsEnabled())
+            ConfigImpl.trace("Reloaded watched config");
+        for (Consumer<? super Config> subscriber : subscribers) {
+            if (!closed)
+                tell(subscriber, config);
+        }
+    }
+
+    // a listener that throws shouldn't stop the watcher or the other
+    // listeners; report it the way an uncaught exception would be
+    private <T> void tell(Consumer<? super T> listener, T value) {
+        try {
+            listener.accept(value);
+        } catch (RuntimeException e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+}
@@ -34,11 +34,19 @@ class SimpleIncludeContext implements ConfigIncludeContext {
         if (ConfigImpl.traceLoadsEnabled())
             ConfigImpl.trace("Looking for '" + filename + "' relative to " + parseable);
         if (parseable != null)
-            return parseable.relativeTo(filename);
+            return adopt(parseable.relativeTo(filename));
         else
             return null;
     }
 
+    // records that the parseable is being included by ours, which is how
+    // include cycles are detected
+    ConfigParseable adopt(ConfigParseable included) {
+        if (parseable != null && included instanceof Parseable p)
+            p.setIncludedFrom(parseable);
+        return included;
+    }
+
     @Override
     public ConfigParseOptions parseOptions() {
         return options;
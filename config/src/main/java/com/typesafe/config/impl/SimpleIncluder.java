@@ -46,17 +46,32 @@ class SimpleIncluder implements FullIncluder {
         }
     }
 
+    // these are the ConfigFactory.parse methods of the same names, except
+    // that the included parseables know they're included from the context's
+    // parseable
     static ConfigObject includeURLWithoutFallback(final ConfigIncludeContext context, URI url) {
-        return ConfigFactory.parseURI(url, context.parseOptions()).root();
+        Parseable p = Parseable.newURI(url, context.parseOptions());
+        if (context instanceof SimpleIncludeContext simple)
+            simple.adopt(p);
+        return p.parse();
     }
 
     static ConfigObject includeFileWithoutFallback(final ConfigIncludeContext context, File file) {
-        return ConfigFactory.parseFileAnySyntax(file, context.parseOptions()).root();
+        return fromBasename(adopting(context, new ConfigImpl.FileNameSource()), file.getPath(),
+                context.parseOptions());
     }
 
     static ConfigObject includeResourceWithoutFallback(final ConfigIncludeContext context,
                                                        String resource) {
-        return ConfigFactory.parseResourcesAnySyntax(resource, context.parseOptions()).root();
+        return fromBasename(adopting(context, new ConfigImpl.ClasspathNameSource()), resource,
+                context.parseOptions());
+    }
+
+    private static NameSource adopting(ConfigIncludeContext context, NameSource source) {
+        if (context instanceof SimpleIncludeContext simple)
+            return (name, options) -> simple.adopt(source.nameToParseable(name, options));
+        else
+            return source;
     }
 
     // this function is a little tricky because there are three places we're
@@ -68,46 +83,60 @@ class SimpleIncluder implements FullIncluder {
         if (name.endsWith(".conf") || name.endsWith(".json") || name.endsWith(".properties")) {
             ConfigParseable p = source.nameToParseable(name, options);
 
-            obj = p.parse(p.options().setAllowMissing(options.getAllowMissing()));
+            // a relative name gets the options of the file it's relative
+            // to, but the path filter has to be the one for this include
+            obj = p.parse(p.options().setAllowMissing(options.getAllowMissing())
+                    .setPathFilter(options.getPathFilter()));
         } else {
             ConfigParseable confHandle = source.nameToParseable(name + ".conf", options);
             ConfigParseable jsonHandle = source.nameToParseable(name + ".json", options);
             ConfigParseable propsHandle = source.nameToParseable(name + ".properties", options);
+            List<ConfigParseable> handles = List.of(confHandle, jsonHandle, propsHandle);
+            List<ConfigSyntax> syntaxes = List.of(ConfigSyntax.CONF, ConfigSyntax.JSON, ConfigSyntax.PROPERTIES);
+            // find out what's there up front so that missing files don't
+            // have to be parsed (and fail) to find out they're missing
+            Boolean[] exists = Parseable.probeExistence(handles);
             boolean gotSomething = false;
+            List<Integer> skipped = new ArrayList<>();
             List<ConfigException.IO> fails = new ArrayList<>();
 
             ConfigSyntax syntax = options.getSyntax();
 
             obj = SimpleConfigObject.empty(SimpleConfigOrigin.newSimple(name));
-            if (syntax == null || syntax == ConfigSyntax.CONF) {
-                try {
-                    obj = confHandle.parse(confHandle.options().setAllowMissing(false)
-                            .setSyntax(ConfigSyntax.CONF));
-                    gotSomething = true;
-                } catch (ConfigException.IO e) {
-                    fails.add(e);
+            for (int i = 0; i < handles.size(); ++i) {
+                ConfigParseable handle = handles.get(i);
+                ConfigSyntax handleSyntax = syntaxes.get(i);
+                if (syntax != null && syntax != handleSyntax)
+                    continue;
+                if (Boolean.FALSE.equals(exists[i])) {
+                    if (ConfigImpl.traceLoadsEnabled())
+                        ConfigImpl.trace(handle + " does not exist, not trying to load it");
+                    skipped.add(i);
+                    continue;
                 }
-            }
 
-            if (syntax == null || syntax == ConfigSyntax.JSON) {
                 try {
-                    ConfigObject parsed = jsonHandle.parse(jsonHandle.options()
-                            .setAllowMissing(false).setSyntax(ConfigSyntax.JSON));
-                    obj = obj.withFallback(parsed);
+                    ConfigObject parsed = handle.parse(handle.options()
+                            .setAllowMissing(false).setSyntax(handleSyntax)
+                            .setPathFilter(options.getPathFilter()));
+                    obj = handleSyntax == ConfigSyntax.CONF ? parsed : obj.withFallback(parsed);
                     gotSomething = true;
                 } catch (ConfigException.IO e) {
                     fails.add(e);
                 }
             }
 
-            if (syntax == null || syntax == ConfigSyntax.PROPERTIES) {
-                try {
-                    ConfigObject parsed = propsHandle.parse(propsHandle.options()
-                            .setAllowMissing(false).setSyntax(ConfigSyntax.PROPERTIES));
-                    obj = obj.withFallback(parsed);
-                    gotSomething = true;
-                } catch (ConfigException.IO e) {
-                    fails.add(e);
+            if (!options.getAllowMissing() && !gotSomething) {
+                // parse what we skipped anyway, only to get the same
+                // errors we'd have gotten without probing first
+                for (int i : skipped) {
+                    ConfigParseable handle = handles.get(i);
+                    try {
+                        handle.parse(handle.options().setAllowMissing(false).setSyntax(syntaxes.get(i))
+                                .setPathFilter(options.getPathFilter()));
+                    } catch (ConfigException.IO e) {
+                        fails.add(e);
+                    }
                 }
             }
 
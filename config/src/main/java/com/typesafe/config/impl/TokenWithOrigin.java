@@ -11,7 +11,10 @@ import java.util.Objects;
 
 abstract sealed class TokenWithOrigin implements Token {
     final private String debugString;
+    // for a token made from a line number, this is the origin of the whole
+    // input, and the token's own origin is only made if someone asks for it
     final private ConfigOrigin origin;
+    final private int lineNumber;
     final private String tokenText;
 
     TokenWithOrigin(ConfigOrigin origin) {
@@ -24,10 +27,18 @@ abstract sealed class TokenWithOrigin implements Token {
 
     TokenWithOrigin(ConfigOrigin origin, String tokenText, String debugString) {
         this.origin = origin;
+        this.lineNumber = origin != null ? origin.lineNumber() : -1;
         this.debugString = debugString;
         this.tokenText = tokenText;
     }
 
+    TokenWithOrigin(SimpleConfigOrigin baseOrigin, int lineNumber) {
+        this.origin = baseOrigin;
+        this.lineNumber = lineNumber;
+        this.debugString = null;
+        this.tokenText = null;
+    }
+
     public String tokenText() {
         return tokenText;
     }
@@ -40,14 +51,14 @@ abstract sealed class TokenWithOrigin implements Token {
         if (origin == null)
             throw new ConfigException.BugOrBroken(
                     "tried to get origin from token that doesn't have one: " + this);
-        return origin;
+        else if (origin.lineNumber() == lineNumber)
+            return origin;
+        else
+            return ((SimpleConfigOrigin) origin).withLineNumber(lineNumber);
     }
 
     public final int lineNumber() {
-        if (origin != null)
-            return origin.lineNumber();
-        else
-            return -1;
+        return lineNumber;
     }
 
     @Override
@@ -150,6 +161,10 @@ abstract sealed class TokenWithOrigin implements Token {
             super(origin);
         }
 
+        Line(SimpleConfigOrigin baseOrigin, int lineNumber) {
+            super(baseOrigin, lineNumber);
+        }
+
         @Override
         public String toString() {
             return "'\\n'@" + lineNumber();
@@ -185,6 +200,11 @@ abstract sealed class TokenWithOrigin implements Token {
             this.value = s;
         }
 
+        UnquotedText(SimpleConfigOrigin baseOrigin, int lineNumber, String s) {
+            super(baseOrigin, lineNumber);
+            this.value = s;
+        }
+
         String value() {
             return value;
         }
@@ -224,6 +244,11 @@ abstract sealed class TokenWithOrigin implements Token {
             this.value = s;
         }
 
+        IgnoredWhitespace(SimpleConfigOrigin baseOrigin, int lineNumber, String s) {
+            super(baseOrigin, lineNumber);
+            this.value = s;
+        }
+
         @Override
         public String toString() {
             return "'" + value + "' (WHITESPACE)";
@@ -326,6 +351,11 @@ abstract sealed class TokenWithOrigin implements Token {
             this.text = text;
         }
 
+        Comment(SimpleConfigOrigin baseOrigin, int lineNumber, String text) {
+            super(baseOrigin, lineNumber);
+            this.text = text;
+        }
+
         String text() {
             return text;
         }
@@ -359,6 +389,10 @@ abstract sealed class TokenWithOrigin implements Token {
                 super(origin, text);
             }
 
+            DoubleSlashComment(SimpleConfigOrigin baseOrigin, int lineNumber, String text) {
+                super(baseOrigin, lineNumber, text);
+            }
+
             @Override
             public String tokenText() {
                 return "//" + super.text;
@@ -370,6 +404,10 @@ abstract sealed class TokenWithOrigin implements Token {
                 super(origin, text);
             }
 
+            HashComment(SimpleConfigOrigin baseOrigin, int lineNumber, String text) {
+                super(baseOrigin, lineNumber, text);
+            }
+
             @Override
             public String tokenText() {
                 return "#" + super.text;
@@ -31,7 +31,24 @@ final class Tokenizer {
      * that after you're done with the returned iterator.
      */
     static Iterator<Token> tokenize(ConfigOrigin origin, Reader input, ConfigSyntax flavor) {
-        return new TokenIterator(origin, input, flavor != ConfigSyntax.JSON);
+        return tokenize(origin, input, flavor, 1);
+    }
+
+    /**
+     * Tokenizes a Reader whose text starts on the given line of the origin,
+     * for reading part of a file again.
+     */
+    static Iterator<Token> tokenize(ConfigOrigin origin, Reader input, ConfigSyntax flavor, int firstLine) {
+        return new TokenIterator(origin, input, flavor != ConfigSyntax.JSON, firstLine, false);
+    }
+
+    /**
+     * Tokenizes a Reader for building a Config rather than a ConfigDocument.
+     * Whitespace that only matters for rendering the text back is left out,
+     * so the tokens can't be rendered to the original text.
+     */
+    static Iterator<Token> tokenizeValuesOnly(ConfigOrigin origin, Reader input, ConfigSyntax flavor) {
+        return new TokenIterator(origin, input, flavor != ConfigSyntax.JSON, 1, true);
     }
 
     static String render(Iterator<Token> tokens) {
@@ -66,33 +83,83 @@ final class Tokenizer {
         static final String numberChars = "0123456789eE+-.";
         // chars that stop an unquoted string
         static final String notInUnquotedText = "$\"{}[]:=,+#`^?!@*&\\";
+        // the classes of the ASCII chars, as bits, so the scanning loops look
+        // up a char instead of searching the strings above for it
+        private static final byte FIRST_NUMBER = 1;
+        private static final byte NUMBER = 2;
+        private static final byte NOT_IN_UNQUOTED_TEXT = 4;
+        private static final byte WHITESPACE = 8;
+        private static final byte[] charClasses = new byte[128];
+
+        static {
+            for (char c : firstNumberChars.toCharArray())
+                charClasses[c] |= FIRST_NUMBER;
+            for (char c : numberChars.toCharArray())
+                charClasses[c] |= NUMBER;
+            for (char c : notInUnquotedText.toCharArray())
+                charClasses[c] |= NOT_IN_UNQUOTED_TEXT;
+            for (int c = 0; c < charClasses.length; c++) {
+                if (ConfigImplUtil.isWhitespace(c))
+                    charClasses[c] |= WHITESPACE;
+            }
+        }
+
+        // only whitespace is outside ASCII, and it isn't in any of the strings above
+        private static boolean is(int c, byte charClass) {
+            return c >= 0 && c < charClasses.length && (charClasses[c] & charClass) != 0;
+        }
+
         final private SimpleConfigOrigin origin;
         final private Reader input;
-        final private LinkedList<Integer> buffer;
+        // the input is read a chunk at a time into here. Most inputs are
+        // tiny (paths, single values, edited fields), so the buffer starts
+        // small and doubles each time a read fills it, up to the largest
+        // size, which a file of any length reaches within a few reads
+        private static final int INITIAL_BUFFER_SIZE = 128;
+        private static final int MAX_BUFFER_SIZE = 4096;
+        private char[] buffer;
+        private int bufferPos;
+        private int bufferEnd;
+        // where in the buffer the last char came from, or -1 if it was put back
+        private int lastCharIndex;
+        final private int[] putBack;
+        private int putBackCount;
         final private Queue<Token> tokens;
         final private WhitespaceSaver whitespaceSaver;
         final private boolean allowComments;
+        // whether to leave out IgnoredWhitespace tokens
+        final private boolean valuesOnly;
         private int lineNumber;
-        private ConfigOrigin lineOrigin;
+        // made when first needed on each line, since most tokens don't need it
+        private SimpleConfigOrigin lineOrigin;
 
-        TokenIterator(ConfigOrigin origin, Reader input, boolean allowComments) {
+        TokenIterator(ConfigOrigin origin, Reader input, boolean allowComments, int firstLine, boolean valuesOnly) {
             this.origin = (SimpleConfigOrigin) origin;
             this.input = input;
             this.allowComments = allowComments;
-            this.buffer = new LinkedList<>();
-            lineNumber = 1;
-            lineOrigin = this.origin.withLineNumber(lineNumber);
+            this.valuesOnly = valuesOnly;
+            this.buffer = new char[INITIAL_BUFFER_SIZE];
+            this.bufferPos = 0;
+            this.bufferEnd = 0;
+            this.lastCharIndex = -1;
+            this.putBack = new int[3];
+            this.putBackCount = 0;
+            lineNumber = firstLine;
+            lineOrigin = null;
             tokens = new LinkedList<>();
             tokens.add(StaticToken.START);
-            whitespaceSaver = new WhitespaceSaver();
+            whitespaceSaver = new WhitespaceSaver(valuesOnly);
         }
 
         static boolean isWhitespace(int c) {
-            return ConfigImplUtil.isWhitespace(c);
+            if (c < charClasses.length)
+                return is(c, WHITESPACE);
+            else
+                return ConfigImplUtil.isWhitespace(c);
         }
 
         static boolean isWhitespaceNotNewline(int c) {
-            return c != '\n' && ConfigImplUtil.isWhitespace(c);
+            return c != '\n' && isWhitespace(c);
         }
 
         private static ProblemException problem(ConfigOrigin origin, String what,
@@ -114,9 +181,15 @@ final class Tokenizer {
             return problem(origin, "", message, null);
         }
 
-        private static ConfigOrigin lineOrigin(ConfigOrigin baseOrigin,
-                                               int lineNumber) {
-            return ((SimpleConfigOrigin) baseOrigin).withLineNumber(lineNumber);
+        private SimpleConfigOrigin lineOrigin() {
+            if (lineOrigin == null)
+                lineOrigin = origin.withLineNumber(lineNumber);
+            return lineOrigin;
+        }
+
+        private void nextLine() {
+            lineNumber += 1;
+            lineOrigin = null;
         }
 
         private static boolean isSimpleValue(Token t) {
@@ -129,25 +202,45 @@ final class Tokenizer {
         // like ${ or +=, everything else should use
         // nextCharSkippingComments().
         private int nextCharRaw() {
-            if (buffer.isEmpty()) {
-                try {
-                    return input.read();
-                } catch (IOException e) {
-                    throw new ConfigException.IO(origin, "read error: "
-                            + e.getMessage(), e);
-                }
+            if (putBackCount > 0) {
+                lastCharIndex = -1;
+                return putBack[--putBackCount];
+            } else if (bufferPos == bufferEnd && !fillBuffer()) {
+                lastCharIndex = -1;
+                return -1;
             } else {
-                int c = buffer.pop();
-                return c;
+                lastCharIndex = bufferPos;
+                return buffer[bufferPos++];
+            }
+        }
+
+        // reads the next chunk of input, returning false at the end of it
+        private boolean fillBuffer() {
+            // everything in the buffer has been used, so it can be replaced
+            if (bufferEnd == buffer.length && buffer.length < MAX_BUFFER_SIZE)
+                buffer = new char[buffer.length * 2];
+            try {
+                int n;
+                do {
+                    n = input.read(buffer, 0, buffer.length);
+                } while (n == 0);
+                if (n < 0)
+                    return false;
+                bufferPos = 0;
+                bufferEnd = n;
+                return true;
+            } catch (IOException e) {
+                throw new ConfigException.IO(origin, "read error: "
+                        + e.getMessage(), e);
             }
         }
 
         private void putBack(int c) {
-            if (buffer.size() > 2) {
+            if (putBackCount > 2) {
                 throw new ConfigException.BugOrBroken(
                         "bug: putBack() three times, undesirable look-ahead");
             }
-            buffer.push(c);
+            putBack[putBackCount++] = c;
         }
 
         private boolean startOfComment(int c) {
@@ -202,12 +295,12 @@ final class Tokenizer {
         }
 
         private ProblemException problem(String what, String message, Throwable cause) {
-            return problem(lineOrigin, what, message, cause);
+            return problem(lineOrigin(), what, message, cause);
         }
 
         private ProblemException problem(String what, String message, boolean suggestQuotes,
                                          Throwable cause) {
-            return problem(lineOrigin, what, message, suggestQuotes, cause);
+            return problem(lineOrigin(), what, message, suggestQuotes, cause);
         }
 
         // ONE char has always been consumed, either the # or the first /, but
@@ -227,9 +320,9 @@ final class Tokenizer {
                 if (c == -1 || c == '\n') {
                     putBack(c);
                     if (doubleSlash)
-                        return new TokenWithOrigin.Comment.DoubleSlashComment(lineOrigin, sb.toString());
+                        return new TokenWithOrigin.Comment.DoubleSlashComment(origin, lineNumber, sb.toString());
                     else
-                        return new TokenWithOrigin.Comment.HashComment(lineOrigin, sb.toString());
+                        return new TokenWithOrigin.Comment.HashComment(origin, lineNumber, sb.toString());
                 } else {
                     sb.appendCodePoint(c);
                 }
@@ -241,13 +334,13 @@ final class Tokenizer {
         // that parses as JSON is treated the JSON way and otherwise
         // we assume it's a string and let the parser sort it out.
         private Token pullUnquotedText() {
-            ConfigOrigin origin = lineOrigin;
+            ConfigOrigin origin = lineOrigin();
             StringBuilder sb = new StringBuilder();
             int c = nextCharRaw();
             while (true) {
                 if (c == -1) {
                     break;
-                } else if (notInUnquotedText.indexOf(c) >= 0) {
+                } else if (is(c, NOT_IN_UNQUOTED_TEXT)) {
                     break;
                 } else if (isWhitespace(c)) {
                     break;
@@ -261,14 +354,12 @@ final class Tokenizer {
                 // what is after them, as long as they are at the
                 // start of the unquoted token.
                 if (sb.length() == 4) {
-                    String s = sb.toString();
-                    if (s.equals("true"))
+                    if ("true".contentEquals(sb))
                         return TokenWithOrigin.Value.newBoolean(origin, true);
-                    else if (s.equals("null"))
+                    else if ("null".contentEquals(sb))
                         return TokenWithOrigin.Value.newNull(origin);
                 } else if (sb.length() == 5) {
-                    String s = sb.toString();
-                    if (s.equals("false"))
+                    if ("false".contentEquals(sb))
                         return TokenWithOrigin.Value.newBoolean(origin, false);
                 }
 
@@ -283,38 +374,69 @@ final class Tokenizer {
         }
 
         private Token pullNumber(int firstChar) throws ProblemException {
-            StringBuilder sb = new StringBuilder();
-            sb.appendCodePoint(firstChar);
+            String s;
+            int end = bufferPos;
+            if (lastCharIndex >= 0) {
+                while (end < bufferEnd && is(buffer[end], NUMBER))
+                    end++;
+            }
+            if (lastCharIndex >= 0 && end < bufferEnd) {
+                // the whole number is in the buffer, and so is the char that
+                // ends it, which is left there
+                s = new String(buffer, lastCharIndex, end - lastCharIndex);
+                bufferPos = end;
+            } else {
+                StringBuilder sb = new StringBuilder();
+                sb.appendCodePoint(firstChar);
+                int c = nextCharRaw();
+                while (is(c, NUMBER)) {
+                    sb.appendCodePoint(c);
+                    c = nextCharRaw();
+                }
+                // the last character we looked at wasn't part of the number, put it
+                // back
+                putBack(c);
+                s = sb.toString();
+            }
+
+            // a plain integer that can't overflow a long is worked out here
+            // rather than by Long.parseLong()
+            int digitsStart = s.charAt(0) == '-' ? 1 : 0;
+            boolean plainInteger = s.length() > digitsStart && s.length() - digitsStart <= 18;
             boolean containedDecimalOrE = false;
-            int c = nextCharRaw();
-            while (c != -1 && numberChars.indexOf(c) >= 0) {
-                if (c == '.' || c == 'e' || c == 'E')
-                    containedDecimalOrE = true;
-                sb.appendCodePoint(c);
-                c = nextCharRaw();
+            long value = 0;
+            for (int i = digitsStart; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    value = value * 10 + (c - '0');
+                } else {
+                    plainInteger = false;
+                    if (c == '.' || c == 'e' || c == 'E')
+                        containedDecimalOrE = true;
+                }
             }
-            // the last character we looked at wasn't part of the number, put it
-            // back
-            putBack(c);
-            String s = sb.toString();
+
+            ConfigOrigin origin = lineOrigin();
             try {
-                if (containedDecimalOrE) {
+                if (plainInteger) {
+                    return TokenWithOrigin.Value.newLong(origin, digitsStart == 0 ? value : -value, s);
+                } else if (containedDecimalOrE) {
                     // force floating point representation
-                    return TokenWithOrigin.Value.newDouble(lineOrigin, Double.parseDouble(s), s);
+                    return TokenWithOrigin.Value.newDouble(origin, Double.parseDouble(s), s);
                 } else {
                     // this should throw if the integer is too large for Long
-                    return TokenWithOrigin.Value.newLong(lineOrigin, Long.parseLong(s), s);
+                    return TokenWithOrigin.Value.newLong(origin, Long.parseLong(s), s);
                 }
             } catch (NumberFormatException e) {
                 // not a number after all, see if it's an unquoted string.
                 for (char u : s.toCharArray()) {
-                    if (notInUnquotedText.indexOf(u) >= 0)
+                    if (is(u, NOT_IN_UNQUOTED_TEXT))
                         throw problem(asString(u), "Reserved character '" + asString(u)
                                 + "' is not allowed outside quotes", true /* suggestQuotes */);
                 }
                 // no evil chars so we just decide this was a string and
                 // not a number.
-                return new TokenWithOrigin.UnquotedText(lineOrigin, s);
+                return new TokenWithOrigin.UnquotedText(origin, s);
             }
         }
 
@@ -402,8 +524,7 @@ final class Tokenizer {
                         throw problem("End of input but triple-quoted string was still open");
                     else if (c == '\n') {
                         // keep the line number accurate
-                        lineNumber += 1;
-                        lineOrigin = origin.withLineNumber(lineNumber);
+                        nextLine();
                     }
                 }
 
@@ -414,6 +535,21 @@ final class Tokenizer {
 
         private Token pullQuotedString() throws ProblemException {
             // the open quote has already been consumed
+            if (lastCharIndex >= 0) {
+                // a nonempty string with no escapes that's all in the buffer
+                // is taken straight from it
+                int end = bufferPos;
+                while (end < bufferEnd && buffer[end] != '"' && buffer[end] != '\\'
+                        && !ConfigImplUtil.isC0Control(buffer[end]))
+                    end++;
+                if (end < bufferEnd && end > bufferPos && buffer[end] == '"') {
+                    String value = new String(buffer, bufferPos, end - bufferPos);
+                    String origText = new String(buffer, lastCharIndex, end + 1 - lastCharIndex);
+                    bufferPos = end + 1;
+                    return TokenWithOrigin.Value.newString(lineOrigin(), value, origText);
+                }
+            }
+
             StringBuilder sb = new StringBuilder();
 
             // We need a second string builder to keep track of escape characters.
@@ -453,7 +589,7 @@ final class Tokenizer {
                 }
 
             }
-            return TokenWithOrigin.Value.newString(lineOrigin, sb.toString(), sbOrig.toString());
+            return TokenWithOrigin.Value.newString(lineOrigin(), sb.toString(), sbOrig.toString());
         }
 
         private Token pullPlusEquals() throws ProblemException {
@@ -468,7 +604,7 @@ final class Tokenizer {
 
         private Token pullSubstitution() throws ProblemException {
             // the initial '$' has already been consumed
-            ConfigOrigin origin = lineOrigin;
+            ConfigOrigin origin = lineOrigin();
             int c = nextCharRaw();
             if (c != '{') {
                 throw problem(asString(c), "'$' not followed by {, '" + asString(c)
@@ -483,7 +619,9 @@ final class Tokenizer {
                 putBack(c);
             }
 
-            WhitespaceSaver saver = new WhitespaceSaver();
+            // the whitespace is kept here, it shows up when a substitution is
+            // in an error message
+            WhitespaceSaver saver = new WhitespaceSaver(false);
             List<Token> expression = new ArrayList<>();
 
             Token t;
@@ -500,7 +638,7 @@ final class Tokenizer {
                     throw problem(origin,
                             "Substitution ${ was not closed with a }");
                 } else {
-                    Token whitespace = saver.check(t, origin, lineNumber);
+                    Token whitespace = saver.check(t, this.origin, lineNumber);
                     if (whitespace != null)
                         expression.add(whitespace);
                     expression.add(t);
@@ -516,9 +654,8 @@ final class Tokenizer {
                 return StaticToken.END;
             } else if (c == '\n') {
                 // newline tokens have the just-ended line number
-                Token line = new TokenWithOrigin.Line(lineOrigin);
-                lineNumber += 1;
-                lineOrigin = origin.withLineNumber(lineNumber);
+                Token line = new TokenWithOrigin.Line(origin, lineNumber);
+                nextLine();
                 return line;
             } else {
                 Token t;
@@ -540,9 +677,9 @@ final class Tokenizer {
                     };
 
                     if (t == null) {
-                        if (firstNumberChars.indexOf(c) >= 0) {
+                        if (is(c, FIRST_NUMBER)) {
                             t = pullNumber(c);
-                        } else if (notInUnquotedText.indexOf(c) >= 0) {
+                        } else if (is(c, NOT_IN_UNQUOTED_TEXT)) {
                             throw problem(asString(c), "Reserved character '" + asString(c)
                                     + "' is not allowed outside quotes", true /* suggestQuotes */);
                         } else {
@@ -599,11 +736,14 @@ final class Tokenizer {
         private static class WhitespaceSaver {
             // has to be saved inside value concatenations
             private final StringBuilder whitespace;
+            // whitespace that isn't inside a concatenation is dropped
+            private final boolean valuesOnly;
             // may need to value-concat with next value
             private boolean lastTokenWasSimpleValue;
 
-            WhitespaceSaver() {
+            WhitespaceSaver(boolean valuesOnly) {
                 whitespace = new StringBuilder();
+                this.valuesOnly = valuesOnly;
                 lastTokenWasSimpleValue = false;
             }
 
@@ -611,7 +751,7 @@ final class Tokenizer {
                 whitespace.appendCodePoint(c);
             }
 
-            Token check(Token t, ConfigOrigin baseOrigin, int lineNumber) {
+            Token check(Token t, SimpleConfigOrigin baseOrigin, int lineNumber) {
                 if (isSimpleValue(t)) {
                     return nextIsASimpleValue(baseOrigin, lineNumber);
                 } else {
@@ -622,7 +762,7 @@ final class Tokenizer {
             // called if the next token is not a simple value;
             // discards any whitespace we were saving between
             // simple values.
-            private Token nextIsNotASimpleValue(ConfigOrigin baseOrigin, int lineNumber) {
+            private Token nextIsNotASimpleValue(SimpleConfigOrigin baseOrigin, int lineNumber) {
                 lastTokenWasSimpleValue = false;
                 return createWhitespaceTokenFromSaver(baseOrigin, lineNumber);
             }
@@ -630,7 +770,7 @@ final class Tokenizer {
             // called if the next token IS a simple value,
             // so creates a whitespace token if the previous
             // token also was.
-            private Token nextIsASimpleValue(ConfigOrigin baseOrigin,
+            private Token nextIsASimpleValue(SimpleConfigOrigin baseOrigin,
                                              int lineNumber) {
                 Token t = createWhitespaceTokenFromSaver(baseOrigin, lineNumber);
                 if (!lastTokenWasSimpleValue) {
@@ -639,16 +779,17 @@ final class Tokenizer {
                 return t;
             }
 
-            private Token createWhitespaceTokenFromSaver(ConfigOrigin baseOrigin,
+            private Token createWhitespaceTokenFromSaver(SimpleConfigOrigin baseOrigin,
                                                          int lineNumber) {
                 if (!whitespace.isEmpty()) {
                     Token t;
                     if (lastTokenWasSimpleValue) {
-                        t = new TokenWithOrigin.UnquotedText(
-                                lineOrigin(baseOrigin, lineNumber),
+                        t = new TokenWithOrigin.UnquotedText(baseOrigin, lineNumber,
                                 whitespace.toString());
+                    } else if (valuesOnly) {
+                        t = null;
                     } else {
-                        t = new TokenWithOrigin.IgnoredWhitespace(lineOrigin(baseOrigin, lineNumber),
+                        t = new TokenWithOrigin.IgnoredWhitespace(baseOrigin, lineNumber,
                                 whitespace.toString());
                     }
                     whitespace.setLength(0); // reset
@@ -16,8 +16,12 @@
 
 package com.typesafe.config.parser;
 
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigParseOptions;
 import com.typesafe.config.ConfigValue;
 
+import java.util.function.Consumer;
+
 /**
  * Represents an individual HOCON or JSON file, preserving all
  * formatting and syntax details.  This can be used to replace
@@ -81,6 +85,65 @@ public sealed interface ConfigDocument permits com.typesafe.config.impl.SimpleCo
      */
     ConfigDocument withoutPath(String path);
 
+    /**
+     * Returns a new ConfigDocument for this document's text with one span of
+     * text replaced, as if the edited text had been parsed from scratch with
+     * the same options and origin. This is meant for keeping a document in
+     * step with a text editor: only the innermost setting containing the
+     * edit is parsed again and the rest of the document is shared with this
+     * one, so a typical edit costs about as much as its setting rather than
+     * the whole file. Edits that add or remove lines, or that can't be
+     * confined to one setting, parse the whole text again.
+     *
+     * @param offset      the index in {@link #render()} where the replaced text starts
+     * @param length      the number of characters to replace, possibly zero
+     * @param replacement the text to put in their place, possibly empty
+     * @return a ConfigDocument for the edited text
+     * @throws IndexOutOfBoundsException if the span is not within the rendered text
+     * @throws com.typesafe.config.ConfigException.Parse if the edited text doesn't parse
+     * @since 1.5.0
+     */
+    ConfigDocument withTextEdit(int offset, int length, String replacement);
+
+    /**
+     * Returns a new ConfigDocument with a batch of changes applied. The
+     * callback receives a {@link ConfigDocumentEditor} and makes its changes
+     * through it; the result renders exactly as if the same changes had been
+     * made one at a time with {@link #withValueText(String, String)},
+     * {@link #withValue(String, ConfigValue)} and {@link #withoutPath(String)},
+     * but costs much less when there are many of them. If the callback
+     * throws, the exception propagates and this document is unaffected.
+     *
+     * @param edits makes the changes through the editor it is given
+     * @return a copy of the ConfigDocument with the changes applied
+     * @since 1.5.0
+     */
+    ConfigDocument edit(Consumer<ConfigDocumentEditor> edits);
+
+    /**
+     * Returns the {@link Config} this document describes, as
+     * {@link com.typesafe.config.ConfigFactory#parseString(String, ConfigParseOptions)}
+     * would give for its rendered text. A document as parsed, or changed
+     * only through {@link #withTextEdit}, is built straight from its nodes
+     * without rendering and parsing the text again. Once a document has been
+     * changed through {@link #edit} or the {@code with}/{@code without}
+     * methods built on it (an edit that calls none of the editor's
+     * changing methods leaves the document as it was), the nodes the editor made don't know which line
+     * they will end up on, so this renders the whole document and parses it
+     * again, which costs as much as parsing the text from scratch. Includes are
+     * resolved relative to wherever the document was parsed from. The
+     * document keeps the syntax it was parsed with, so the syntax in the
+     * options is ignored; the other options apply as they would to a parse.
+     * The returned config is not resolved.
+     *
+     * @param options parse options, for example to set an includer or a path filter
+     * @return the document's settings as a Config
+     * @throws com.typesafe.config.ConfigException if the document has an array
+     *                                             at the root or is otherwise not a valid config
+     * @since 1.5.0
+     */
+    Config toConfig(ConfigParseOptions options);
+
     /**
      * Returns a boolean indicating whether a ConfigDocument has a value at the desired path.
      * null counts as a value for purposes of this check.
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2011-2021, Config project contributors
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.typesafe.config.parser;
+
+import com.typesafe.config.ConfigValue;
+
+/**
+ * Applies a batch of changes to a {@link ConfigDocument}; handed to the
+ * callback passed to {@link ConfigDocument#edit(java.util.function.Consumer)}.
+ * Each method behaves exactly like the {@code ConfigDocument} method of the
+ * same purpose, and the document that {@code edit} returns renders the same
+ * as chaining those calls in the same order would, but the parts of the
+ * document along the edited paths are copied once for the whole batch
+ * rather than once per change.
+ *
+ * <p>
+ * An editor is only valid until the callback returns, and is used from one
+ * thread at a time.
+ *
+ * <p>
+ * <em>Do not implement interface {@code ConfigDocumentEditor}</em>; it should
+ * only be implemented by the config library.
+ *
+ * @since 1.5.0
+ */
+public sealed interface ConfigDocumentEditor permits com.typesafe.config.impl.SimpleConfigDocumentEditor {
+    /**
+     * Sets the value at a path, like
+     * {@link ConfigDocument#withValueText(String, String)}. The text is parsed
+     * right away, so a syntax error is thrown from this call.
+     *
+     * @param path     the path at which to set the desired value
+     * @param newValue the value to set, as text to be parsed with the
+     *                 document's parse options
+     * @return this editor
+     */
+    ConfigDocumentEditor setValueText(String path, String newValue);
+
+    /**
+     * Sets the value at a path, like
+     * {@link ConfigDocument#withValue(String, ConfigValue)}.
+     *
+     * @param path     the path at which to set the desired value
+     * @param newValue the value to set; its rendered text is inserted
+     * @return this editor
+     */
+    ConfigDocumentEditor setValue(String path, ConfigValue newValue);
+
+    /**
+     * Removes all values at a path, like
+     * {@link ConfigDocument#withoutPath(String)}.
+     *
+     * @param path the path to remove
+     * @return this editor
+     */
+    ConfigDocumentEditor remove(String path);
+
+    /**
+     * Checks whether the document, with the changes made so far, has a value
+     * at a path, like {@link ConfigDocument#hasPath(String)}.
+     *
+     * @param path the path to check
+     * @return true if the path exists in the edited document
+     */
+    boolean hasPath(String path);
+}
@@ -99,4 +99,43 @@ public final class ConfigDocumentFactory {
     public static ConfigDocument parseString(String s) {
         return parseString(s, ConfigParseOptions.defaults());
     }
+
+    /**
+     * Opens a Reader for reading as a stream of events, without parsing the
+     * whole of it into a {@link ConfigDocument} or a
+     * {@link com.typesafe.config.Config}. The Reader is not closed by the
+     * event reader; close it when done.
+     *
+     * @param reader  the reader to read
+     * @param options parse options to control how the reader is interpreted
+     * @return an event reader positioned before the first event
+     * @since 1.5.0
+     */
+    public static ConfigEventReader eventReader(Reader reader, ConfigParseOptions options) {
+        return Parseable.newReader(reader, options).eventReader();
+    }
+
+    /**
+     * Opens a file for reading as a stream of events, as with
+     * {@link #eventReader(Reader, ConfigParseOptions)}. The syntax is
+     * guessed from the file's extension if the options don't set one.
+     * Close the event reader to close the file.
+     * <p>
+     * As when parsing, a file that can't be opened counts as missing if
+     * {@link ConfigParseOptions#getAllowMissing()} is true, which it is by
+     * default: the event reader then reports an empty object, a
+     * {@code START_OBJECT} followed by an {@code END_OBJECT}, rather than
+     * throwing.
+     *
+     * @param file    the file to read
+     * @param options parse options to control how the file is interpreted
+     * @return an event reader positioned before the first event
+     * @throws com.typesafe.config.ConfigException.IO if the file can't be
+     *                                                opened and the options
+     *                                                don't allow it to be missing
+     * @since 1.5.0
+     */
+    public static ConfigEventReader eventReader(File file, ConfigParseOptions options) {
+        return Parseable.newFile(file, options).eventReader();
+    }
 }
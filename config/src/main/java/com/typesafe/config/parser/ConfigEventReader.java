@@ -0,0 +1,235 @@
+/**
+ * Copyright (C) 2011-2021, Config project contributors
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.typesafe.config.parser;
+
+import com.typesafe.config.ConfigOrigin;
+import com.typesafe.config.ConfigValue;
+
+import java.util.List;
+
+/**
+ * Reads a HOCON or JSON file as a stream of events, one at a time, without
+ * building a {@link com.typesafe.config.Config} or a {@link ConfigDocument}.
+ * Only the nesting of the current position and the current line are held in
+ * memory, so this is suited to extracting a few settings or subtrees from a
+ * very large file. Get one from
+ * {@link ConfigDocumentFactory#eventReader(java.io.Reader, com.typesafe.config.ConfigParseOptions)}.
+ *
+ * <p>
+ * For example, <code>a { b = 1, c = [x, ${d}] }</code> reads as
+ * {@code START_OBJECT}, {@code KEY} (a), {@code START_OBJECT}, {@code KEY}
+ * (b), {@code VALUE} (1), {@code KEY} (c), {@code START_ARRAY},
+ * {@code VALUE} (x), {@code SUBSTITUTION} (d), {@code END_ARRAY},
+ * {@code END_OBJECT}, {@code END_OBJECT}. A HOCON file without braces around
+ * the root object still starts and ends with the object's events.
+ *
+ * <p>
+ * Nothing is merged or resolved: a key that appears twice is reported twice,
+ * a key may be a path like {@code a.b.c}, substitutions and includes are
+ * reported rather than followed, and a {@code +=} is reported as a key with
+ * {@link #isAppend()} set. Several values in a row that HOCON concatenates
+ * are reported with a {@link Event#CONCATENATION} event between each of them;
+ * adjacent strings, numbers and the like are joined into one string value
+ * the way parsing them into a {@code Config} would, so that only
+ * concatenations involving substitutions, objects or arrays show up this way.
+ * Comments and whitespace are skipped.
+ *
+ * <p>
+ * A syntax error is thrown as a {@link com.typesafe.config.ConfigException.Parse}
+ * from {@link #next()} when it's reached, so events before it may already
+ * have been handled.
+ *
+ * <p>
+ * A reader is used from one thread at a time, and should be closed, which
+ * closes the file it was opened on; like the other methods that take a
+ * {@link java.io.Reader}, one created on a {@code Reader} leaves closing it
+ * to the caller.
+ *
+ * <p>
+ * <em>Do not implement interface {@code ConfigEventReader}</em>; it should only
+ * be implemented by the config library.
+ *
+ * @since 1.5.0
+ */
+public sealed interface ConfigEventReader extends AutoCloseable permits com.typesafe.config.impl.SimpleConfigEventReader {
+
+    /**
+     * The kinds of event a {@link ConfigEventReader} reports.
+     */
+    enum Event {
+        /** An object starts; its fields follow, then {@link #END_OBJECT}. */
+        START_OBJECT,
+        /** The innermost open object ends. */
+        END_OBJECT,
+        /** An array starts; its elements follow, then {@link #END_ARRAY}. */
+        START_ARRAY,
+        /** The innermost open array ends. */
+        END_ARRAY,
+        /**
+         * A field's key, see {@link #path()} and {@link #isAppend()}; the
+         * field's value follows.
+         */
+        KEY,
+        /** A string, number, boolean or null, see {@link #value()}. */
+        VALUE,
+        /**
+         * A {@code ${path}} substitution, see {@link #path()} and
+         * {@link #isOptional()}.
+         */
+        SUBSTITUTION,
+        /**
+         * The value before this event and the value after it are
+         * concatenated into one.
+         */
+        CONCATENATION,
+        /**
+         * An {@code include} statement inside an object, see
+         * {@link #includeName()}, {@link #includeKind()} and
+         * {@link #isRequired()}.
+         */
+        INCLUDE
+    }
+
+    /**
+     * How an {@code include} names what it includes.
+     */
+    enum IncludeKind {
+        /** {@code include "name"}, which guesses what the name is. */
+        HEURISTIC,
+        /** {@code include file("name")}. */
+        FILE,
+        /** {@code include url("name")}. */
+        URL,
+        /** {@code include classpath("name")}. */
+        CLASSPATH
+    }
+
+    /**
+     * Whether there are more events, that is, whether the end of the root
+     * object or array hasn't been reported yet.
+     *
+     * @return true if {@link #next()} has another event
+     */
+    boolean hasNext();
+
+    /**
+     * Reads up to the next event and returns it. The accessors then describe
+     * that event.
+     *
+     * @return the next event
+     * @throws java.util.NoSuchElementException     if there are no more events
+     * @throws com.typesafe.config.ConfigException.Parse if the input is not valid
+     * @throws com.typesafe.config.ConfigException.IO    if reading the input fails
+     */
+    Event next();
+
+    /**
+     * The event most recently returned by {@link #next()}.
+     *
+     * @return the current event, or null before the first call to next()
+     */
+    Event current();
+
+    /**
+     * How many objects and arrays are open after the current event. It's 1
+     * after the root's {@code START_OBJECT} and 0 after its
+     * {@code END_OBJECT}.
+     *
+     * @return the nesting depth
+     */
+    int depth();
+
+    /**
+     * Where the current event came from, for error messages.
+     *
+     * @return the origin of the current event
+     */
+    ConfigOrigin origin();
+
+    /**
+     * The elements of the path of a {@code KEY} or {@code SUBSTITUTION}
+     * event; a key like {@code a.b} has more than one.
+     *
+     * @return the path elements
+     * @throws IllegalStateException if the current event has no path
+     */
+    List<String> path();
+
+    /**
+     * Whether the current {@code KEY} was followed by {@code +=} rather than
+     * by {@code =} or {@code :}, meaning its value is appended to a list.
+     *
+     * @return true for {@code +=}
+     * @throws IllegalStateException if the current event isn't KEY
+     */
+    boolean isAppend();
+
+    /**
+     * The value of the current {@code VALUE} event.
+     *
+     * @return a string, number, boolean or null value
+     * @throws IllegalStateException if the current event isn't VALUE
+     */
+    ConfigValue value();
+
+    /**
+     * Whether the current {@code SUBSTITUTION} is optional, as in
+     * {@code ${?path}}.
+     *
+     * @return true if the substitution is optional
+     * @throws IllegalStateException if the current event isn't SUBSTITUTION
+     */
+    boolean isOptional();
+
+    /**
+     * The file name, resource name or URL in the current {@code INCLUDE}.
+     *
+     * @return the name being included
+     * @throws IllegalStateException if the current event isn't INCLUDE
+     */
+    String includeName();
+
+    /**
+     * How the current {@code INCLUDE} names what it includes.
+     *
+     * @return the kind of include
+     * @throws IllegalStateException if the current event isn't INCLUDE
+     */
+    IncludeKind includeKind();
+
+    /**
+     * Whether the current {@code INCLUDE} is wrapped in {@code required()}.
+     *
+     * @return true if the include is required
+     * @throws IllegalStateException if the current event isn't INCLUDE
+     */
+    boolean isRequired();
+
+    /**
+     * If the current event is {@code START_OBJECT} or {@code START_ARRAY},
+     * reads past everything inside it, so that the current event becomes the
+     * matching {@code END_OBJECT} or {@code END_ARRAY}. Otherwise does
+     * nothing.
+     */
+    void skipChildren();
+
+    /**
+     * Closes the file this reader was opened on, if any.
+     */
+    @Override
+    void close();
+}
@@ -5,6 +5,15 @@
 import com.typesafe.config.Config
 import com.typesafe.config.ConfigException
 import com.typesafe.config.ConfigFactory
+import com.typesafe.config.ConfigParseOptions
+import com.typesafe.config.ConfigRenderOptions
+import com.typesafe.config.ConfigSyntax
+import com.typesafe.config.ConfigValueFactory
+import com.typesafe.config.parser.ConfigDocument
+import com.typesafe.config.parser.ConfigDocumentFactory
+import java.io.ByteArrayOutputStream
+import java.nio.charset.StandardCharsets
+import java.util.Random
 
 
 object Util {
@@ -200,4 +209,131 @@ object CatchExceptionOnMissing {
 			}
 		}
 	}
-}
\ No newline at end of file
+}
+
+object WithValueLayering {
+	private val base: Config = ConfigFactory.parseMap((0 until 100000).associate { "flags.f$it" to it })
+	private val overrides = (0 until 10000).map { "flags.f${it * 10}" to ConfigValueFactory.fromAnyRef(-it) }
+
+	fun task() {
+		var conf = base
+		for ((path, value) in overrides) {
+			conf = conf.withValue(path, value)
+		}
+		if (conf.getInt("flags.f10") != -1 || conf.getInt("flags.f11") != 11) {
+			throw Exception("broken withValue")
+		}
+	}
+
+	fun main(args: Array<String>) {
+		val ms = Util.time(10) {
+			task()
+		}
+
+		println("10K withValue on 100K keys: " + ms + "ms")
+
+		Util.loop(args) {
+			task()
+		}
+	}
+}
+
+object RenderCompactJson {
+	private val conf: Config = ConfigFactory.load("test01").resolve()
+	private val options = ConfigRenderOptions.concise().setJson(true)
+	private val expected = conf.root().render(options)
+	private val out = ByteArrayOutputStream()
+
+	fun renderString() {
+		if (conf.root().render(options).length != expected.length) {
+			throw Exception("broken render")
+		}
+	}
+
+	fun renderUtf8() {
+		out.reset()
+		conf.root().render(out, StandardCharsets.UTF_8, options)
+		if (out.size() != expected.toByteArray(StandardCharsets.UTF_8).size) {
+			throw Exception("broken render")
+		}
+	}
+
+	fun main(args: Array<String>) {
+		val stringMs = Util.time(100000) {
+			renderString()
+		}
+		val utf8Ms = Util.time(100000) {
+			renderUtf8()
+		}
+
+		println("render concise JSON to String: " + stringMs + "ms")
+		println("render concise JSON to UTF-8 stream: " + utf8Ms + "ms")
+
+		Util.loop(args) {
+			renderUtf8()
+		}
+	}
+}
+
+object ParseNumericJson {
+	private val random = Random(1)
+	private val json = (0 until 20000).joinToString(",", "{\"points\":[", "]}") {
+		"{\"x\":${random.nextInt(100000)},\"y\":${random.nextLong() shr 20},\"w\":${random.nextInt(1000) / 8.0}}"
+	}
+	private val options = ConfigParseOptions.defaults().setSyntax(ConfigSyntax.JSON)
+
+	fun task() {
+		val conf = ConfigFactory.parseString(json, options)
+		if (conf.getList("points").size != 20000) {
+			throw Exception("broken parse")
+		}
+	}
+
+	fun main(args: Array<String>) {
+		val ms = Util.time(20) {
+			task()
+		}
+
+		println("parse 20K numeric JSON objects: " + ms + "ms")
+
+		Util.loop(args) {
+			task()
+		}
+	}
+}
+
+object BatchEditDocument {
+	private val document = ConfigDocumentFactory.parseString((0 until 20000).joinToString("\n") { "k$it : $it" })
+	private val random = Random(1)
+	private val paths = (0 until 2000).map { "k" + random.nextInt(22000) }
+
+	private fun check(edited: ConfigDocument) {
+		if (!edited.hasPath(paths.last())) {
+			throw Exception("broken edit")
+		}
+	}
+
+	fun sequential() {
+		check(paths.fold(document) { d, path -> d.withValueText(path, "1") })
+	}
+
+	fun batch() {
+		check(document.edit { editor -> paths.forEach { editor.setValueText(it, "1") } })
+	}
+
+	fun main(args: Array<String>) {
+		val sequentialMs = Util.time(3) {
+			sequential()
+		}
+		val batchMs = Util.time(3) {
+			batch()
+		}
+
+		println("2K edits to a 20K setting document one by one: " + sequentialMs + "ms")
+		println("2K edits to a 20K setting document in one batch: " + batchMs + "ms")
+
+		Util.loop(args) {
+			batch()
+		}
+	}
+}
@@ -889,6 +889,37 @@ class ConfParserTest : TestUtils() {
 		assertEquals("foobar3", conf3.getString("ABC.0.1.2.3"))
 	}
 
+	@Test
+	fun pathFilterKeepsOnlyRequestedPaths() {
+		val text = "a { b = 1, c { d = 2 } }\na.e = [{ f = 3 }]\ng = 4\nh { include required(\"nothere\") }\ni = { j = 5 }"
+		val options = ConfigParseOptions.defaults().setPathFilter(listOf("a.c", "a.e", "i.j"))
+		val conf = ConfigFactory.parseString(text, options)
+		assertEquals(setOf("a", "i"), conf.root().keys)
+		assertEquals(setOf("c", "e"), conf.getObject("a").keys)
+		assertEquals(2, conf.getInt("a.c.d"))
+		// everything in a list under a kept path is kept
+		assertEquals(3, conf.getConfigList("a.e")[0].getInt("f"))
+		assertEquals(5, conf.getInt("i.j"))
+		// line numbers still count the lines of what was skipped
+		assertEquals(5, conf.getValue("i.j").origin().lineNumber())
+
+		// includes under kept paths are filtered relative to where they are
+		val included = ConfigFactory.parseString(
+			"test01 { include \"test01\" }",
+			ConfigParseOptions.defaults().setPathFilter(listOf("test01.ints"))
+				.setClassLoader(this.javaClass.classLoader)
+		)
+		assertEquals(setOf("ints"), included.getObject("test01").keys)
+
+		// syntax errors are still found in what's skipped
+		assertThrows(ConfigException.Parse::class.java) {
+			ConfigFactory.parseString("a = 1\nb = { c = }", options)
+		}
+		assertThrows(ConfigException.BadPath::class.java) {
+			ConfigParseOptions.defaults().setPathFilter(listOf("a..b"))
+		}
+	}
+
 	private fun parsePath(s: String): Path? {
 		var firstException: ConfigException? = null
 		var secondException: ConfigException? = null
@@ -25,6 +25,9 @@ class ConfigDocumentParserTest : TestUtils() {
 		parseTest("{  foo  :  bar  }")
 		parseTest("{foo:bar}     ")
 		parseTest("""{include "foo.conf"}""")
+		parseTest("""include file("foo.conf")""")
+		parseTest("""include required( classpath( "foo.conf" ) )""")
+		parseTest("""{ include url("http://example.com/foo.conf") }""")
 		parseTest("   \n{foo:bar}\n    ")
 
 		//Can parse a map with all simple types
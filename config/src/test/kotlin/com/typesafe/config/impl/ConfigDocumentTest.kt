@@ -1,14 +1,22 @@
 package com.typesafe.config.impl
 
+import com.typesafe.config.Config
 import com.typesafe.config.ConfigException
+import com.typesafe.config.ConfigFactory
 import com.typesafe.config.ConfigParseOptions
+import com.typesafe.config.ConfigRenderOptions
 import com.typesafe.config.ConfigSyntax
 import com.typesafe.config.ConfigValueFactory
+import com.typesafe.config.parser.ConfigDocument
+import com.typesafe.config.parser.ConfigDocumentEditor
 import com.typesafe.config.parser.ConfigDocumentFactory
+import com.typesafe.config.parser.ConfigEventReader.Event
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Test
 import java.io.BufferedReader
+import java.io.File
 import java.io.FileReader
+import java.io.StringReader
 
 
 class ConfigDocumentTest : TestUtils() {
@@ -488,6 +496,303 @@ class ConfigDocumentTest : TestUtils() {
 		)
 	}
 
+	@Test
+	fun configDocumentTextEdit() {
+		val options = ConfigParseOptions.defaults().setOriginDescription("test")
+		val origText = "a : 1\nb {\n  c : \"x\"\n  d : [1, 2]\n}\ninclude file(\"foo.conf\")\n"
+		val configDocument = ConfigDocumentFactory.parseString(origText, options)
+
+		// the node types, and the tokens with their lines, which unlike
+		// ConfigDocument.equals tells apart trees that only render the same
+		fun shape(node: AbstractConfigNode): String = when (node) {
+			is ConfigNodeComplexValue -> node.children()
+			is ConfigNodeField -> node.children()
+			is ConfigNodeInclude -> node.children()
+			else -> null
+		}.let { children ->
+			node.javaClass.simpleName + "[" + (children?.joinToString(" ") { shape(it) }
+				?: node.tokens().joinToString(" ") { "${it.javaClass.simpleName}:${it.tokenText()}@${it.lineNumber()}" }) + "]"
+		}
+
+		fun assertEditOf(document: ConfigDocument, text: String, offset: Int, length: Int, replacement: String): ConfigDocument {
+			val edited = document.withTextEdit(offset, length, replacement)
+			val newText = text.substring(0, offset) + replacement + text.substring(offset + length)
+			assertEquals(newText, edited.render())
+			val fresh = ConfigDocumentFactory.parseString(newText, options)
+			assertEquals(shape(fresh.root as AbstractConfigNode), shape(edited.root as AbstractConfigNode))
+			assertEquals(ConfigFactory.parseString(newText, options), edited.toConfig(options))
+			return edited
+		}
+
+		fun assertEdit(offset: Int, length: Int, replacement: String) =
+			assertEditOf(configDocument, origText, offset, length, replacement)
+
+		// edits inside one setting, at its end, and ones that change the structure or add lines
+		val edited = assertEdit(origText.indexOf("x"), 1, "yz")
+		assertEdit(origText.indexOf("2]"), 1, "2, 3")
+		assertEdit(origText.indexOf("1\n"), 1, "15")
+		assertEdit(origText.indexOf("c :"), 1, "e")
+		assertEdit(origText.indexOf("d :"), 0, "e : 3\n  ")
+		assertEdit(origText.indexOf("}"), 0, "f : g, ")
+		assertEdit(0, 0, "")
+
+		// a '/' typed right before a "//" comment moves the comment's start
+		val commentedText = "a = 1//c\nb { c = 2//d\n}\n"
+		val commented = ConfigDocumentFactory.parseString(commentedText, options)
+		assertEquals(1, assertEditOf(commented, commentedText, commentedText.indexOf("//c"), 0, "/").toConfig(options).getInt("a"))
+		assertEquals(2, assertEditOf(commented, commentedText, commentedText.indexOf("//d"), 0, "/").toConfig(options).getInt("b.c"))
+		assertEditOf(commented, commentedText, commentedText.indexOf("//c"), 0, "2")
+
+		// the reparsed setting knows which line it is on
+		val b = (edited.root as ConfigNodeRoot).value().children().filterIsInstance<ConfigNodeField>()[1]
+		val c = (b.value() as ConfigNodeObject).children().filterIsInstance<ConfigNodeField>()[0]
+		assertEquals(3, c.value().origin().lineNumber())
+		assertEquals("test: 3", c.value().origin().description())
+
+		assertThrows(ConfigException.Parse::class.java) { configDocument.withTextEdit(origText.indexOf("x") - 1, 1, "") }
+		assertThrows(IndexOutOfBoundsException::class.java) { configDocument.withTextEdit(origText.length, 1, "") }
+		assertEquals(origText, configDocument.render())
+	}
+
+	@Test
+	fun configDocumentBatchEdit() {
+		val origText = "a {\n  b : 1\n  c : 2\n}\nd : [1, 2]\na.b : 3\n"
+		val configDocument = ConfigDocumentFactory.parseString(origText)
+		val configVal = ConfigValueFactory.fromAnyRef(mapOf("x" to 1))
+
+		val sequential = configDocument
+			.withValueText("a.b", "10")
+			.withoutPath("d")
+			.withValueText("e.f.g", "true")
+			.withValueText("e.f.h", "{\n  i : 1\n}")
+			.withValue("a.c", configVal)
+			.withValueText("a.b", "11")
+		var sawPath = false
+		val batch = configDocument.edit { editor ->
+			editor.setValueText("a.b", "10").remove("d").setValueText("e.f.g", "true")
+			sawPath = editor.hasPath("e.f.g") && !editor.hasPath("d")
+			editor.setValueText("e.f.h", "{\n  i : 1\n}")
+			editor.setValue("a.c", configVal)
+			editor.setValueText("a.b", "11")
+		}
+		assertTrue(sawPath)
+		assertEquals(sequential.render(), batch.render())
+		assertEquals(
+			"a {\n  \n  c : {\n    \"x\" : 1\n  }\n}\n\na.b : 11\n\ne : {\n\n  f : {\n    g : true\n    h : {\n      i : 1\n    }\n  }\n}\n",
+			batch.render()
+		)
+		assertEquals(origText, configDocument.render())
+
+		val jsonText = """{ "a" : 1, "b" : { "c" : 2, "d" : 3 } }"""
+		val jsonDocument = ConfigDocumentFactory.parseString(jsonText, ConfigParseOptions.defaults().setSyntax(ConfigSyntax.JSON))
+		val jsonBatch = jsonDocument.edit { it.remove("b.d").setValueText("b.e", "4").remove("a") }
+		assertEquals(jsonDocument.withoutPath("b.d").withValueText("b.e", "4").withoutPath("a").render(), jsonBatch.render())
+		assertEquals(jsonText, jsonDocument.render())
+	}
+
+	@Test
+	fun configDocumentLargeBatchEdit() {
+		// edits that remove settings in front of ones edited later, change settings added by the batch,
+		// and add inside objects the batch has already changed, must come out as they do one by one
+		val origText = (0 until 200).joinToString("\n", postfix = "\n") { i ->
+			if (i % 10 == 0) "k$i { a : $i, b : [$i] }" else "k$i : $i"
+		}
+		val random = java.util.Random(1)
+		val edits = (0 until 300).map {
+			val key = "k" + random.nextInt(220)
+			when (random.nextInt(5)) {
+				0 -> Pair(key, null)
+				1 -> Pair("$key.a", null)
+				2 -> Pair("$key.c.d", "${random.nextInt()}")
+				3 -> Pair(key, "{ \"x\" : 1 }")
+				else -> Pair(key, "${random.nextInt()}")
+			}
+		}
+		for (syntax in listOf(ConfigSyntax.CONF, ConfigSyntax.JSON)) {
+			val text = if (syntax == ConfigSyntax.CONF) origText
+			else ConfigFactory.parseString(origText).root().render(ConfigRenderOptions.concise().setFormatted(true))
+			val configDocument = ConfigDocumentFactory.parseString(text, ConfigParseOptions.defaults().setSyntax(syntax))
+			val sequential = edits.fold(configDocument) { document, (path, value) ->
+				if (value == null) document.withoutPath(path) else document.withValueText(path, value)
+			}
+			val batch = configDocument.edit { editor ->
+				for ((path, value) in edits) {
+					if (value == null) editor.remove(path) else editor.setValueText(path, value)
+				}
+			}
+			assertEquals(sequential.render(), batch.render())
+		}
+	}
+
+	@Test
+	fun configDocumentBatchEditFailures() {
+		val configDocument = ConfigDocumentFactory.parseString("a : 1")
+
+		// a syntax error surfaces from the edit that caused it and the document is unchanged
+		val e = assertThrows(ConfigException::class.java) {
+			configDocument.edit { it.setValueText("b", "2").setValueText("c", "{") }
+		}
+		assertTrue(e is ConfigException.Parse)
+		assertEquals("a : 1", configDocument.render())
+
+		// an editor can't be kept past its callback
+		var kept: ConfigDocumentEditor? = null
+		configDocument.edit { kept = it }
+		assertThrows(ConfigException.BugOrBroken::class.java) { kept!!.remove("a") }
+
+		val arrayDocument = ConfigDocumentFactory.parseString("[1, 2]", ConfigParseOptions.defaults().setSyntax(ConfigSyntax.JSON))
+		assertThrows(ConfigException.WrongType::class.java) { arrayDocument.edit { it.remove("a") } }
+	}
+
+	private fun readEvents(text: String, options: ConfigParseOptions = ConfigParseOptions.defaults()): List<String> {
+		val events = mutableListOf<String>()
+		ConfigDocumentFactory.eventReader(StringReader(text), options).use { reader ->
+			while (reader.hasNext()) {
+				val event = reader.next()
+				events.add(
+					when (event) {
+						Event.KEY -> "KEY " + reader.path().joinToString(".") + (if (reader.isAppend) " +=" else "")
+						Event.VALUE -> "VALUE " + reader.value().unwrapped()
+						Event.SUBSTITUTION -> "SUBSTITUTION " + reader.path().joinToString(".")
+						Event.INCLUDE -> "INCLUDE " + reader.includeKind() + " " + reader.includeName()
+						else -> event.name
+					}
+				)
+			}
+		}
+		return events
+	}
+
+	@Test
+	fun configEventReaderEvents() {
+		val events = readEvents("a.b { c = 1, d = [x y, \${e} 2] }\nf += foo\ninclude file(\"g.conf\")\nh = {}\n")
+		assertEquals(
+			listOf(
+				"START_OBJECT",
+				"KEY a.b", "START_OBJECT",
+				"KEY c", "VALUE 1",
+				"KEY d", "START_ARRAY", "VALUE x y", "SUBSTITUTION e", "CONCATENATION", "VALUE  2", "END_ARRAY",
+				"END_OBJECT",
+				"KEY f +=", "VALUE foo",
+				"INCLUDE FILE g.conf",
+				"KEY h", "START_OBJECT", "END_OBJECT",
+				"END_OBJECT"
+			),
+			events
+		)
+
+		val json = readEvents("""{ "a" : [1, true, null], "b.c" : "d" }""",
+			ConfigParseOptions.defaults().setSyntax(ConfigSyntax.JSON))
+		assertEquals(
+			listOf(
+				"START_OBJECT", "KEY a", "START_ARRAY", "VALUE 1", "VALUE true", "VALUE null", "END_ARRAY",
+				"KEY b.c", "VALUE d", "END_OBJECT"
+			),
+			json
+		)
+	}
+
+	@Test
+	fun configEventReaderSkipChildren() {
+		ConfigDocumentFactory.eventReader(resourceFile("/test01.conf"), ConfigParseOptions.defaults()).use { reader ->
+			assertEquals(Event.START_OBJECT, reader.next())
+			val keys = mutableListOf<String>()
+			while (reader.next() == Event.KEY) {
+				keys.add(reader.path().joinToString("."))
+				if (reader.next() == Event.START_OBJECT || reader.current() == Event.START_ARRAY) {
+					reader.skipChildren()
+					assertEquals(1, reader.depth())
+				}
+			}
+			assertEquals(Event.END_OBJECT, reader.current())
+			assertFalse(reader.hasNext())
+			assertEquals(ConfigFactory.parseFile(resourceFile("/test01.conf")).root().keys, keys.toSet())
+		}
+	}
+
+	@Test
+	fun configEventReaderErrors() {
+		ConfigDocumentFactory.eventReader(StringReader("a = 1\nb = [2, }"), ConfigParseOptions.defaults()).use { reader ->
+			assertEquals(Event.START_OBJECT, reader.next())
+			assertEquals(Event.KEY, reader.next())
+			assertEquals(Event.VALUE, reader.next())
+			assertEquals(Event.KEY, reader.next())
+			assertEquals(Event.START_ARRAY, reader.next())
+			assertEquals(Event.VALUE, reader.next())
+			assertThrows(IllegalStateException::class.java) { reader.path() }
+			val e = assertThrows(ConfigException.Parse::class.java) { reader.next() }
+			assertTrue(e.message!!.contains("List should have had new element after a comma"), "wrong message: " + e.message)
+		}
+
+		// a missing file is an empty object unless the options say it must exist
+		val missing = File("this-file-does-not-exist.conf")
+		ConfigDocumentFactory.eventReader(missing, ConfigParseOptions.defaults()).use { reader ->
+			assertEquals(Event.START_OBJECT, reader.next())
+			assertEquals(Event.END_OBJECT, reader.next())
+			assertFalse(reader.hasNext())
+		}
+		assertThrows(ConfigException.IO::class.java) {
+			ConfigDocumentFactory.eventReader(missing, ConfigParseOptions.defaults().setAllowMissing(false))
+		}
+	}
+
+	@Test
+	fun configDocumentToConfig() {
+		fun assertSameConfig(expected: Config, actual: Config) {
+			assertEquals(expected, actual)
+			val resolved = actual.resolve()
+			for (entry in expected.resolve().entrySet())
+				assertEquals(entry.value.origin().lineNumber(), resolved.getValue(entry.key).origin().lineNumber())
+		}
+
+		// includes resolve relative to the file the document came from
+		val file = resourceFile("/test03.conf")
+		assertSameConfig(ConfigFactory.parseFile(file),
+			ConfigDocumentFactory.parseFile(file).toConfig(ConfigParseOptions.defaults()))
+
+		val options = ConfigParseOptions.defaults().setOriginDescription("test")
+		val doc = ConfigDocumentFactory.parseString("a : 1\nb {\n  c : ${a}\n}\n", options)
+		val edited = listOf(
+			doc,
+			doc.withValueText("b.d", "[1,\n 2]"),
+			doc.withoutPath("b.c"),
+			doc.withTextEdit(4, 1, "23"),
+			doc.withValueText("a", "\"\"\"x\ny\"\"\"").withTextEdit(0, 0, "z : 3\n")
+		)
+		for (d in edited)
+			assertSameConfig(ConfigFactory.parseString(d.render(), options), d.toConfig(options))
+
+		val filtered = doc.toConfig(options.setPathFilter(listOf("b")))
+		assertFalse(filtered.hasPath("a"))
+		assertEquals(1, filtered.resolveWith(ConfigFactory.parseString("a : 1")).getInt("b.c"))
+
+		// the document keeps its own syntax
+		val json = ConfigDocumentFactory.parseString("{ \"a\" : 1 }", options.setSyntax(ConfigSyntax.JSON))
+		assertEquals(1, json.toConfig(ConfigParseOptions.defaults()).getInt("a"))
+
+		assertThrows(ConfigException.WrongType::class.java) {
+			ConfigDocumentFactory.parseString("[1, 2]", options).toConfig(options)
+		}
+	}
+
+	@Test
+	fun configDocumentToConfigReparses() {
+		fun reparses(document: ConfigDocument) = (document as SimpleConfigDocument).toConfigReparses()
+
+		val doc = ConfigDocumentFactory.parseString("a : 1\nb {\n  c : 2\n}\n")
+		// parsed documents, text edits of them and edits that change nothing are built straight from their nodes
+		assertFalse(reparses(doc))
+		assertFalse(reparses(doc.withTextEdit(4, 1, "23")))
+		assertSame(doc, doc.edit { it.hasPath("a") })
+		assertFalse(reparses(doc.edit { }))
+
+		// anything the editor changes is parsed again, and so is everything made from it
+		assertTrue(reparses(doc.withValueText("a", "2")))
+		assertTrue(reparses(doc.withoutPath("b.c")))
+		assertTrue(reparses(doc.edit { it.remove("missing") }))
+		assertTrue(reparses(doc.withValueText("a", "2").withTextEdit(0, 0, "z : 3\n")))
+	}
+
 	private fun configDocumentReplaceJsonTest(
 		origText: String,
 		finalText: String,
@@ -41,6 +41,12 @@ class ConfigNodeTest : TestUtils() {
 		assertEquals("5678", pathNode.subPath(6).render())
 	}
 
+	@Test
+	fun pathNodeToList() {
+		assertEquals(listOf("a"), configNodeKey("a").toUnparsed(null).toList())
+		assertEquals(listOf("a", "b c", "d.e"), configNodeKey("a.\"b c\".\"d.e\"").toUnparsed(null).toList())
+	}
+
 	@Test
 	fun createConfigNodeSimpleValue() {
 		//Ensure a ConfigNodeSimpleValue can handle the normal value types
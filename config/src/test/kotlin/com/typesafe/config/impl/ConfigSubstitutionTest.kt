@@ -585,6 +585,31 @@ class ConfigSubstitutionTest : TestUtils() {
 		assertEquals(listOf("0", "1"), resolved.getList("a").unwrapped())
 	}
 
+	@Test
+	fun envVariableLookupsUnderSystemOverride() {
+		val props = parseObject("a = \${?CONFIG_TEST_OVERRIDDEN_ENV}, b = \${?testList.0}")
+		ConfigImpl.reloadEnvVariablesConfig()
+
+		// the lookups remembered for the real environment aren't used under an override...
+		val real = resolve(props)
+		assertFalse(real.hasPath("a"))
+		assertEquals("0", real.getString("b"))
+		val overridden = SystemOverride.withSystemOverride(
+			mapOf<String, String>(),
+			mapOf("CONFIG_TEST_OVERRIDDEN_ENV" to "x"),
+			System.err
+		) {
+			resolve(props)
+		}
+		assertEquals("x", overridden.getString("a"))
+		assertFalse(overridden.hasPath("b"))
+
+		// ...and lookups under an override aren't remembered for the real one
+		val again = resolve(props)
+		assertFalse(again.hasPath("a"))
+		assertEquals("0", again.getString("b"))
+	}
+
 	@Test
 	fun resolveListFromEnvVars() {
 		val props = parseObject(
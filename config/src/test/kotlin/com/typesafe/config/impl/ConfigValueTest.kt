@@ -7,7 +7,11 @@ package com.typesafe.config.impl
 import com.typesafe.config.*
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Test
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.io.StringWriter
 import java.net.URI
+import java.nio.charset.StandardCharsets
 
 class ConfigValueTest : TestUtils() {
 
@@ -195,6 +199,25 @@ class ConfigValueTest : TestUtils() {
 		checkNotEqualObjects(b, b.toConfig())
 	}
 
+	@Test
+	fun configObjectHashIgnoresKeyOrder() {
+		val forward = SimpleConfigObject(fakeOrigin(), configMap("a" to 1, "b" to 2, "c" to 3))
+		val backward = SimpleConfigObject(fakeOrigin(), configMap("c" to 3, "b" to 2, "a" to 1))
+		val different = SimpleConfigObject(fakeOrigin(), configMap("c" to 3, "b" to 2, "a" to 4))
+
+		// hashing twice gives the cached hash, which must match a fresh one
+		assertEquals(forward.hashCode(), forward.hashCode())
+		checkEqualObjects(forward, backward)
+		// both hashes are cached now, so this takes the hash mismatch path
+		different.hashCode()
+		checkNotEqualObjects(forward, different)
+
+		val nested = SimpleConfigList(fakeOrigin(), listOf(forward, different))
+		val sameNested = SimpleConfigList(fakeOrigin(), listOf(backward, different))
+		checkEqualObjects(nested, sameNested)
+		checkNotEqualObjects(nested, SimpleConfigList(fakeOrigin(), listOf(different, forward)))
+	}
+
 	@Test
 	fun java6ConfigObjectSerializable() {
 		val expectedSerialization = "" +
@@ -1084,6 +1107,98 @@ class ConfigValueTest : TestUtils() {
 		)
 	}
 
+	@Test
+	fun renderInSourceOrder(): Unit {
+		val options = ConfigParseOptions.defaults().setPreserveKeyOrder(true)
+		val config = ConfigFactory.parseString("z=1, a { y=1, b=2 }, 10=x, m=${'$'}{z}, a.c=3, z=5", options).resolve()
+		val source = ConfigRenderOptions.concise().setKeyOrder(ConfigRenderOptions.KeyOrder.SOURCE)
+
+		assertEquals("""{"z":5,"a":{"y":1,"b":2,"c":3},"10":"x","m":5}""", config.root().render(source))
+		assertEquals(
+			"""{"z":5,"a":{"y":1,"c":3},"10":"x","m":5,"n":1}""",
+			config.withValue("n", intValue(1)).withoutPath("a.b").root().render(source)
+		)
+		// sorted is still the default, and objects that didn't keep their
+		// order render sorted
+		assertEquals("""{"10":"x","a":{"b":2,"c":3,"y":1},"m":5,"z":5}""", config.root().render(ConfigRenderOptions.concise()))
+		assertEquals(
+			"""{"10":"x","a":{"b":2,"c":3,"y":1},"m":5,"z":5}""",
+			ConfigFactory.parseString("z=1, a { y=1, b=2 }, 10=x, m=${'$'}{z}, a.c=3, z=5").resolve().root().render(source)
+		)
+		// order isn't part of equality
+		assertEquals(ConfigFactory.parseString("m=5, z=5, 10=x, a { b=2, c=3, y=1 }"), config)
+	}
+
+	@Test
+	fun renderToWriterAndStream(): Unit {
+		val config = parseConfig("""a { b = "x\ny", c = [1, 2, { d = "\u00e9" }] }, e = ${'$'}{a.b}, "f g" = null""")
+		for (conf in listOf(config, config.resolve())) {
+			for (options in listOf(
+				ConfigRenderOptions.defaults(),
+				ConfigRenderOptions.concise(),
+				ConfigRenderOptions.concise().setJson(false).setFormatted(true)
+			)) {
+				val expected = conf.root().render(options)
+
+				val writer = StringWriter()
+				conf.root().render(writer, options)
+				assertEquals(expected, writer.toString())
+
+				val bytes = ByteArrayOutputStream()
+				conf.root().render(bytes, StandardCharsets.UTF_8, options)
+				assertEquals(expected, bytes.toString(StandardCharsets.UTF_8))
+			}
+		}
+	}
+
+	@Test
+	fun renderConciseJsonToUtf8(): Unit {
+		// concise() to a UTF-8 stream is written straight to bytes; it must match the String render
+		val config = parseConfig(
+			"""a { b = "x\ny\u0001\u4e2d\"", c = [1, 2.5, 1e300, 9007199254740993, true, null, { d = "\u00e9" }] }, """ +
+				""""f \ud83d\ude00" = "\ud83d\ude00", e = ${'$'}{a.b}"""
+		)
+		for (conf in listOf(config, config.resolve())) {
+			val expected = conf.root().render(ConfigRenderOptions.concise())
+			val bytes = ByteArrayOutputStream()
+			conf.root().render(bytes, StandardCharsets.UTF_8, ConfigRenderOptions.concise())
+			assertArrayEquals(expected.toByteArray(StandardCharsets.UTF_8), bytes.toByteArray())
+
+			val utf16 = ByteArrayOutputStream()
+			conf.root().render(utf16, StandardCharsets.UTF_16, ConfigRenderOptions.concise())
+			assertEquals(expected, utf16.toString(StandardCharsets.UTF_16))
+		}
+	}
+
+	@Test
+	fun renderCachesSortedKeyOrder(): Unit {
+		val obj = parseConfig("b = 1, 10 = 2, 2 = 3, a = 4").root() as SimpleConfigObject
+		val order = obj.renderOrder(ConfigRenderOptions.KeyOrder.SORTED)
+		assertArrayEquals(arrayOf("2", "10", "a", "b"), order)
+		assertSame(order, obj.renderOrder(ConfigRenderOptions.KeyOrder.SORTED))
+		assertSame(obj.jsonKeyPrefixes(), obj.jsonKeyPrefixes())
+		assertEquals("\"10\":", String(obj.jsonKeyPrefixes()[1], StandardCharsets.UTF_8))
+
+		// a modified copy doesn't reuse the original's cache
+		val modified = obj.withValue("c", intValue(5)) as SimpleConfigObject
+		assertArrayEquals(arrayOf("2", "10", "a", "b", "c"), modified.renderOrder(ConfigRenderOptions.KeyOrder.SORTED))
+		assertEquals("""{"2":3,"10":2,"a":4,"b":1,"c":5}""", modified.render(ConfigRenderOptions.concise()))
+		assertEquals("""{"2":3,"10":2,"a":4,"b":1}""", obj.render(ConfigRenderOptions.concise()))
+	}
+
+	@Test
+	fun renderToAppendablePassesOnIOException(): Unit {
+		val failing = object : Appendable {
+			override fun append(csq: CharSequence?): Appendable = throw IOException("disk full")
+			override fun append(csq: CharSequence?, start: Int, end: Int): Appendable = throw IOException("disk full")
+			override fun append(c: Char): Appendable = throw IOException("disk full")
+		}
+		val e = assertThrows(IOException::class.java) {
+			parseConfig("a=1").root().render(failing, ConfigRenderOptions.concise())
+		}
+		assertEquals("disk full", e.message)
+	}
+
 	private fun configMap(vararg pairs: Pair<String, Int>): Map<String, AbstractConfigValue> {
 		return pairs.associate { it.first to intValue(it.second) }
 	}
@@ -0,0 +1,161 @@
+package com.typesafe.config.impl
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+
+class HashTrieMapTest : TestUtils() {
+	@Test
+	fun plusLeavesOriginalAlone() {
+		val map = HashTrieMap.empty<String, String>()
+		val copy = map.plus("key", "value")
+
+		assertNull(map["key"])
+		assertEquals(0, map.size)
+		assertEquals("value", copy["key"])
+		assertEquals(1, copy.size)
+	}
+
+	@Test
+	fun plusOverride() {
+		val map = HashTrieMap.empty<String, String>()
+			.plus("key", "value1")
+			.plus("key", "value2")
+			.plus("key", "value3")
+
+		assertEquals("value3", map["key"])
+		assertEquals(1, map.size)
+	}
+
+	@Test
+	fun plusSameValueIsNoOp() {
+		val value = "value"
+		val map = HashTrieMap.empty<String, String>().plus("key", value)
+
+		assertSame(map, map.plus("key", value))
+	}
+
+	@Test
+	fun plusAndMinusMany() {
+		val entries = (1..10000).map { i -> "key$i" to "value$i" }
+		var map = HashTrieMap.empty<String, String>()
+
+		for ((key, value) in entries) {
+			map = map.plus(key, value)
+		}
+
+		assertEquals(entries.toMap(), map)
+		assertEquals(entries.toMap().hashCode(), map.hashCode())
+
+		val (removed, kept) = entries.splitAt(5000)
+		for ((key, _) in removed) {
+			map = map.minus(key)
+		}
+
+		assertEquals(kept.toMap(), map)
+		for ((key, _) in removed) {
+			assertFalse(map.containsKey(key))
+		}
+	}
+
+	@Test
+	fun minusMissingIsNoOp() {
+		val map = HashTrieMap.empty<String, String>().plus("key", "value")
+
+		assertSame(map, map.minus("invalid key"))
+	}
+
+	@Test
+	fun fromMap() {
+		val source = (1..100).associate { i -> "key$i" to i }
+		val map = HashTrieMap.from(source)
+
+		assertEquals(source, map)
+		assertSame(map, HashTrieMap.from(map))
+	}
+
+	@Test
+	fun sameHash() {
+		val hash = 2
+		val entries = (1..10).map { i -> UniqueKeyWithHash(hash) to "value$i" }
+		var map = HashTrieMap.empty<UniqueKeyWithHash, String>()
+
+		for ((key, value) in entries) {
+			map = map.plus(key, value)
+		}
+
+		for ((key, value) in entries) {
+			assertEquals(value, map[key])
+		}
+		assertEquals(entries.size, map.entries.count())
+
+		// a different hash arriving at a collision node
+		val other = UniqueKeyWithHash(hash + 32)
+		map = map.plus(other, "other")
+		assertEquals("other", map[other])
+
+		for ((key, _) in entries) {
+			map = map.minus(key)
+		}
+		assertEquals(mapOf(other to "other"), map)
+	}
+
+	private class RecordingDiff<K, V> : HashTrieMap.DiffVisitor<K, V> {
+		val onlyInThis = mutableMapOf<K, V>()
+		val onlyInOther = mutableMapOf<K, V>()
+		val different = mutableMapOf<K, Pair<V, V>>()
+
+		override fun onlyInThis(key: K, value: V) {
+			onlyInThis[key] = value
+		}
+
+		override fun onlyInOther(key: K, value: V) {
+			onlyInOther[key] = value
+		}
+
+		override fun different(key: K, thisValue: V, otherValue: V) {
+			different[key] = thisValue to otherValue
+		}
+	}
+
+	@Test
+	fun diffReportsChanges() {
+		var map = HashTrieMap.empty<String, String>()
+		for (i in 1..10000) {
+			map = map.plus("key$i", "value$i")
+		}
+		val other = map.minus("key1").plus("key2", "changed").plus("new", "added")
+
+		val diff = RecordingDiff<String, String>()
+		map.diff(other, diff)
+		assertEquals(mapOf("key1" to "value1"), diff.onlyInThis)
+		assertEquals(mapOf("new" to "added"), diff.onlyInOther)
+		assertEquals(mapOf("key2" to ("value2" to "changed")), diff.different)
+
+		val same = RecordingDiff<String, String>()
+		map.diff(map, same)
+		assertTrue(same.onlyInThis.isEmpty() && same.onlyInOther.isEmpty() && same.different.isEmpty())
+	}
+
+	@Test
+	fun diffAcrossCollisions() {
+		val a = UniqueKeyWithHash(2)
+		val b = UniqueKeyWithHash(2)
+		val c = UniqueKeyWithHash(2 + 32)
+		val map = HashTrieMap.empty<UniqueKeyWithHash, String>().plus(a, "a")
+		val other = map.plus(b, "b").plus(c, "c")
+
+		val diff = RecordingDiff<UniqueKeyWithHash, String>()
+		map.diff(other, diff)
+		assertEquals(mapOf(b to "b", c to "c"), diff.onlyInOther)
+		assertTrue(diff.onlyInThis.isEmpty() && diff.different.isEmpty())
+
+		val back = RecordingDiff<UniqueKeyWithHash, String>()
+		other.diff(map.plus(a, "changed"), back)
+		assertEquals(mapOf(b to "b", c to "c"), back.onlyInThis)
+		assertEquals(mapOf(a to ("a" to "changed")), back.different)
+	}
+
+	private class UniqueKeyWithHash(val hash: Int) {
+		override fun hashCode(): Int = hash
+	}
+}
@@ -70,6 +70,22 @@ class HttpTest : TestUtils() {
 		assertEquals(43, conf.getInt("bar"))
 	}
 
+	@Test
+	fun unchangedResponseIsNotFetchedOrParsedAgain() {
+		ConfigFactory.invalidateCaches()
+		etagBody = "foo = 42"
+		val fullBefore = etagFullResponses
+		val first = ConfigFactory.parseURI(uri("etag"))
+		val second = ConfigFactory.parseURI(uri("etag"))
+		assertEquals(42, second.getInt("foo"))
+		assertEquals(fullBefore + 1, etagFullResponses)
+		assertTrue(first.root() === second.root(), "parsed value was reused")
+
+		etagBody = "foo = 43"
+		assertEquals(43, ConfigFactory.parseURI(uri("etag")).getInt("foo"))
+		assertEquals(fullBefore + 2, etagFullResponses)
+	}
+
 	private fun foreachSyntax(body: (ConfigSyntax?) -> Unit) {
 		for (syntax in ConfigSyntax.entries.plus(null)) {
 			body(syntax)
@@ -93,6 +109,12 @@ class HttpTest : TestUtils() {
 
 		private var server: ToyHttp? = null
 
+		@Volatile
+		private var etagBody = "foo = 42"
+
+		@Volatile
+		private var etagFullResponses = 0
+
 		fun port(): Int = server?.port ?: throw Exception("http server isn't running")
 
 		fun hostname(): String = server?.baseUrl ?: throw Exception("http server isn't running")
@@ -149,6 +171,16 @@ class HttpTest : TestUtils() {
 
 				"/foo/bar.conf" -> ToyHttp.Response(200, HOCON_CONTENT_TYPE, "{ bar = 43 }")
 
+				"/etag" -> {
+					val etag = "\"${etagBody.hashCode()}\""
+					if (request.headers["if-none-match"] == etag) {
+						ToyHttp.Response(304, HOCON_CONTENT_TYPE, "", mapOf("ETag" to etag))
+					} else {
+						etagFullResponses += 1
+						ToyHttp.Response(200, HOCON_CONTENT_TYPE, etagBody, mapOf("ETag" to etag))
+					}
+				}
+
 				else ->
 					ToyHttp.Response(404, "text/plain", "Never heard of '$path'")
 			}
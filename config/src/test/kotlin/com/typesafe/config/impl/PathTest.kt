@@ -116,6 +116,14 @@ class PathTest : TestUtils() {
 		assertEquals("b", path("a", "b").last())
 	}
 
+	@Test
+	fun pathToUnmodifiableJava() {
+		// the last element used to be left out
+		assertEquals(listOf("a"), path("a").toUnmodifiableJava())
+		assertEquals(listOf("a", "b", "c"), path("a", "b", "c").toUnmodifiableJava())
+		assertEquals(listOf("a.b", "c"), path("a.b", "c").toUnmodifiableJava())
+	}
+
 	@Test
 	fun pathStartsWith() {
 		assertTrue(path("a", "b", "c", "d").startsWith(path("a", "b")))
@@ -390,6 +390,25 @@ class PublicApiTest : TestUtils() {
 			included.map { it.name })
 	}
 
+	@Test
+	fun includerThatParsesItselfInACycleFails() {
+		// this includer parses through ConfigFactory, outside the include
+		// chain, so only the per-thread fallback can catch the cycle
+		val includer = object : ConfigIncluder {
+			override fun withFallback(fallback: ConfigIncluder): ConfigIncluder = this
+
+			override fun include(context: ConfigIncludeContext, what: String): ConfigObject =
+				ConfigFactory.parseString("a = 1, include \"$what\"", ConfigParseOptions.defaults().setIncluder(this)).root()
+		}
+		val e = assertThrows(ConfigException.Parse::class.java) {
+			ConfigFactory.parseString("include \"self\"", ConfigParseOptions.defaults().setIncluder(includer))
+		}
+		assertTrue(e.message!!.contains("nested more than"), "wrong exception: ${e.message}")
+
+		// and the next parse on this thread starts counting from zero
+		assertEquals(1, ConfigFactory.parseString("a = 1", ConfigParseOptions.defaults().setIncluder(includer)).getInt("a"))
+	}
+
 	// full includer should only be used with the file(), url(), classpath() syntax.
 	@Test
 	fun fullIncluderNotUsedWithoutNewSyntax() {
@@ -579,6 +598,24 @@ class PublicApiTest : TestUtils() {
 		assertEquals("true", fromResources.getString("fromProps.bool"))
 	}
 
+	@Test
+	fun anySyntaxWithSomeExtensionsMissing() {
+		withScratchDirectory("anySyntaxWithSomeExtensionsMissing") { dir ->
+			writeFile(File(dir, "partial.json"), "{ \"fromJson\" : 1 }")
+			writeFile(File(dir, "partial.properties"), "fromProps=2")
+			val conf = ConfigFactory.parseFileAnySyntax(File(dir, "partial"))
+			assertEquals(1, conf.getInt("fromJson"))
+			assertEquals(2, conf.getInt("fromProps"))
+
+			val inMissingDir = File(File(dir, "no-such-dir"), "partial")
+			assertTrue(ConfigFactory.parseFileAnySyntax(inMissingDir).isEmpty, "is empty")
+			val e = assertThrows(ConfigException.IO::class.java) {
+				ConfigFactory.parseFileAnySyntax(inMissingDir, ConfigParseOptions.defaults().setAllowMissing(false))
+			}
+			assertNotFound(e)
+		}
+	}
+
 	@Test
 	fun resourceFromAnotherClasspath() {
 		val conf =
@@ -663,6 +700,155 @@ class PublicApiTest : TestUtils() {
 		assertFalse(configPlain.hasPath("b"), "no b")
 	}
 
+	@Test
+	fun parallelResourcesMergeInClasspathOrder(): Unit {
+		withScratchDirectory("parallelResourcesMergeInClasspathOrder") { dir ->
+			val roots = (0 until 20).map { i ->
+				val root = File(dir, "jar$i")
+				root.mkdirs()
+				// "fromFifth" is only in jar5 and the roots after it
+				val fromFifth = if (i >= 5) ", fromFifth = $i" else ""
+				writeFile(File(root, "parallel.conf"), "winner = $i, k$i = $i$fromFifth, include \"parallel-included-$i.conf\"")
+				writeFile(File(root, "parallel-included-$i.conf"), "included$i = $i")
+				root
+			}
+			// earlier roots on the classpath take precedence over later ones
+			val loader = java.net.URLClassLoader(roots.map { it.toURI().toURL() }.toTypedArray(), null)
+			val options = ConfigParseOptions.defaults().setClassLoader(loader)
+
+			val sequential = ConfigFactory.parseResources("parallel.conf", options)
+			val parallel = ConfigFactory.parseResources("parallel.conf", options.setParallelResources(true))
+
+			assertEquals(sequential, parallel)
+			assertEquals(sequential.getInt("winner"), parallel.getInt("winner"))
+			assertEquals(0, parallel.getInt("winner"))
+			assertEquals(5, parallel.getInt("fromFifth"))
+			assertEquals(19, parallel.getInt("k19"))
+			assertTrue(parallel.hasPath("included0"))
+			assertTrue(parallel.hasPath("included19"))
+		}
+	}
+
+	@Test
+	fun resourceIndexFindsSameResources(): Unit {
+		withScratchDirectory("resourceIndexFindsSameResources") { dir ->
+			val jar = File(dir, "lib with space.jar")
+			java.util.jar.JarOutputStream(jar.outputStream()).use { out ->
+				out.putNextEntry(java.util.jar.JarEntry("indexed.conf"))
+				out.write("fromJar = 1, shared = jar, include \"indexed-include\"".toByteArray())
+				out.closeEntry()
+				out.putNextEntry(java.util.jar.JarEntry("indexed-include.json"))
+				out.write("{ \"fromJson\" : 2 }".toByteArray())
+				out.closeEntry()
+			}
+			val classes = File(dir, "classes")
+			File(classes, "nested").mkdirs()
+			writeFile(File(classes, "indexed.conf"), "fromDir = 3, shared = dir")
+			writeFile(File(classes, "nested/indexed.properties"), "nested=4")
+
+			val loader = java.net.URLClassLoader(arrayOf(classes.toURI().toURL(), jar.toURI().toURL()), null)
+			val options = ConfigParseOptions.defaults().setClassLoader(loader)
+			fun parseAll() = Pair(
+				ConfigFactory.parseResources("indexed.conf", options),
+				ConfigFactory.parseResourcesAnySyntax("nested/indexed", options)
+			)
+
+			val (plain, plainNested) = parseAll()
+			System.setProperty("config.resource_index", "true")
+			try {
+				val (indexed, indexedNested) = parseAll()
+				assertEquals(plain, indexed)
+				assertEquals(plainNested, indexedNested)
+				assertEquals(plain.getValue("fromJar").origin().uri(), indexed.getValue("fromJar").origin().uri())
+				assertEquals("dir", indexed.getString("shared"))
+				assertEquals(2, indexed.getInt("fromJson"))
+				assertEquals(4, indexedNested.getInt("nested"))
+				assertTrue(ConfigFactory.parseResourcesAnySyntax("not-there", options).isEmpty, "is empty")
+
+				// directories aren't listed once and for all, so files added
+				// to them after the index is built are still found
+				writeFile(File(classes, "added-later.conf"), "added = 5")
+				assertEquals(5, ConfigFactory.parseResources("added-later.conf", options).getInt("added"))
+			} finally {
+				System.clearProperty("config.resource_index")
+			}
+		}
+	}
+
+	@Test
+	fun parsedFileCacheReusesUnchangedFiles(): Unit {
+		withScratchDirectory("parsedFileCacheReusesUnchangedFiles") { dir ->
+			val plain = File(dir, "plain.conf")
+			val including = File(dir, "including.conf")
+			writeFile(plain, "a = 1")
+			writeFile(including, "include \"plain.conf\"\nb = 2")
+
+			System.setProperty("config.parsed_file_cache", "10")
+			ConfigFactory.invalidateCaches()
+			try {
+				val before = ConfigFactory.parsedFileCacheStats()
+				val first = ConfigFactory.parseFile(plain)
+				val second = ConfigFactory.parseFile(plain)
+				assertTrue(first.root() === second.root(), "unchanged file was reused")
+				assertEquals(before.hitCount() + 1, ConfigFactory.parsedFileCacheStats().hitCount())
+
+				writeFile(plain, "a = 42")
+				assertEquals(42, ConfigFactory.parseFile(plain).getInt("a"))
+
+				// the including file is parsed again each time, picking up
+				// changes to what it includes
+				val included1 = ConfigFactory.parseFile(including)
+				val included2 = ConfigFactory.parseFile(including)
+				assertFalse(included1.root() === included2.root(), "file with includes was reused")
+				assertEquals(42, included2.getInt("a"))
+			} finally {
+				System.clearProperty("config.parsed_file_cache")
+				ConfigFactory.invalidateCaches()
+			}
+			assertEquals(0L, ConfigFactory.parsedFileCacheStats().hitCount())
+		}
+	}
+
+	@Test
+	fun watcherReloadsChangedFiles(): Unit {
+		withScratchDirectory("watcherReloadsChangedFiles") { dir ->
+			val main = File(dir, "main.conf")
+			val included = File(dir, "included.conf")
+			writeFile(main, "include \"included.conf\"\na = 1")
+			writeFile(included, "b = 1")
+
+			val changes = java.util.concurrent.LinkedBlockingQueue<Any>()
+			ConfigFactory.watch({ ConfigFactory.parseFileAnySyntax(File(dir, "main")).resolve() }).use { watcher ->
+				assertEquals(1, watcher.current().getInt("b"))
+				// missing alternatives are watched too
+				assertEquals(
+					setOf("main.conf", "main.json", "main.properties", "included.conf"),
+					watcher.watchedFiles().map { it.fileName.toString() }.toSet()
+				)
+				watcher.subscribe { changes.add(it) }
+				watcher.onFailure { changes.add(it) }
+
+				writeFile(included, "b = 2")
+				val reloaded = changes.poll(30, java.util.concurrent.TimeUnit.SECONDS) as Config
+				assertEquals(2, reloaded.getInt("b"))
+				assertEquals(reloaded, watcher.current())
+
+				writeFile(included, "b = [")
+				assertTrue(changes.poll(30, java.util.concurrent.TimeUnit.SECONDS) is ConfigException.Parse, "failure reported")
+				assertEquals(reloaded, watcher.current())
+
+				writeFile(File(dir, "main.json"), "{ \"c\" : 3 }")
+				val withJson = changes.poll(30, java.util.concurrent.TimeUnit.SECONDS)
+				// the included file is still broken
+				assertTrue(withJson is ConfigException.Parse, "failure reported")
+				writeFile(included, "b = 3")
+				val fixed = changes.poll(30, java.util.concurrent.TimeUnit.SECONDS) as Config
+				assertEquals(3, fixed.getInt("b"))
+				assertEquals(3, fixed.getInt("c"))
+			}
+		}
+	}
+
 	@Test
 	fun supportsConfigLoadingStrategyAlteration(): Unit {
 		assertEquals(null, System.getProperty("config.strategy"), "config.strategy is not set")
@@ -953,7 +1139,7 @@ class PublicApiTest : TestUtils() {
 		assertEquals(load1, load5)
 
 		val load7 = ConfigFactory.load(otherLoader)
-		assertTrue(load3 !== load7, "cache was dropped when switching loaders")
+		assertTrue(load3 === load7, "cache was kept when switching loaders")
 		assertEquals(load3, load7)
 	}
 
@@ -983,10 +1169,62 @@ class PublicApiTest : TestUtils() {
 		assertEquals(load1, load5)
 
 		val load7 = ConfigFactory.defaultReference(otherLoader)
-		assertTrue(load3 !== load7, "cache was dropped when switching loaders")
+		assertTrue(load3 === load7, "cache was kept when switching loaders")
 		assertEquals(load3, load7)
 	}
 
+	@Test
+	fun cacheStatsCountHitsAndMisses() {
+		val otherLoader = TestClassLoader(
+			this::class.java.getClassLoader(),
+			mapOf("reference.conf" to resourceFile("a_1.conf").toURI().toURL())
+		)
+		val before = ConfigFactory.cacheStats()
+		val load1 = ConfigFactory.load(otherLoader)
+		val afterMiss = ConfigFactory.cacheStats()
+		// load, defaultReference and unresolvedReference were all loaded
+		assertEquals(before.missCount() + 3, afterMiss.missCount())
+		assertTrue(afterMiss.totalLoadTime() > before.totalLoadTime(), "load time was recorded")
+
+		val threads = (1..8).map { Thread { assertTrue(load1 === ConfigFactory.load(otherLoader)) } }
+		threads.forEach { it.start() }
+		threads.forEach { it.join() }
+		val afterHits = ConfigFactory.cacheStats()
+		assertEquals(afterMiss.missCount(), afterHits.missCount())
+		assertEquals(afterMiss.hitCount() + 8, afterHits.hitCount())
+	}
+
+	@Test
+	fun loadAsyncMatchesLoad() {
+		val loader = TestClassLoader(
+			this::class.java.getClassLoader(),
+			mapOf(
+				"reference.conf" to resourceFile("a_1.conf").toURI().toURL(),
+				"application.conf" to resourceFile("b_2.conf").toURI().toURL()
+			)
+		)
+		val future = ConfigFactory.loadAsync(loader)
+		val loaded = future.get(30, java.util.concurrent.TimeUnit.SECONDS)
+		assertEquals(1, loaded.getInt("a"))
+		assertEquals(2, loaded.getInt("b"))
+		// shares the load() cache
+		assertTrue(loaded === ConfigFactory.load(loader), "async load was cached")
+		assertTrue(ConfigFactory.loadAsync(loader).isDone(), "cached config is returned right away")
+
+		withScratchDirectory("loadAsyncMatchesLoad") { dir ->
+			val invalid = File(dir, "application.conf")
+			writeFile(invalid, "a = {")
+			val broken = TestClassLoader(
+				this::class.java.getClassLoader(),
+				mapOf("application.conf" to invalid.toURI().toURL())
+			)
+			val e = assertThrows(java.util.concurrent.ExecutionException::class.java) {
+				ConfigFactory.loadAsync(broken).get(30, java.util.concurrent.TimeUnit.SECONDS)
+			}
+			assertTrue(e.cause is ConfigException.Parse, "failed with a parse error: ${e.cause}")
+		}
+	}
+
 	@Test
 	fun detectIncludeCycle() {
 		val e = assertThrows(ConfigException.Parse::class.java) {
@@ -996,6 +1234,20 @@ class PublicApiTest : TestUtils() {
 		assertTrue(e.message!!.contains("include statements nested"), "wrong exception: " + e.message!!)
 	}
 
+	@Test
+	fun detectIncludeCycleThroughFileIncludes() {
+		withScratchDirectory("detectIncludeCycleThroughFileIncludes") { dir ->
+			val a = File(dir, "a.conf")
+			val b = File(dir, "b.conf")
+			writeFile(a, "include required(file(\"${b.path.replace("\\", "\\\\")}\"))")
+			writeFile(b, "include required(file(\"${a.path.replace("\\", "\\\\")}\"))")
+			val e = assertThrows(ConfigException.Parse::class.java) {
+				ConfigFactory.parseFile(a)
+			}
+			assertTrue(e.message!!.contains("include statements nested"), "wrong exception: " + e.message!!)
+		}
+	}
+
 	// We would ideally make this case NOT throw an exception but we need to do some work
 // to get there, see https://github.com/lightbend/config/issues/160
 	@Test
@@ -1175,6 +1427,187 @@ include "onclasspath"
 		}
 	}
 
+	@Test
+	fun snapshotRoundTrip(): Unit {
+		withScratchDirectory("snapshotRoundTrip") { dir ->
+			val f = File(dir, "snapshot.bin")
+			val conf = ConfigFactory.parseString(
+				"""
+a { b = 1, c = [1, "two", { x = 3 }], d = 3.5, e = 9999999999, f = null, g = true }
+"quoted.key" = "\u00fcber"
+z.y.x = ${'$'}{a.b}
+"""
+			).resolve()
+			ConfigFactory.writeSnapshot(conf, f)
+			val snapshot = ConfigFactory.parseSnapshot(f)
+
+			assertEquals(conf, snapshot)
+			assertEquals(conf.hashCode(), snapshot.hashCode())
+			assertTrue(snapshot.isResolved)
+			assertEquals(1, snapshot.getInt("a.b"))
+			assertEquals(9999999999L, snapshot.getLong("a.e"))
+			assertTrue(snapshot.getIsNull("a.f"))
+			assertEquals("\u00fcber", snapshot.getString("\"quoted.key\""))
+			assertEquals(1, snapshot.getInt("z.y.x"))
+			assertFalse(snapshot.hasPath("a.missing"))
+			assertEquals(conf.entrySet(), snapshot.entrySet())
+			assertEquals(2, snapshot.withValue("a.b", ConfigValueFactory.fromAnyRef(2)).getInt("a.b"))
+		}
+	}
+
+	@Test
+	fun snapshotRequiresResolvedConfig(): Unit {
+		withScratchDirectory("snapshotRequiresResolvedConfig") { dir ->
+			val conf = ConfigFactory.parseString("a = 1, b = ${'$'}{a}")
+			assertThrows(ConfigException.NotResolved::class.java) {
+				ConfigFactory.writeSnapshot(conf, File(dir, "snapshot.bin"))
+			}
+		}
+	}
+
+	@Test
+	fun snapshotRejectsOtherFiles(): Unit {
+		assertThrows(ConfigException.Parse::class.java) {
+			ConfigFactory.parseSnapshot(resourceFile("test01.conf"))
+		}
+	}
+
+	@Test
+	fun snapshotRejectsCorruptFiles(): Unit {
+		withScratchDirectory("snapshotRejectsCorruptFiles") { dir ->
+			val f = File(dir, "snapshot.bin")
+			val conf = ConfigFactory.parseString("a { b = 1, c = [1, \"two\", { x = 3 }], d = 3.5 }, e = \"\u00fcber\"")
+			ConfigFactory.writeSnapshot(conf, f)
+			val good = f.readBytes()
+
+			// the root is written last, so every truncation cuts into it
+			for (n in good.indices) {
+				f.writeBytes(good.copyOf(n))
+				val e = assertThrows(ConfigException.Parse::class.java) {
+					ConfigFactory.parseSnapshot(f).root().render()
+				}
+				assertEquals(f.path, e.origin().filename())
+			}
+
+			// a damaged byte may still decode to some config, but if it
+			// doesn't, the failure has to be a ConfigException
+			val random = Random(42)
+			for (i in 0 until 500) {
+				val bad = good.clone()
+				bad[12 + random.nextInt(bad.size - 12)] = random.nextInt(256).toByte()
+				f.writeBytes(bad)
+				try {
+					ConfigFactory.parseSnapshot(f).root().render()
+				} catch (e: ConfigException) {
+					assertEquals(f.path, e.origin().filename())
+				}
+			}
+		}
+	}
+
+	@Test
+	fun builderBuildsNestedConfig(): Unit {
+		val conf = ConfigFactory.builder("test builder")
+			.put("a.b.c", 1)
+			.put("a.b.d", "two")
+			.put("a.list", listOf(1, 2, 3))
+			.put("m", mapOf("x.y" to true))
+			.put("m.z", 3.5)
+			.putAll(mapOf("p.q" to 10L, "\"quoted.key\"" to "q"))
+			.build()
+
+		assertEquals(1, conf.getInt("a.b.c"))
+		assertEquals("two", conf.getString("a.b.d"))
+		assertEquals(listOf(1, 2, 3), conf.getIntList("a.list"))
+		assertTrue(conf.getBoolean("m.\"x.y\""), "map keys are keys, not paths")
+		assertEquals(3.5, conf.getDouble("m.z"), 1e-6)
+		assertEquals(10L, conf.getLong("p.q"))
+		assertEquals("q", conf.getString("\"quoted.key\""))
+		assertTrue(conf.isResolved)
+		assertTrue(conf.origin().description().contains("test builder"))
+
+		val expected = ConfigFactory.parseString(
+			"""a { b { c = 1, d = "two" }, list = [1, 2, 3] }, m { "x.y" = true, z = 3.5 }, p.q = 10, "quoted.key" = q"""
+		)
+		assertEquals(expected, conf)
+	}
+
+	@Test
+	fun builderReplacesValues(): Unit {
+		val conf = ConfigFactory.builder()
+			.put("a", 1)
+			.put("a", 2)
+			.put("b", 3)
+			.put("b.c", 4)
+			.put("d.e", 5)
+			.put("d", "flat")
+			.build()
+		assertEquals(2, conf.getInt("a"))
+		assertEquals(4, conf.getInt("b.c"))
+		assertEquals("flat", conf.getString("d"))
+	}
+
+	@Test
+	fun builderPutAllPutsParentsFirst(): Unit {
+		val entries = listOf("a" to mapOf("x" to 1), "a.b" to 2, "c.d" to 3, "c" to 4)
+		val expected = ConfigFactory.parseString("a { x = 1, b = 2 }, c { d = 3 }")
+		for (ordered in listOf(entries, entries.reversed())) {
+			val values = LinkedHashMap<String, Any>()
+			for ((path, value) in ordered)
+				values[path] = value
+			assertEquals(expected, ConfigFactory.builder().putAll(values).build())
+		}
+	}
+
+	@Test
+	fun builderIsSingleUse(): Unit {
+		val builder = ConfigFactory.builder().put("a", 1)
+		builder.build()
+		assertThrows(ConfigException.BugOrBroken::class.java) { builder.build() }
+		assertThrows(ConfigException.BugOrBroken::class.java) { builder.put("b", 2) }
+	}
+
+	@Test
+	fun builderRejectsBadPaths(): Unit {
+		assertThrows(ConfigException.BadPath::class.java) { ConfigFactory.builder().put("a..b", 1) }
+	}
+
+	@Test
+	fun diffReportsAddedRemovedAndChangedPaths(): Unit {
+		val a = ConfigFactory.parseString("a = 1, b { c = 2, d = [1, 2] }, e { f = 3 }, g = 4, n = null")
+		val b = ConfigFactory.parseString("a = 1, b { c = 5, d = [1, 3] }, e = 3, g { h = 4 }, \"i.j\" = 6, n = 7")
+
+		val diff = a.diff(b)
+		assertEquals(setOf("e", "g.h", "\"i.j\"", "n"), diff.added())
+		assertEquals(setOf("e.f", "g"), diff.removed())
+		assertEquals(setOf("b.c", "b.d"), diff.changed())
+		assertFalse(diff.isEmpty)
+
+		val reverse = b.diff(a)
+		assertEquals(diff.removed(), reverse.added())
+		assertEquals(diff.added(), reverse.removed())
+		assertEquals(diff.changed(), reverse.changed())
+	}
+
+	@Test
+	fun diffOfDerivedConfig(): Unit {
+		val base = ConfigFactory.parseString("a { b { c = 1, d = 2 } }, x { y = 1 }")
+		assertTrue(base.diff(base).isEmpty)
+		assertTrue(base.diff(ConfigFactory.parseString("x.y = 1, a.b { d = 2, c = 1 }")).isEmpty)
+
+		val derived = base.withValue("a.b.c", ConfigValueFactory.fromAnyRef(10)).withoutPath("x.y")
+		val diff = base.diff(derived)
+		assertEquals(ConfigDiff(setOf(), setOf("x.y"), setOf("a.b.c")), diff)
+	}
+
+	@Test
+	fun diffRequiresResolvedConfigs(): Unit {
+		val resolved = ConfigFactory.parseString("a = 1")
+		val unresolved = ConfigFactory.parseString("a = 1, b = ${'$'}{a}")
+		assertThrows(ConfigException.NotResolved::class.java) { resolved.diff(unresolved) }
+		assertThrows(ConfigException.NotResolved::class.java) { unresolved.diff(resolved) }
+	}
+
 	@Test
 	fun fileIncludeStatements(): Unit {
 		val file = resourceFile("file-include.conf")
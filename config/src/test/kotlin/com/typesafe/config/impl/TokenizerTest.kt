@@ -3,9 +3,11 @@
  */
 package com.typesafe.config.impl
 
+import com.typesafe.config.ConfigSyntax
 import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
+import java.io.StringReader
 
 class TokenizerTest : TestUtils() {
 
@@ -336,7 +338,14 @@ class TokenizerTest : TestUtils() {
 			pair2doubletest("1e-6" to 1e-6),
 			pair2doubletest("1E-6" to 1e-6), // capital E is allowed
 			pair2inttest("-1" to -1),
-			pair2doubletest("-1.2" to -1.2)
+			pair2doubletest("-1.2" to -1.2),
+			pair2inttest("-0" to 0),
+			pair2inttest("007" to 7),
+			pair2longtest("999999999999999999" to 999999999999999999L),
+			pair2longtest("-999999999999999999" to -999999999999999999L),
+			pair2longtest("1000000000000000000" to 1000000000000000000L),
+			pair2longtest("9223372036854775807" to Long.MAX_VALUE),
+			pair2longtest("-9223372036854775808" to Long.MIN_VALUE)
 		)
 
 		for (t in tests) {
@@ -407,6 +416,43 @@ class TokenizerTest : TestUtils() {
 		}
 	}
 
+	@Test
+	fun tokenizeAcrossReads() {
+		// tokens that are split between reads from the Reader come out the same
+		val source = (0 until 300).joinToString("\n") {
+			"k$it : [$it, -${it * 1000003}, $it.5e3, \"s$it\", \"\"\"t\n$it\"\"\", u$it true] # c$it"
+		}
+		val oneCharReader = object : StringReader(source) {
+			override fun read(cbuf: CharArray, off: Int, len: Int): Int = super.read(cbuf, off, minOf(len, 1))
+		}
+		val expected = tokenizeAsList(source)
+		assertEquals(expected, tokenize(oneCharReader).asSequence().toList())
+		assertEquals(source, Tokenizer.render(expected.iterator()))
+		assertTrue(source.length > 4096)
+	}
+
+	@Test
+	fun tokenizeValuesOnly() {
+		// whitespace is only kept where it can be part of a concatenation
+		val source = "a {\n  b : 1 2  # c\n    x = true\n}\n"
+		val origin = SimpleConfigOrigin.newSimple("test")
+		val tokenized = Tokenizer.tokenizeValuesOnly(origin, StringReader(source), ConfigSyntax.CONF)
+			.asSequence().toList()
+		val expected = listOf(
+			StaticToken.START, tokenUnquoted("a"), StaticToken.OPEN_CURLY, tokenLine(1),
+			tokenUnquoted("b"), StaticToken.COLON, tokenLong(1), tokenUnquoted(" "), tokenLong(2),
+			tokenCommentHash(" c"), tokenLine(2), tokenUnquoted("x"), StaticToken.EQUALS, tokenTrue(), tokenLine(3),
+			StaticToken.CLOSE_CURLY, tokenLine(4), StaticToken.END
+		)
+		assertEquals(expected, tokenized)
+
+		// origins are made from the line number when asked for
+		val comment = tokenized[9] as TokenWithOrigin.Comment
+		assertEquals(2, comment.lineNumber())
+		assertEquals("test: 2", comment.origin().description())
+		assertEquals(4, (tokenized[16] as TokenWithOrigin.Line).origin().lineNumber())
+	}
+
 	// FIXME most of this file should be using this method
 	private fun tokenizerTest(expected: List<Token>, s: String) {
 		assertEquals(
@@ -115,6 +115,7 @@ class ToyHttp(val handler: (Request) -> Response) {
 
 	private fun codeText(code: Int) = when (code) {
 		200 -> "OK"
+		304 -> "Not Modified"
 		404 -> "Not Found"
 		500 -> "Internal Server Error"
 		else -> throw RuntimeException("add text for $code")
@@ -130,6 +131,8 @@ class ToyHttp(val handler: (Request) -> Response) {
 		writer.append("HTTP/1.1 ${response.code} ${codeText(response.code)}\r\n")
 		writer.append("Date: ${dateFormat.format(Date())}\r\n")
 		writer.append("Content-Type: ${response.contentType}; charset=utf-8\r\n")
+		for ((name, value) in response.headers)
+			writer.append("$name: $value\r\n")
 		val bytes = response.body.byteInputStream(Charsets.UTF_8)
 		writer.append("Content-Length: $bytes\r\n")
 		writer.append("\r\n")
@@ -146,5 +149,10 @@ class ToyHttp(val handler: (Request) -> Response) {
 
 	data class Request(val path: String, val headers: Map<String, String>)
 
-	data class Response(val code: Int, val contentType: String, val body: String)
+	data class Response(
+		val code: Int,
+		val contentType: String,
+		val body: String,
+		val headers: Map<String, String> = emptyMap()
+	)
 }